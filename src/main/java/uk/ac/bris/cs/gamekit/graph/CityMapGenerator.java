@@ -0,0 +1,313 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Generates planar-like city maps with four layers of edges for scale testing,
+ * shaped after the standard Scotland Yard map(199 nodes with about 1.7 street,
+ * 0.5 bus, 0.1 underground and 0.015 ferry edges per node).
+ * <br>
+ * Nodes sit on a jittered square grid. Street edges join grid neighbours: a
+ * random spanning tree keeps the map connected, and some remaining sides and
+ * one diagonal per square are added. Every 2x2 block has a bus stop linked to
+ * the stops of adjacent blocks. Every 4x4 block has an underground station,
+ * chosen from its bus stops and linked to adjacent stations. A few ferries
+ * join nodes on the border. The same size and seed always give the same map.
+ *
+ * @param <D> the type for {@link Edge} data
+ */
+public final class CityMapGenerator<D extends Enum<D>> {
+
+	/**
+	 * Maximum number of nodes a generated map may have
+	 */
+	public static final int MAX_NODES = 10_000_000;
+
+	private static final int SPACING = 40;
+	private static final int JITTER = 12;
+	private static final double STREET_SIDE = 0.6;
+	private static final double STREET_DIAGONAL = 0.15;
+	private static final double UNDERGROUND_LINK = 0.8;
+	private static final double FERRIES_PER_NODE = 3 / 199.0;
+
+	private final D street;
+	private final D bus;
+	private final D underground;
+	private final D ferry;
+
+	/**
+	 * @param street data for edges between neighbouring nodes; not null
+	 * @param bus data for edges between bus stops; not null
+	 * @param underground data for edges between underground stations; not
+	 *        null
+	 * @param ferry data for edges between border nodes; not null
+	 */
+	public CityMapGenerator(D street, D bus, D underground, D ferry) {
+		this.street = Objects.requireNonNull(street);
+		this.bus = Objects.requireNonNull(bus);
+		this.underground = Objects.requireNonNull(underground);
+		this.ferry = Objects.requireNonNull(ferry);
+	}
+
+	/**
+	 * Generates a map with node values {@code 1} to {@code nodes}
+	 *
+	 * @param nodes number of nodes, in {@code [2, MAX_NODES]}
+	 * @param seed the random seed
+	 * @return the generated map; never null
+	 */
+	public CityMap<D> generate(int nodes, long seed) {
+		if (nodes < 2 || nodes > MAX_NODES)
+			throw new IllegalArgumentException("nodes " + nodes + " not in [2, " + MAX_NODES + "]");
+		Random random = new Random(seed);
+		int width = (int) Math.ceil(Math.sqrt(nodes));
+		int rows = (nodes + width - 1) / width;
+		CityMap<D> map = new CityMap<>(street.getDeclaringClass(), nodes);
+
+		for (int i = 0; i < nodes; i++) {
+			map.xs[i] = (i % width) * SPACING + random.nextInt(2 * JITTER + 1);
+			map.ys[i] = (i / width) * SPACING + random.nextInt(2 * JITTER + 1);
+		}
+
+		// streets: random spanning tree over left/up sides, then extra sides
+		// and at most one diagonal per grid square
+		for (int i = 1; i < nodes; i++) {
+			int column = i % width;
+			boolean left = column > 0;
+			boolean up = i >= width;
+			boolean treeLeft = left && (!up || random.nextBoolean());
+			if (left && (treeLeft || random.nextDouble() < STREET_SIDE))
+				map.addEdge(i - 1, i, street);
+			if (up && (!treeLeft || random.nextDouble() < STREET_SIDE))
+				map.addEdge(i - width, i, street);
+		}
+		for (int i = 0; i + width + 1 < nodes; i++) {
+			if (i % width == width - 1 || random.nextDouble() >= STREET_DIAGONAL) continue;
+			if (random.nextBoolean()) map.addEdge(i, i + width + 1, street);
+			else map.addEdge(i + 1, i + width, street);
+		}
+
+		// bus stops per 2x2 block, stations per 2x2 block of bus blocks
+		int[] stops = stops(random, nodes, width, rows, 2, null);
+		int busWidth = (width + 1) / 2;
+		link(map, stops, busWidth, 1, bus, random);
+		int[] stations = stops(random, stops.length, busWidth, (rows + 1) / 2, 2, stops);
+		link(map, stations, (busWidth + 1) / 2, UNDERGROUND_LINK, underground, random);
+
+		int[] border = new int[nodes];
+		int borderCount = 0;
+		for (int i = 0; i < nodes; i++) {
+			int column = i % width, row = i / width;
+			if (column == 0 || column == width - 1 || row == 0 || i + width >= nodes)
+				border[borderCount++] = i;
+		}
+		int ferries = Math.max(1, (int) Math.round(nodes * FERRIES_PER_NODE));
+		for (int i = 0; i < ferries; i++) {
+			int from = border[random.nextInt(borderCount)];
+			int to = border[random.nextInt(borderCount)];
+			if (from != to) map.addEdge(from, to, ferry);
+		}
+		return map;
+	}
+
+	// picks one existing cell per block of the given grid, -1 for empty blocks;
+	// cells are mapped through the given array when it is not null
+	private static int[] stops(Random random, int cells, int width, int rows, int block,
+			int[] through) {
+		int blocksWide = (width + block - 1) / block;
+		int blocksHigh = (rows + block - 1) / block;
+		int[] stops = new int[blocksWide * blocksHigh];
+		int[] candidates = new int[block * block];
+		for (int b = 0; b < stops.length; b++) {
+			int count = 0;
+			int left = (b % blocksWide) * block, top = (b / blocksWide) * block;
+			for (int row = top; row < Math.min(top + block, rows); row++)
+				for (int column = left; column < Math.min(left + block, width); column++) {
+					int cell = row * width + column;
+					if (cell >= cells) continue;
+					int node = through == null ? cell : through[cell];
+					if (node != -1) candidates[count++] = node;
+				}
+			stops[b] = count == 0 ? -1 : candidates[random.nextInt(count)];
+		}
+		return stops;
+	}
+
+	// links each stop to the stops of the blocks to its right and below
+	private static <D extends Enum<D>> void link(CityMap<D> map, int[] stops, int width,
+			double probability, D data, Random random) {
+		for (int b = 0; b < stops.length; b++) {
+			if (stops[b] == -1) continue;
+			if (b % width < width - 1 && b + 1 < stops.length && stops[b + 1] != -1
+					&& random.nextDouble() < probability)
+				map.addEdge(stops[b], stops[b + 1], data);
+			if (b + width < stops.length && stops[b + width] != -1
+					&& random.nextDouble() < probability)
+				map.addEdge(stops[b], stops[b + width], data);
+		}
+	}
+
+	/**
+	 * A generated map: undirected edges between nodes {@code 1} to
+	 * {@link #size()} and a position for every node
+	 *
+	 * @param <D> the type for {@link Edge} data
+	 */
+	public static final class CityMap<D extends Enum<D>> {
+
+		private final Class<D> type;
+		private final D[] universe;
+		private final int[] xs;
+		private final int[] ys;
+		private int[] sources;
+		private int[] destinations;
+		private byte[] data;
+		private int edgeCount;
+
+		private CityMap(Class<D> type, int nodes) {
+			this.type = type;
+			this.universe = type.getEnumConstants();
+			this.xs = new int[nodes];
+			this.ys = new int[nodes];
+			int capacity = nodes * 5 / 2;
+			this.sources = new int[capacity];
+			this.destinations = new int[capacity];
+			this.data = new byte[capacity];
+		}
+
+		private void addEdge(int source, int destination, D value) {
+			if (edgeCount == sources.length) {
+				int capacity = edgeCount * 2;
+				sources = Arrays.copyOf(sources, capacity);
+				destinations = Arrays.copyOf(destinations, capacity);
+				data = Arrays.copyOf(data, capacity);
+			}
+			sources[edgeCount] = source;
+			destinations[edgeCount] = destination;
+			data[edgeCount] = (byte) value.ordinal();
+			edgeCount++;
+		}
+
+		/**
+		 * @return number of nodes
+		 */
+		public int size() {
+			return xs.length;
+		}
+
+		/**
+		 * @return number of undirected edges
+		 */
+		public int edgeCount() {
+			return edgeCount;
+		}
+
+		/**
+		 * @param data the edge data
+		 * @return number of undirected edges with the given data
+		 */
+		public int edgeCount(D data) {
+			int count = 0;
+			for (int i = 0; i < edgeCount; i++)
+				if (this.data[i] == data.ordinal()) count++;
+			return count;
+		}
+
+		/**
+		 * @param node the node value
+		 * @return the x coordinate of the node
+		 */
+		public int x(int node) {
+			return xs[node - 1];
+		}
+
+		/**
+		 * @param node the node value
+		 * @return the y coordinate of the node
+		 */
+		public int y(int node) {
+			return ys[node - 1];
+		}
+
+		/**
+		 * @return a new undirected graph of this map, as read from
+		 *         {@link #writeGraph(Writer)}
+		 */
+		public IntCsrGraph<D> toGraph() {
+			IntCsrGraph.Builder<D> builder = new IntCsrGraph.Builder<>(type);
+			for (int node = 1; node <= size(); node++)
+				builder.addNode(node);
+			for (int i = 0; i < edgeCount; i++)
+				builder.addUndirectedEdge(sources[i] + 1, destinations[i] + 1, universe[data[i]]);
+			return builder.build();
+		}
+
+		/**
+		 * Writes the map in the {@code graph.txt} format: a line with the
+		 * node and edge counts, one line per node and one line per edge with
+		 * the data name capitalised(e.g {@code 1 2 Taxi})
+		 *
+		 * @param out the output; not null
+		 * @throws IOException if the output cannot be written
+		 */
+		public void writeGraph(Writer out) throws IOException {
+			String[] names = new String[universe.length];
+			for (D value : universe) {
+				String name = value.name().toLowerCase(Locale.ENGLISH);
+				names[value.ordinal()] = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+			}
+			out.write(size() + " " + edgeCount + "\n");
+			for (int node = 1; node <= size(); node++)
+				out.write(node + "\n");
+			for (int i = 0; i < edgeCount; i++)
+				out.write((sources[i] + 1) + " " + (destinations[i] + 1) + " " + names[data[i]]
+						+ "\n");
+		}
+
+		/**
+		 * Writes the positions in the {@code pos.txt} format: a line with the
+		 * node count and one {@code node x y} line per node
+		 *
+		 * @param out the output; not null
+		 * @throws IOException if the output cannot be written
+		 */
+		public void writePositions(Writer out) throws IOException {
+			out.write(size() + "\n");
+			for (int node = 1; node <= size(); node++)
+				out.write(node + " " + xs[node - 1] + " " + ys[node - 1] + "\n");
+		}
+
+		/**
+		 * Writes the graph and the positions to files, replacing them if they
+		 * exist
+		 *
+		 * @param graph the graph file; not null
+		 * @param positions the positions file; not null
+		 * @throws IOException if either file cannot be written
+		 */
+		public void write(Path graph, Path positions) throws IOException {
+			try (BufferedWriter out = Files.newBufferedWriter(graph, StandardCharsets.UTF_8)) {
+				writeGraph(out);
+			}
+			try (BufferedWriter out = Files.newBufferedWriter(positions,
+					StandardCharsets.UTF_8)) {
+				writePositions(out);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "CityMap{" + "nodes=" + size() + ", edges=" + edgeCount + '}';
+		}
+	}
+
+}
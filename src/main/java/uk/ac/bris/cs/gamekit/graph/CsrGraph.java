@@ -0,0 +1,348 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Base for immutable graphs with integer node values and enum edge data stored
+ * in compressed sparse row(CSR) form: the outgoing edges of every node occupy a
+ * contiguous range of edge indices.
+ * <br>
+ * Nodes are addressed by their <b>index</b>(insertion order, see
+ * {@link #indexOf(int)}) in the primitive API; the {@link Graph} methods are
+ * implemented on top of it, nodes are created once and {@link Edge} instances
+ * on demand.
+ * Subclasses only decide where the arrays live, see {@link IntCsrGraph} and
+ * {@link MappedCsrGraph}.
+ *
+ * @param <D> the type for {@link Edge} data
+ */
+public abstract class CsrGraph<D extends Enum<D>> extends AbstractGraph<Integer, D>
+		implements Graph<Integer, D> {
+
+	private volatile int[][] reverse;
+	private volatile FrozenGraph<Integer, D> frozen;
+
+	CsrGraph() {}
+
+	/**
+	 * Returns the given graph if it is already a {@link CsrGraph} of the given
+	 * data type(possibly behind {@link ImmutableGraph} or {@link FrozenGraph}),
+	 * otherwise a copy, see {@link IntCsrGraph#copyOf(Graph, Class)}
+	 *
+	 * @param graph the graph; not null
+	 * @param type the enum type of the edge data; not null
+	 * @return a CSR graph with the same nodes and edges; never null
+	 */
+	public static <D extends Enum<D>> CsrGraph<D> of(Graph<Integer, D> graph, Class<D> type) {
+		CsrGraph<D> csr = backing(graph, type);
+		return csr != null ? csr : IntCsrGraph.copyOf(graph, type);
+	}
+
+	/**
+	 * Finds the {@link CsrGraph} behind the given graph without copying
+	 * anything
+	 *
+	 * @param graph the graph; not null
+	 * @param type the enum type of the edge data; not null
+	 * @return the given graph if it is a {@link CsrGraph} of the given data
+	 *         type, the one behind it if it wraps one in {@link ImmutableGraph}
+	 *         or {@link FrozenGraph}, otherwise null
+	 */
+	public static <D extends Enum<D>> CsrGraph<D> backing(Graph<Integer, D> graph,
+			Class<D> type) {
+		Objects.requireNonNull(graph);
+		Objects.requireNonNull(type);
+		Graph<Integer, D> backing = FrozenGraph.backing(graph);
+		if (backing instanceof FrozenGraph)
+			backing = FrozenGraph.backing(((FrozenGraph<Integer, D>) backing).graph());
+		if (backing instanceof CsrGraph && ((CsrGraph<?>) backing).dataType() == type) {
+			@SuppressWarnings("unchecked")
+			CsrGraph<D> csr = (CsrGraph<D>) backing;
+			return csr;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the enum type of the edge data
+	 */
+	public abstract Class<D> dataType();
+
+	/**
+	 * @return number of stored(directed) edges
+	 */
+	public abstract int edgeCount();
+
+	/**
+	 * Finds the index of the node with the given value
+	 *
+	 * @param value the node value
+	 * @return the index in {@code [0, size())} or -1 if not in the graph
+	 */
+	public abstract int indexOf(int value);
+
+	/**
+	 * @param node the node index
+	 * @return the value of the node at the given index
+	 */
+	public abstract int valueAt(int node);
+
+	/**
+	 * @param node the node index
+	 * @return the first edge of the given node
+	 */
+	public abstract int edgeStart(int node);
+
+	/**
+	 * @param node the node index
+	 * @return one past the last edge of the given node
+	 */
+	public abstract int edgeEnd(int node);
+
+	/**
+	 * @param edge the edge, see {@link #edgeStart(int)}
+	 * @return index of the source node of the edge
+	 */
+	public abstract int source(int edge);
+
+	/**
+	 * @param edge the edge, see {@link #edgeStart(int)}
+	 * @return index of the destination node of the edge
+	 */
+	public abstract int target(int edge);
+
+	/**
+	 * @param edge the edge, see {@link #edgeStart(int)}
+	 * @return the ordinal of the data of the edge
+	 */
+	public abstract int dataOrdinal(int edge);
+
+	/**
+	 * @param edge the edge, see {@link #edgeStart(int)}
+	 * @return the data of the edge
+	 */
+	public abstract D data(int edge);
+
+	/**
+	 * @param index position in {@link #getEdges()}
+	 * @return the edge at the given position
+	 */
+	abstract int edgeAt(int index);
+
+	/**
+	 * @param node the node index
+	 * @return number of edges going out of the given node
+	 */
+	public int degree(int node) {
+		return edgeEnd(node) - edgeStart(node);
+	}
+
+	/**
+	 * @param edge the edge, see {@link #edgeStart(int)}
+	 * @return value of the destination node of the edge
+	 */
+	public int targetValue(int edge) {
+		return valueAt(target(edge));
+	}
+
+	/**
+	 * @param node the node index
+	 * @return the node at the given index, the same instance on every call
+	 */
+	abstract Node<Integer> node(int node);
+
+	/**
+	 * Primitive form of {@link #forEachEdgeFrom(Integer, EdgeVisitor)}
+	 *
+	 * @param source the value of the source node; does nothing if no such
+	 *        node exists
+	 * @param visitor the visitor, called once per edge; not null
+	 */
+	@Override
+	public void forEachEdgeFrom(int source, IntEdgeVisitor<? super D> visitor) {
+		int node = indexOf(source);
+		if (node != -1) forEachEdgeOf(node, visitor);
+	}
+
+	/**
+	 * Visits the edges going out of the node at the given index, without
+	 * looking the node up or boxing anything
+	 *
+	 * @param node the node index, in {@code [0, size())}
+	 * @param visitor the visitor, called once per edge with the value of the
+	 *        destination node; not null
+	 */
+	public void forEachEdgeOf(int node, IntEdgeVisitor<? super D> visitor) {
+		for (int edge = edgeStart(node); edge < edgeEnd(node); edge++)
+			visitor.visit(targetValue(edge), data(edge));
+	}
+
+	@Override
+	public void forEachEdgeFrom(Integer source, EdgeVisitor<? super Integer, ? super D> visitor) {
+		int node = source == null ? -1 : indexOf(source);
+		if (node == -1) return;
+		for (int edge = edgeStart(node); edge < edgeEnd(node); edge++)
+			visitor.visit(targetValue(edge), data(edge));
+	}
+
+	private Edge<Integer, D> edge(int source, int edge) {
+		return new Edge<>(node(source), node(target(edge)), data(edge));
+	}
+
+	@Override
+	public void addNode(Node<Integer> node) {
+		throw new UnsupportedOperationException(
+				"Adding node is not supported in " + getClass().getSimpleName());
+	}
+
+	@Override
+	public void addEdge(Edge<Integer, D> edge) {
+		throw new UnsupportedOperationException(
+				"Adding edge is not supported in " + getClass().getSimpleName());
+	}
+
+	@Override
+	public Node<Integer> getNode(Integer value) {
+		int index = value == null ? -1 : indexOf(value);
+		return index == -1 ? null : node(index);
+	}
+
+	@Override
+	public boolean containsNode(Integer value) {
+		return value != null && indexOf(value) != -1;
+	}
+
+	@Override
+	public List<Node<Integer>> getNodes() {
+		return new NodeList();
+	}
+
+	@Override
+	public Collection<Edge<Integer, D>> getEdges() {
+		return new EdgeList() {
+			@Override
+			public Edge<Integer, D> get(int index) {
+				int edge = edgeAt(index);
+				return edge(source(edge), edge);
+			}
+
+			@Override
+			public int size() {
+				return edgeCount();
+			}
+		};
+	}
+
+	@Override
+	public Collection<Edge<Integer, D>> getEdgesFrom(Node<Integer> source) {
+		int node = indexOf(source);
+		if (node == -1) return Collections.emptyList();
+		int start = edgeStart(node);
+		int end = edgeEnd(node);
+		return new EdgeList() {
+			@Override
+			public Edge<Integer, D> get(int index) {
+				if (index < 0 || index >= end - start)
+					throw new IndexOutOfBoundsException("index " + index);
+				return edge(node, start + index);
+			}
+
+			@Override
+			public int size() {
+				return end - start;
+			}
+		};
+	}
+
+	@Override
+	public Collection<Edge<Integer, D>> getEdgesTo(Node<Integer> destination) {
+		int node = indexOf(destination);
+		if (node == -1) return Collections.emptyList();
+		int[][] reverse = reverse();
+		int start = reverse[0][node];
+		int end = reverse[0][node + 1];
+		return new EdgeList() {
+			@Override
+			public Edge<Integer, D> get(int index) {
+				if (index < 0 || index >= end - start)
+					throw new IndexOutOfBoundsException("index " + index);
+				int edge = reverse[1][start + index];
+				return edge(source(edge), edge);
+			}
+
+			@Override
+			public int size() {
+				return end - start;
+			}
+		};
+	}
+
+	/**
+	 * @return the frozen view of this graph, the same instance on every call
+	 *         except for a benign race on the first ones
+	 */
+	FrozenGraph<Integer, D> frozen() {
+		FrozenGraph<Integer, D> frozen = this.frozen;
+		if (frozen == null) this.frozen = frozen = FrozenGraph.wrap(this);
+		return frozen;
+	}
+
+	private int indexOf(Node<Integer> node) {
+		return node == null ? -1 : indexOf(node.value());
+	}
+
+	// incoming edges in CSR form: {offsets, edges}, built on first use
+	private int[][] reverse() {
+		int[][] reverse = this.reverse;
+		if (reverse != null) return reverse;
+		int nodes = size();
+		int edges = edgeCount();
+		int[] inOffsets = new int[nodes + 1];
+		for (int edge = 0; edge < edges; edge++)
+			inOffsets[target(edge) + 1]++;
+		for (int i = 0; i < nodes; i++)
+			inOffsets[i + 1] += inOffsets[i];
+		int[] cursor = Arrays.copyOf(inOffsets, nodes);
+		int[] inEdges = new int[edges];
+		for (int edge = 0; edge < edges; edge++)
+			inEdges[cursor[target(edge)]++] = edge;
+		this.reverse = reverse = new int[][] { inOffsets, inEdges };
+		return reverse;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{" + "nodes=" + size() + ", edges=" + edgeCount()
+				+ '}';
+	}
+
+	private final class NodeList extends AbstractList<Node<Integer>> implements RandomAccess {
+
+		@Override
+		public Node<Integer> get(int index) {
+			if (index < 0 || index >= size())
+				throw new IndexOutOfBoundsException("index " + index);
+			return node(index);
+		}
+
+		@Override
+		public int size() {
+			return CsrGraph.this.size();
+		}
+	}
+
+	private abstract class EdgeList extends AbstractList<Edge<Integer, D>>
+			implements RandomAccess {}
+
+}
@@ -0,0 +1,181 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+import uk.ac.bris.cs.gamekit.matrix.ByteSquareMatrix;
+
+/**
+ * All-pairs shortest hop counts of a graph, one table per subset of edge data
+ * values(e.g only edges whose data is one of {@code TAXI, BUS}). Subsets are
+ * given as bit masks of enum ordinals, see {@link #mask(Collection)}.
+ * <br>
+ * Each table is a {@link ByteSquareMatrix} of unsigned hop counts, so a
+ * table for the 199 node Scotland Yard map is about 40KB. Tables are computed
+ * on first use or all at once by {@link #build(Graph, Class)}; both compute
+ * the breadth-first searches from all sources in parallel. Instances are
+ * thread safe.
+ *
+ * @param <D> the type for {@link Edge} data, an enum with at most
+ *        {@value #MAX_CONSTANTS} constants
+ */
+public final class DistanceOracle<D extends Enum<D>> {
+
+	/**
+	 * Distance returned when there is no path between two nodes
+	 */
+	public static final int UNREACHABLE = -1;
+
+	/**
+	 * Maximum number of enum constants the edge data may have
+	 */
+	public static final int MAX_CONSTANTS = 8;
+
+	private static final int NONE = 0xFF;
+
+	private final CsrGraph<D> graph;
+	private final int size;
+	private final AtomicReferenceArray<ByteSquareMatrix> tables;
+
+	private DistanceOracle(CsrGraph<D> graph) {
+		int constants = graph.dataType().getEnumConstants().length;
+		if (constants > MAX_CONSTANTS)
+			throw new IllegalArgumentException(graph.dataType() + " has more than "
+					+ MAX_CONSTANTS + " constants");
+		if ((long) graph.size() * graph.size() > Integer.MAX_VALUE)
+			throw new IllegalArgumentException(graph + " is too large for all-pairs tables");
+		this.graph = graph;
+		this.size = graph.size();
+		this.tables = new AtomicReferenceArray<>(1 << constants);
+	}
+
+	/**
+	 * Creates an oracle that computes tables when they are first used
+	 *
+	 * @param graph the graph; not null
+	 * @param type the enum type of the edge data; not null
+	 * @return the oracle; never null
+	 */
+	public static <D extends Enum<D>> DistanceOracle<D> lazy(Graph<Integer, D> graph,
+			Class<D> type) {
+		return new DistanceOracle<>(CsrGraph.of(graph, type));
+	}
+
+	/**
+	 * Creates an oracle with the tables for every subset of edge data values
+	 * computed up front
+	 *
+	 * @param graph the graph; not null
+	 * @param type the enum type of the edge data; not null
+	 * @return the oracle; never null
+	 */
+	public static <D extends Enum<D>> DistanceOracle<D> build(Graph<Integer, D> graph,
+			Class<D> type) {
+		DistanceOracle<D> oracle = lazy(graph, type);
+		IntStream.range(0, oracle.tables.length()).parallel().forEach(oracle::table);
+		return oracle;
+	}
+
+	/**
+	 * @param values the edge data values to allow; not null
+	 * @return the mask for the given values
+	 */
+	public static <D extends Enum<D>> int mask(Collection<D> values) {
+		int mask = 0;
+		for (D value : values)
+			mask |= 1 << value.ordinal();
+		return mask;
+	}
+
+	/**
+	 * @return the graph this oracle answers for
+	 */
+	public CsrGraph<D> graph() {
+		return graph;
+	}
+
+	/**
+	 * @param from the source node value
+	 * @param to the destination node value
+	 * @return the minimum number of edges between the given nodes using any
+	 *         edge, or {@link #UNREACHABLE}
+	 */
+	public int distance(int from, int to) {
+		return distance(from, to, tables.length() - 1);
+	}
+
+	/**
+	 * @param from the source node value
+	 * @param to the destination node value
+	 * @param using the edge data values to allow; not null
+	 * @return the minimum number of edges between the given nodes, or
+	 *         {@link #UNREACHABLE}
+	 */
+	public int distance(int from, int to, Collection<D> using) {
+		return distance(from, to, mask(using));
+	}
+
+	/**
+	 * @param from the source node value
+	 * @param to the destination node value
+	 * @param mask the edge data values to allow, see {@link #mask(Collection)}
+	 * @return the minimum number of edges between the given nodes, or
+	 *         {@link #UNREACHABLE}
+	 * @throws IllegalArgumentException if either node is not in the graph or
+	 *         the mask has bits of no edge data value
+	 */
+	public int distance(int from, int to, int mask) {
+		if (mask < 0 || mask >= tables.length())
+			throw new IllegalArgumentException("mask " + mask + " is not in [0, "
+					+ tables.length() + ")");
+		int source = indexOf(from);
+		int destination = indexOf(to);
+		int hops = table(mask).getByte(source, destination) & 0xFF;
+		return hops == NONE ? UNREACHABLE : hops;
+	}
+
+	private int indexOf(int value) {
+		int index = graph.indexOf(value);
+		if (index == -1)
+			throw new IllegalArgumentException(new Node<>(value) + " is not in the graph");
+		return index;
+	}
+
+	private ByteSquareMatrix table(int mask) {
+		ByteSquareMatrix table = tables.get(mask);
+		if (table != null) return table;
+		ByteSquareMatrix computed = new ByteSquareMatrix(size, (byte) NONE);
+		IntStream.range(0, size).parallel().forEach(source -> search(mask, source, computed));
+		tables.compareAndSet(mask, null, computed);
+		return tables.get(mask);
+	}
+
+	// breadth-first search from a single source, filling its row of the table
+	private void search(int mask, int source, ByteSquareMatrix table) {
+		int[] queue = new int[size];
+		int head = 0, tail = 0;
+		queue[tail++] = source;
+		table.putByte(source, source, (byte) 0);
+		while (head < tail) {
+			int node = queue[head++];
+			int next = (table.getByte(source, node) & 0xFF) + 1;
+			for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+				if ((mask >>> graph.dataOrdinal(edge) & 1) == 0) continue;
+				int target = graph.target(edge);
+				if ((table.getByte(source, target) & 0xFF) != NONE) continue;
+				if (next >= NONE)
+					throw new IllegalStateException("Distance from " + new Node<>(graph.valueAt(source))
+							+ " exceeds " + (NONE - 1) + " edges");
+				table.putByte(source, target, (byte) next);
+				queue[tail++] = target;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "DistanceOracle{" + graph + '}';
+	}
+
+}
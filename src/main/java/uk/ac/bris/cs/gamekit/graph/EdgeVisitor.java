@@ -0,0 +1,20 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+/**
+ * Callback for {@link Graph#forEachEdgeFrom(Object, EdgeVisitor)}
+ *
+ * @param <V> the type for {@link Node} values
+ * @param <D> the type for {@link Edge} data
+ */
+@FunctionalInterface
+public interface EdgeVisitor<V, D> {
+
+	/**
+	 * Called once for every edge visited
+	 *
+	 * @param destination the value of the destination node of the edge
+	 * @param data the edge data
+	 */
+	void visit(V destination, D data);
+
+}
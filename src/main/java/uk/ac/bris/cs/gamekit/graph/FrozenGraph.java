@@ -0,0 +1,170 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A graph that is guaranteed never to change: it is backed by a private copy
+ * or by a graph that is immutable by construction({@link CsrGraph}).
+ * <br>
+ * Freezing a frozen graph(directly or through {@link ImmutableGraph}) returns
+ * the same instance, the content hash is computed once and two frozen graphs
+ * with the same backing graph are equal without comparing their content.
+ * Freezing a {@link CsrGraph} copies nothing, and freezing an
+ * {@link UndirectedGraph} again without changing it in between returns the
+ * same frozen copy, so freezing one map for many games costs one copy at
+ * most.
+ *
+ * @param <V> the type for {@link Node} values
+ * @param <D> the type for {@link Edge} data
+ */
+public final class FrozenGraph<V, D> extends AbstractGraph<V, D>
+		implements
+		Graph<V, D>,
+		Serializable {
+
+	private static final long serialVersionUID = -3186204623513712395L;
+	private final Graph<V, D> graph;
+	private transient int hash;
+
+	private FrozenGraph(Graph<V, D> graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Freezes the given graph
+	 *
+	 * @param graph the graph; not null
+	 * @return the given graph if it is already frozen, otherwise a frozen
+	 *         view of a {@link CsrGraph} or a frozen copy of any other graph;
+	 *         never null
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static <V, D> FrozenGraph<V, D> of(Graph<V, D> graph) {
+		Objects.requireNonNull(graph);
+		Graph<V, D> backing = backing(graph);
+		if (backing instanceof FrozenGraph) return (FrozenGraph<V, D>) backing;
+		if (backing instanceof CsrGraph) return (FrozenGraph<V, D>) ((CsrGraph) backing).frozen();
+		if (backing instanceof UndirectedGraph) return ((UndirectedGraph<V, D>) backing).frozen();
+		return new FrozenGraph<>(new UndirectedGraph<>(backing));
+	}
+
+	/**
+	 * @param graph a graph that is never modified; not null
+	 * @return a new frozen graph backed by the given graph
+	 */
+	static <V, D> FrozenGraph<V, D> wrap(Graph<V, D> graph) {
+		return new FrozenGraph<>(graph);
+	}
+
+	// the innermost graph behind immutable wrappers, stopping at frozen ones
+	static <V, D> Graph<V, D> backing(Graph<V, D> graph) {
+		while (graph instanceof ImmutableGraph)
+			graph = ((ImmutableGraph<V, D>) graph).delegate();
+		return graph;
+	}
+
+	// a graph that cannot be serialized, e.g a MappedCsrGraph, is written as a heap copy
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Object writeReplace() {
+		if (graph instanceof Serializable) return this;
+		CsrGraph csr = (CsrGraph) graph;
+		return new FrozenGraph<>(IntCsrGraph.copyOf(csr, csr.dataType()));
+	}
+
+	/**
+	 * @return the graph backing this frozen graph, which is never modified
+	 */
+	Graph<V, D> graph() {
+		return graph;
+	}
+
+	@Override
+	public void addNode(Node<V> node) {
+		throw new UnsupportedOperationException(
+				"Adding node is not supported in a FrozenGraph");
+	}
+
+	@Override
+	public void addEdge(Edge<V, D> edge) {
+		throw new UnsupportedOperationException(
+				"Adding edge is not supported in a FrozenGraph");
+	}
+
+	@Override
+	public Node<V> getNode(V value) {
+		return graph.getNode(value);
+	}
+
+	@Override
+	public boolean containsNode(V value) {
+		return graph.containsNode(value);
+	}
+
+	@Override
+	public List<Node<V>> getNodes() {
+		return graph.getNodes();
+	}
+
+	@Override
+	public Collection<Edge<V, D>> getEdges() {
+		return graph.getEdges();
+	}
+
+	@Override
+	public Collection<Edge<V, D>> getEdgesFrom(Node<V> source) {
+		return graph.getEdgesFrom(source);
+	}
+
+	@Override
+	public Collection<Edge<V, D>> getEdgesTo(Node<V> destination) {
+		return graph.getEdgesTo(destination);
+	}
+
+	@Override
+	public void forEachEdgeFrom(V source, EdgeVisitor<? super V, ? super D> visitor) {
+		graph.forEachEdgeFrom(source, visitor);
+	}
+
+	@Override
+	public void forEachEdgeFrom(int source, IntEdgeVisitor<? super D> visitor) {
+		graph.forEachEdgeFrom(source, visitor);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return graph.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return graph.size();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o instanceof FrozenGraph) {
+			FrozenGraph<?, ?> that = (FrozenGraph<?, ?>) o;
+			if (graph == that.graph) return true;
+			if (hashCode() != that.hashCode()) return false;
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		// same value as any other graph with this content, computed once
+		int hash = this.hash;
+		if (hash == 0) this.hash = hash = super.hashCode();
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return "FrozenGraph{" + graph + '}';
+	}
+
+}
@@ -72,6 +72,41 @@ public interface Graph<V, D> {
 	 */
 	Collection<Edge<V, D>> getEdgesTo(Node<V> destination);
 
+	/**
+	 * Visits all edges coming from the node with the given value without
+	 * creating intermediate collections; implementations should not allocate
+	 * per edge visited. Defaults to iterating {@link #getEdgesFrom(Node)}
+	 *
+	 * @param source the value of the source node; does nothing if no such
+	 *        node exists
+	 * @param visitor the visitor, called once per edge in no particular
+	 *        order; not null
+	 */
+	default void forEachEdgeFrom(V source, EdgeVisitor<? super V, ? super D> visitor) {
+		Node<V> node = getNode(source);
+		if (node == null) return;
+		for (Edge<V, D> edge : getEdgesFrom(node))
+			visitor.visit(edge.destination().value(), edge.data());
+	}
+
+	/**
+	 * Primitive form of {@link #forEachEdgeFrom(Object, EdgeVisitor)} for
+	 * graphs with {@link Integer} node values, destinations are handed over
+	 * unboxed. Defaults to {@link #forEachEdgeFrom(Object, EdgeVisitor)}
+	 *
+	 * @param source the value of the source node; does nothing if no such
+	 *        node exists
+	 * @param visitor the visitor, called once per edge in no particular
+	 *        order; not null
+	 * @throws ClassCastException if a visited node value is not an
+	 *         {@link Integer}
+	 */
+	@SuppressWarnings("unchecked")
+	default void forEachEdgeFrom(int source, IntEdgeVisitor<? super D> visitor) {
+		forEachEdgeFrom((V) Integer.valueOf(source),
+				(destination, data) -> visitor.visit((Integer) destination, data));
+	}
+
 	/**
 	 * Tests whether this graph has any nodes
 	 * 
@@ -24,6 +24,13 @@ public final class ImmutableGraph<V, D> extends AbstractGraph<V, D>
 		this.graph = Objects.requireNonNull(graph);
 	}
 
+	/**
+	 * @return the wrapped graph
+	 */
+	Graph<V, D> delegate() {
+		return graph;
+	}
+
 	@Override
 	public void addNode(Node<V> node) {
 		throw new UnsupportedOperationException(
@@ -66,6 +73,16 @@ public final class ImmutableGraph<V, D> extends AbstractGraph<V, D>
 		return graph.getEdgesTo(destination);
 	}
 
+	@Override
+	public void forEachEdgeFrom(V source, EdgeVisitor<? super V, ? super D> visitor) {
+		graph.forEachEdgeFrom(source, visitor);
+	}
+
+	@Override
+	public void forEachEdgeFrom(int source, IntEdgeVisitor<? super D> visitor) {
+		graph.forEachEdgeFrom(source, visitor);
+	}
+
 	@Override
 	public boolean isEmpty() {
 		return graph.isEmpty();
@@ -0,0 +1,400 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@link CsrGraph} held in flat {@code int[]}/{@code byte[]} arrays on the
+ * heap.
+ * <br>
+ * Each stored edge is directed, an undirected connection is stored as two
+ * edges, see {@link Builder#addUndirectedEdge(int, int, Enum)}
+ *
+ * @param <D> the type for {@link Edge} data, an enum with at most 127
+ *        constants
+ */
+public final class IntCsrGraph<D extends Enum<D>> extends CsrGraph<D>
+		implements Serializable {
+
+	private static final long serialVersionUID = 2794521780563617433L;
+
+	private final Class<D> type;
+	private final D[] universe;
+	private final int[] values;
+	private final int[] offsets;
+	private final int[] sources;
+	private final int[] targets;
+	private final byte[] data;
+	private final int[] order;
+	private final List<Node<Integer>> nodes;
+	private final ValueIndex index;
+
+	private IntCsrGraph(Class<D> type, int[] values, ValueIndex index, int[] offsets,
+			int[] sources, int[] targets, byte[] data, int[] order) {
+		this.type = type;
+		this.universe = type.getEnumConstants();
+		this.values = values;
+		this.index = index;
+		this.offsets = offsets;
+		this.sources = sources;
+		this.targets = targets;
+		this.data = data;
+		this.order = order;
+		List<Node<Integer>> nodes = new ArrayList<>(values.length);
+		for (int value : values)
+			nodes.add(new Node<>(value));
+		this.nodes = Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * Creates a CSR copy of the given graph, nodes keep the order of
+	 * {@link Graph#getNodes()} and edges are copied as they are(i.e an
+	 * undirected graph that lists both directions in
+	 * {@link Graph#getEdges()} stays undirected)
+	 *
+	 * @param graph the graph to copy; not null
+	 * @param type the enum type of the edge data; not null
+	 * @return the given graph if it is already an {@link IntCsrGraph},
+	 *         otherwise a new copy; never null
+	 */
+	public static <D extends Enum<D>> IntCsrGraph<D> copyOf(Graph<Integer, D> graph,
+			Class<D> type) {
+		Objects.requireNonNull(graph);
+		Objects.requireNonNull(type);
+		if (graph instanceof IntCsrGraph && ((IntCsrGraph<?>) graph).type == type) {
+			@SuppressWarnings("unchecked")
+			IntCsrGraph<D> csr = (IntCsrGraph<D>) graph;
+			return csr;
+		}
+		Builder<D> builder = new Builder<>(type);
+		for (Node<Integer> node : graph.getNodes())
+			builder.addNode(node.value());
+		for (Edge<Integer, D> edge : graph.getEdges())
+			builder.addEdge(edge.source().value(), edge.destination().value(), edge.data());
+		return builder.build();
+	}
+
+	/**
+	 * Creates a graph directly from primitive arrays, the result is the same
+	 * as adding the nodes and then the edges to a {@link Builder} in array
+	 * order
+	 *
+	 * @param type the enum type of the edge data; not null
+	 * @param values the node values in insertion order; not null
+	 * @param sources the source node value of every edge; not null
+	 * @param destinations the destination node value of every edge; not
+	 *        null, same length as sources
+	 * @param data the data ordinal of every edge; not null, same length as
+	 *        sources
+	 * @param undirected whether every edge is followed by the same edge with
+	 *        source and destination swapped, see
+	 *        {@link Builder#addUndirectedEdge(int, int, Enum)}
+	 * @return a new graph; never null
+	 * @throws IllegalArgumentException if a node value is repeated, an edge
+	 *         endpoint is not a node or an ordinal is out of range
+	 */
+	public static <D extends Enum<D>> IntCsrGraph<D> fromArrays(Class<D> type, int[] values,
+			int[] sources, int[] destinations, byte[] data, boolean undirected) {
+		Objects.requireNonNull(type);
+		if (sources.length != destinations.length || sources.length != data.length)
+			throw new IllegalArgumentException("Edge arrays differ in length");
+		int constants = type.getEnumConstants().length;
+		if (constants > Byte.MAX_VALUE)
+			throw new IllegalArgumentException(type + " has too many constants");
+		for (byte ordinal : data)
+			if (ordinal < 0 || ordinal >= constants)
+				throw new IllegalArgumentException("Ordinal " + ordinal + " is not in " + type);
+		int[] copy = values.clone();
+		return assemble(type, copy, new ValueIndex(copy), sources, destinations, data,
+				sources.length, undirected);
+	}
+
+	// counting sort of the edges by source, remembering where each edge went
+	private static <D extends Enum<D>> IntCsrGraph<D> assemble(Class<D> type, int[] values,
+			ValueIndex index, int[] sources, int[] destinations, byte[] data, int count,
+			boolean undirected) {
+		int nodeCount = values.length;
+		int[] edgeSources = new int[count];
+		int[] edgeDestinations = new int[count];
+		int[] offsets = new int[nodeCount + 1];
+		for (int i = 0; i < count; i++) {
+			int source = index.indexOf(sources[i]);
+			if (source == -1) throw new IllegalArgumentException(
+					"source of edge(" + new Node<>(sources[i]) + ") is not in the graph");
+			int destination = index.indexOf(destinations[i]);
+			if (destination == -1) throw new IllegalArgumentException(
+					"destination of edge(" + new Node<>(destinations[i])
+							+ ") is not in the graph");
+			edgeSources[i] = source;
+			edgeDestinations[i] = destination;
+			offsets[source + 1]++;
+			if (undirected) offsets[destination + 1]++;
+		}
+		for (int i = 0; i < nodeCount; i++)
+			offsets[i + 1] += offsets[i];
+
+		int edgeCount = undirected ? 2 * count : count;
+		int[] cursor = Arrays.copyOf(offsets, nodeCount);
+		int[] targets = new int[edgeCount];
+		int[] rows = new int[edgeCount];
+		byte[] sorted = new byte[edgeCount];
+		int[] order = new int[edgeCount];
+		int next = 0;
+		for (int i = 0; i < count; i++) {
+			int slot = cursor[edgeSources[i]]++;
+			rows[slot] = edgeSources[i];
+			targets[slot] = edgeDestinations[i];
+			sorted[slot] = data[i];
+			order[next++] = slot;
+			if (!undirected) continue;
+			slot = cursor[edgeDestinations[i]]++;
+			rows[slot] = edgeDestinations[i];
+			targets[slot] = edgeSources[i];
+			sorted[slot] = data[i];
+			order[next++] = slot;
+		}
+		return new IntCsrGraph<>(type, values, index, offsets, rows, targets, sorted, order);
+	}
+
+	@Override
+	public Class<D> dataType() {
+		return type;
+	}
+
+	@Override
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	@Override
+	public int indexOf(int value) {
+		return index.indexOf(value);
+	}
+
+	@Override
+	public int valueAt(int node) {
+		return values[node];
+	}
+
+	@Override
+	public int edgeStart(int node) {
+		return offsets[node];
+	}
+
+	@Override
+	public int edgeEnd(int node) {
+		return offsets[node + 1];
+	}
+
+	@Override
+	public int source(int edge) {
+		return sources[edge];
+	}
+
+	@Override
+	public int target(int edge) {
+		return targets[edge];
+	}
+
+	@Override
+	public int targetValue(int edge) {
+		return values[targets[edge]];
+	}
+
+	@Override
+	public int dataOrdinal(int edge) {
+		return data[edge];
+	}
+
+	@Override
+	public D data(int edge) {
+		return universe[data[edge]];
+	}
+
+	@Override
+	int edgeAt(int index) {
+		return order[index];
+	}
+
+	@Override
+	Node<Integer> node(int node) {
+		return nodes.get(node);
+	}
+
+	@Override
+	public void forEachEdgeOf(int node, IntEdgeVisitor<? super D> visitor) {
+		for (int edge = offsets[node]; edge < offsets[node + 1]; edge++)
+			visitor.visit(values[targets[edge]], universe[data[edge]]);
+	}
+
+	@Override
+	public List<Node<Integer>> getNodes() {
+		return nodes;
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	// value -> index lookup, dense when the values are compact
+	private static final class ValueIndex implements Serializable {
+
+		private static final long serialVersionUID = -1835460964937427760L;
+		private final int base;
+		private final int[] lookup;
+		private final int[] sortedValues;
+		private final int[] sortedIndices;
+
+		ValueIndex(int[] values) {
+			int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+			for (int value : values) {
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			long range = (long) max - min + 1;
+			if (values.length == 0 || range <= 4L * values.length + 64) {
+				this.base = values.length == 0 ? 0 : min;
+				this.lookup = new int[values.length == 0 ? 0 : (int) range];
+				Arrays.fill(lookup, -1);
+				for (int i = 0; i < values.length; i++) {
+					if (lookup[values[i] - base] != -1) throw duplicate(values[i]);
+					lookup[values[i] - base] = i;
+				}
+				this.sortedValues = null;
+				this.sortedIndices = null;
+			} else {
+				this.base = 0;
+				this.lookup = null;
+				// value in the high half, index in the low half
+				long[] keys = new long[values.length];
+				for (int i = 0; i < values.length; i++)
+					keys[i] = (long) values[i] << 32 | i;
+				Arrays.sort(keys);
+				this.sortedValues = new int[values.length];
+				this.sortedIndices = new int[values.length];
+				for (int i = 0; i < keys.length; i++) {
+					sortedValues[i] = (int) (keys[i] >> 32);
+					sortedIndices[i] = (int) keys[i];
+					if (i > 0 && sortedValues[i] == sortedValues[i - 1])
+						throw duplicate(sortedValues[i]);
+				}
+			}
+		}
+
+		private static IllegalArgumentException duplicate(int value) {
+			return new IllegalArgumentException(new Node<>(value) + " is already in the graph");
+		}
+
+		int indexOf(int value) {
+			if (lookup != null) {
+				int i = value - base;
+				return i < 0 || i >= lookup.length ? -1 : lookup[i];
+			}
+			int i = Arrays.binarySearch(sortedValues, value);
+			return i < 0 ? -1 : sortedIndices[i];
+		}
+	}
+
+	/**
+	 * Builder for {@link IntCsrGraph}, nodes and edges may be added in any
+	 * order as long as all edge endpoints exist when {@link #build()} is
+	 * called
+	 *
+	 * @param <D> the type for {@link Edge} data
+	 */
+	public static final class Builder<D extends Enum<D>> {
+
+		private final Class<D> type;
+		private final Map<Integer, Integer> indices = new HashMap<>();
+		private int[] nodes = new int[16];
+		private int nodeCount;
+		private int[] sources = new int[16];
+		private int[] destinations = new int[16];
+		private byte[] data = new byte[16];
+		private int edgeCount;
+
+		/**
+		 * @param type the enum type of the edge data; not null
+		 */
+		public Builder(Class<D> type) {
+			this.type = Objects.requireNonNull(type);
+			if (type.getEnumConstants().length > Byte.MAX_VALUE)
+				throw new IllegalArgumentException(type + " has too many constants");
+		}
+
+		/**
+		 * Adds a node, it is an error to add the same node more than once
+		 *
+		 * @param value the node value
+		 * @return this builder
+		 */
+		public Builder<D> addNode(int value) {
+			if (indices.putIfAbsent(value, nodeCount) != null)
+				throw new IllegalArgumentException(new Node<>(value) + " is already in the graph");
+			if (nodeCount == nodes.length) nodes = Arrays.copyOf(nodes, nodeCount * 2);
+			nodes[nodeCount++] = value;
+			return this;
+		}
+
+		/**
+		 * Checks whether a node with the given value has been added
+		 */
+		public boolean containsNode(int value) {
+			return indices.containsKey(value);
+		}
+
+		/**
+		 * Adds a directed edge
+		 *
+		 * @param source the source node value
+		 * @param destination the destination node value
+		 * @param data the edge data; not null
+		 * @return this builder
+		 */
+		public Builder<D> addEdge(int source, int destination, D data) {
+			Objects.requireNonNull(data, "data == null");
+			if (edgeCount == sources.length) {
+				int capacity = edgeCount * 2;
+				sources = Arrays.copyOf(sources, capacity);
+				destinations = Arrays.copyOf(destinations, capacity);
+				this.data = Arrays.copyOf(this.data, capacity);
+			}
+			sources[edgeCount] = source;
+			destinations[edgeCount] = destination;
+			this.data[edgeCount] = (byte) data.ordinal();
+			edgeCount++;
+			return this;
+		}
+
+		/**
+		 * Adds an undirected edge, this is equivalent to adding the given
+		 * edge followed by the same edge with source and destination swapped,
+		 * same as {@link UndirectedGraph#addEdge(Edge)}
+		 *
+		 * @param source the source node value
+		 * @param destination the destination node value
+		 * @param data the edge data; not null
+		 * @return this builder
+		 */
+		public Builder<D> addUndirectedEdge(int source, int destination, D data) {
+			return addEdge(source, destination, data).addEdge(destination, source, data);
+		}
+
+		/**
+		 * @return a new graph containing all nodes and edges added so far
+		 */
+		public IntCsrGraph<D> build() {
+			int[] values = Arrays.copyOf(nodes, nodeCount);
+			return assemble(type, values, new ValueIndex(values), sources, destinations, data,
+					edgeCount, false);
+		}
+	}
+
+}
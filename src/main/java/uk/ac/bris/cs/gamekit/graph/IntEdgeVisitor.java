@@ -0,0 +1,20 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+/**
+ * Primitive callback for {@link Graph#forEachEdgeFrom(int, IntEdgeVisitor)} and
+ * {@link CsrGraph#forEachEdgeOf(int, IntEdgeVisitor)}
+ *
+ * @param <D> the type for {@link Edge} data
+ */
+@FunctionalInterface
+public interface IntEdgeVisitor<D> {
+
+	/**
+	 * Called once for every edge visited
+	 *
+	 * @param destination the value of the destination node of the edge
+	 * @param data the edge data
+	 */
+	void visit(int destination, D data);
+
+}
@@ -0,0 +1,268 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link CsrGraph} read directly from a {@link ByteBuffer}, usually a
+ * memory-mapped file; nothing is copied onto the heap when the graph is
+ * opened apart from one {@link Node} per node. The section is read through
+ * once when it is opened to check that every offset, index and data ordinal in
+ * it is in range.
+ * <br>
+ * The section written by {@link #write(CsrGraph, ByteBuffer)} holds, as
+ * {@code int}s in the byte order of the buffer: node count, edge count,
+ * number of enum constants, node values, node indices sorted by value, edge
+ * offsets, edge sources, edge targets and the {@link #getEdges()} order,
+ * followed by one
+ * byte of data ordinal per edge padded to a multiple of four bytes.
+ *
+ * @param <D> the type for {@link Edge} data, an enum with at most 127
+ *        constants
+ */
+public final class MappedCsrGraph<D extends Enum<D>> extends CsrGraph<D> {
+
+	private static final int HEADER_INTS = 3;
+
+	private final Class<D> type;
+	private final D[] universe;
+	private final int nodeCount;
+	private final int edgeCount;
+	private final IntBuffer values;
+	private final IntBuffer sorted;
+	private final IntBuffer offsets;
+	private final IntBuffer sources;
+	private final IntBuffer targets;
+	private final IntBuffer order;
+	private final ByteBuffer data;
+	private final List<Node<Integer>> nodes;
+
+	private MappedCsrGraph(Class<D> type, ByteBuffer buffer) {
+		this.type = type;
+		this.universe = type.getEnumConstants();
+		if (buffer.remaining() < HEADER_INTS * Integer.BYTES)
+			throw new IllegalArgumentException("Graph section is truncated");
+		this.nodeCount = buffer.getInt();
+		this.edgeCount = buffer.getInt();
+		int constants = buffer.getInt();
+		if (nodeCount < 0 || edgeCount < 0)
+			throw new IllegalArgumentException("Negative node or edge count");
+		if (constants != universe.length)
+			throw new IllegalArgumentException("Graph section has " + constants
+					+ " edge data constants but " + type + " has " + universe.length);
+		if (buffer.remaining() < sizeOf(nodeCount, edgeCount) - HEADER_INTS * Integer.BYTES)
+			throw new IllegalArgumentException("Graph section is truncated");
+		this.values = slice(buffer, nodeCount * Integer.BYTES).asIntBuffer();
+		this.sorted = slice(buffer, nodeCount * Integer.BYTES).asIntBuffer();
+		this.offsets = slice(buffer, (nodeCount + 1) * Integer.BYTES).asIntBuffer();
+		this.sources = slice(buffer, edgeCount * Integer.BYTES).asIntBuffer();
+		this.targets = slice(buffer, edgeCount * Integer.BYTES).asIntBuffer();
+		this.order = slice(buffer, edgeCount * Integer.BYTES).asIntBuffer();
+		this.data = slice(buffer, padded(edgeCount));
+		validate();
+		List<Node<Integer>> nodes = new ArrayList<>(nodeCount);
+		for (int i = 0; i < nodeCount; i++)
+			nodes.add(new Node<>(values.get(i)));
+		this.nodes = Collections.unmodifiableList(nodes);
+	}
+
+	// checks every index once, so that a malformed section fails here rather
+	// than with an IndexOutOfBoundsException or a wrong answer later
+	private void validate() {
+		if (offsets.get(0) != 0 || offsets.get(nodeCount) != edgeCount)
+			throw new IllegalArgumentException("Graph section has inconsistent edge offsets");
+		for (int node = 0; node < nodeCount; node++) {
+			int start = offsets.get(node), end = offsets.get(node + 1);
+			if (end < start || end > edgeCount)
+				throw new IllegalArgumentException("Edge offsets of node " + node
+						+ " are not monotonic");
+			for (int edge = start; edge < end; edge++)
+				if (sources.get(edge) != node)
+					throw new IllegalArgumentException("Edge " + edge + " is not from node " + node);
+		}
+		for (int i = 0; i < nodeCount; i++) {
+			int index = sorted.get(i);
+			if (index < 0 || index >= nodeCount)
+				throw new IllegalArgumentException("Sorted node index " + index + " is out of range");
+			if (i > 0 && values.get(sorted.get(i - 1)) >= values.get(index))
+				throw new IllegalArgumentException("Node values are not sorted and distinct");
+		}
+		for (int edge = 0; edge < edgeCount; edge++) {
+			int target = targets.get(edge), index = order.get(edge), ordinal = data.get(edge);
+			if (target < 0 || target >= nodeCount)
+				throw new IllegalArgumentException("Target " + target + " of edge " + edge
+						+ " is out of range");
+			if (index < 0 || index >= edgeCount)
+				throw new IllegalArgumentException("Edge index " + index + " is out of range");
+			if (ordinal < 0 || ordinal >= universe.length)
+				throw new IllegalArgumentException("Data ordinal " + ordinal + " of edge " + edge
+						+ " is out of range");
+		}
+	}
+
+	/**
+	 * Opens the graph section at the position of the given buffer and
+	 * advances the position past it
+	 *
+	 * @param buffer the buffer; not null, must not be modified while the
+	 *        graph is in use
+	 * @param type the enum type of the edge data; not null
+	 * @return a graph backed by the buffer; never null
+	 * @throws IllegalArgumentException if the section is truncated, its edge
+	 *         offsets are not monotonic, a node or edge index is out of range
+	 *         or an edge data ordinal is not one of the enum constants
+	 */
+	public static <D extends Enum<D>> MappedCsrGraph<D> read(ByteBuffer buffer, Class<D> type) {
+		Objects.requireNonNull(buffer);
+		Objects.requireNonNull(type);
+		return new MappedCsrGraph<>(type, buffer);
+	}
+
+	/**
+	 * @param graph the graph; not null
+	 * @return number of bytes {@link #write(CsrGraph, ByteBuffer)} needs for
+	 *         the given graph
+	 */
+	public static int sizeOf(CsrGraph<?> graph) {
+		return sizeOf(graph.size(), graph.edgeCount());
+	}
+
+	/**
+	 * Writes the graph section for the given graph at the position of the
+	 * given buffer and advances the position past it
+	 *
+	 * @param graph the graph; not null
+	 * @param buffer the buffer; not null, with at least
+	 *        {@link #sizeOf(CsrGraph)} bytes remaining
+	 */
+	public static void write(CsrGraph<?> graph, ByteBuffer buffer) {
+		int nodes = graph.size();
+		int edges = graph.edgeCount();
+		buffer.putInt(nodes).putInt(edges).putInt(graph.dataType().getEnumConstants().length);
+		for (int i = 0; i < nodes; i++)
+			buffer.putInt(graph.valueAt(i));
+		Integer[] byValue = new Integer[nodes];
+		for (int i = 0; i < nodes; i++)
+			byValue[i] = i;
+		Arrays.sort(byValue, (l, r) -> Integer.compare(graph.valueAt(l), graph.valueAt(r)));
+		for (Integer index : byValue)
+			buffer.putInt(index);
+		for (int i = 0; i < nodes; i++)
+			buffer.putInt(graph.edgeStart(i));
+		buffer.putInt(edges);
+		for (int edge = 0; edge < edges; edge++)
+			buffer.putInt(graph.source(edge));
+		for (int edge = 0; edge < edges; edge++)
+			buffer.putInt(graph.target(edge));
+		for (int i = 0; i < edges; i++)
+			buffer.putInt(graph.edgeAt(i));
+		for (int edge = 0; edge < edges; edge++)
+			buffer.put((byte) graph.dataOrdinal(edge));
+		for (int i = edges; i < padded(edges); i++)
+			buffer.put((byte) 0);
+	}
+
+	private static int sizeOf(int nodes, int edges) {
+		long size = (HEADER_INTS + 3L * nodes + 1 + 3L * edges) * Integer.BYTES + padded(edges);
+		if (size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Graph is too large for a single buffer");
+		return (int) size;
+	}
+
+	private static int padded(int bytes) {
+		return (bytes + 3) & ~3;
+	}
+
+	// a view of the next n bytes of the buffer, advancing its position
+	private static ByteBuffer slice(ByteBuffer buffer, int bytes) {
+		ByteBuffer slice = buffer.slice().order(buffer.order());
+		slice.limit(bytes);
+		buffer.position(buffer.position() + bytes);
+		return slice;
+	}
+
+	@Override
+	public Class<D> dataType() {
+		return type;
+	}
+
+	@Override
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	@Override
+	public int indexOf(int value) {
+		int low = 0, high = nodeCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int index = sorted.get(mid);
+			int current = values.get(index);
+			if (current < value) low = mid + 1;
+			else if (current > value) high = mid - 1;
+			else return index;
+		}
+		return -1;
+	}
+
+	@Override
+	public int valueAt(int node) {
+		return values.get(node);
+	}
+
+	@Override
+	public int edgeStart(int node) {
+		return offsets.get(node);
+	}
+
+	@Override
+	public int edgeEnd(int node) {
+		return offsets.get(node + 1);
+	}
+
+	@Override
+	public int source(int edge) {
+		return sources.get(edge);
+	}
+
+	@Override
+	public int target(int edge) {
+		return targets.get(edge);
+	}
+
+	@Override
+	public int dataOrdinal(int edge) {
+		return data.get(edge);
+	}
+
+	@Override
+	public D data(int edge) {
+		return universe[data.get(edge)];
+	}
+
+	@Override
+	int edgeAt(int index) {
+		return order.get(index);
+	}
+
+	@Override
+	Node<Integer> node(int node) {
+		return nodes.get(node);
+	}
+
+	@Override
+	public List<Node<Integer>> getNodes() {
+		return nodes;
+	}
+
+	@Override
+	public int size() {
+		return nodeCount;
+	}
+
+}
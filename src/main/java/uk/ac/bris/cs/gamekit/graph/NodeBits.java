@@ -0,0 +1,93 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+/**
+ * A collection of utility methods for sets of non-negative integer node values
+ * stored as {@code long[]} bitsets, bit {@code v % 64} of word {@code v / 64}
+ * is set when node {@code v} is in the set. Values outside of the bitset are
+ * treated as absent.
+ */
+public final class NodeBits {
+
+	private NodeBits() {
+		// nope
+	}
+
+	/**
+	 * @param maxValue the largest node value the set should hold
+	 * @return number of words needed for values in {@code [0, maxValue]}
+	 */
+	public static int words(int maxValue) {
+		if (maxValue < 0) throw new IllegalArgumentException("maxValue " + maxValue + " < 0");
+		return (maxValue >>> 6) + 1;
+	}
+
+	/**
+	 * @param maxValue the largest node value the set should hold
+	 * @return an empty set for values in {@code [0, maxValue]}
+	 */
+	public static long[] create(int maxValue) {
+		return new long[words(maxValue)];
+	}
+
+	/**
+	 * Checks whether the set contains the given value
+	 */
+	public static boolean contains(long[] bits, int value) {
+		int word = value >> 6;
+		return value >= 0 && word < bits.length && (bits[word] & (1L << value)) != 0;
+	}
+
+	/**
+	 * Adds the given value to the set
+	 *
+	 * @throws IndexOutOfBoundsException if the value does not fit the set
+	 */
+	public static void add(long[] bits, int value) {
+		bits[value >> 6] |= 1L << value;
+	}
+
+	/**
+	 * Removes the given value from the set, does nothing if the value does
+	 * not fit the set
+	 */
+	public static void remove(long[] bits, int value) {
+		int word = value >> 6;
+		if (value >= 0 && word < bits.length) bits[word] &= ~(1L << value);
+	}
+
+	/**
+	 * @return the smallest value in the set that is {@code >= from} or -1 if
+	 *         there is none
+	 */
+	public static int next(long[] bits, int from) {
+		if (from < 0) from = 0;
+		int word = from >> 6;
+		if (word >= bits.length) return -1;
+		long current = bits[word] & (-1L << from);
+		while (current == 0) {
+			if (++word == bits.length) return -1;
+			current = bits[word];
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(current);
+	}
+
+	/**
+	 * @return number of values in the set
+	 */
+	public static int count(long[] bits) {
+		int count = 0;
+		for (long word : bits)
+			count += Long.bitCount(word);
+		return count;
+	}
+
+	/**
+	 * @return true if the set has no values
+	 */
+	public static boolean isEmpty(long[] bits) {
+		for (long word : bits)
+			if (word != 0) return false;
+		return true;
+	}
+
+}
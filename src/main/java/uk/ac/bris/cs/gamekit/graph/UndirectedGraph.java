@@ -1,16 +1,30 @@
 package uk.ac.bris.cs.gamekit.graph;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * An undirected graph implementation
+ * <br>
+ * Every added edge is kept together with its reversed direction, made by
+ * {@link Edge#swap()} when the edge is added, so there are still two
+ * {@link Edge} instances per undirected edge; reading hands out these
+ * instances and allocates nothing. The directions are listed in int arrays of
+ * half-edges(stored edge index and a reversed flag), globally and per node,
+ * rather than in three collections of edges. The read-only views handed out
+ * by the getters are created as nodes are added, so reading never writes to
+ * the graph.
  *
  * @param <V> the type for {@link Node} values
  * @param <D> the type for {@link Edge} data
@@ -18,32 +32,87 @@ import java.util.Map;
 public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements Graph<V, D> , Serializable{
 
 	private static final long serialVersionUID = 6932837778781276092L;
-	private final Map<V, Node<V>> valueNodeMap = new LinkedHashMap<>();
-	private final Map<Node<V>, List<Edge<V, D>>> sourceEdges = new HashMap<>();
-	private final Map<Node<V>, List<Edge<V, D>>> destinationEdges = new HashMap<>();
-	private final List<Edge<V, D>> edges = new ArrayList<>();
+	private static final int[] NO_EDGES = new int[0];
+	private final Map<V, Integer> indices = new HashMap<>();
+	private final List<Node<V>> nodes = new ArrayList<>();
+	private final List<Node<V>> nodesView = Collections.unmodifiableList(nodes);
+	// both directions of every stored edge, indexed by half-edge; null for a
+	// direction that is not in the graph
+	private final List<Edge<V, D>> halves = new ArrayList<>();
+	// half-edges, (stored index << 1 | reversed), in insertion order and per node
+	private int[] order = NO_EDGES;
+	private int orderSize;
+	private int[][] incident = new int[0][];
+	private int[] degrees = NO_EDGES;
+	private transient int modifications; // nodes and edges added, see frozen()
+	private transient volatile FrozenGraph<V, D> frozen;
+	private transient int frozenAt; // modifications when frozen was copied
+	// read-only views handed out by the getters, see initViews
+	private transient List<Edge<V, D>> edgesView;
+	private transient List<List<Edge<V, D>>> incidentViews;
 
 	/**
 	 * Creates a new undirected graph
 	 */
-	public UndirectedGraph() {}
+	public UndirectedGraph() {
+		initViews();
+	}
 
 	/**
 	 * Copy constructor
 	 */
 	public UndirectedGraph(Graph<V, D> other) {
+		initViews();
 		other.getNodes().forEach(this::addNode);
-		other.getEdges().forEach(e -> appendEdge(getNode(e.source().value()), e));
+		// an edge directly followed by its swap is one undirected edge
+		Edge<V, D> pending = null;
+		for (Edge<V, D> edge : other.getEdges()) {
+			if (pending != null && isSwapOf(edge, pending)) {
+				storeEdge(pending, true);
+				pending = null;
+			} else {
+				if (pending != null) storeEdge(pending, false);
+				pending = edge;
+			}
+		}
+		if (pending != null) storeEdge(pending, false);
+	}
+
+	// views of the edges and of the incident edges of every node added so far
+	private void initViews() {
+		edgesView = new HalfEdgeList(-1);
+		incidentViews = new ArrayList<>();
+		for (int i = 0; i < nodes.size(); i++)
+			incidentViews.add(new HalfEdgeList(i));
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		initViews();
+	}
+
+	private static boolean isSwapOf(Edge<?, ?> edge, Edge<?, ?> other) {
+		return Objects.equals(edge.source(), other.destination())
+				&& Objects.equals(edge.destination(), other.source())
+				&& Objects.equals(edge.data(), other.data());
 	}
 
 	@Override
 	public void addNode(Node<V> node) {
 		if (node == null) throw new NullPointerException("node == null");
-		if (valueNodeMap.containsKey(node.value()))
+		if (indices.containsKey(node.value()))
 			throw new IllegalArgumentException(node + " is already in the graph");
-		valueNodeMap.put(node.value(), node);
-		sourceEdges.put(node, new ArrayList<>());
-		destinationEdges.put(node, new ArrayList<>());
+		int index = nodes.size();
+		indices.put(node.value(), index);
+		nodes.add(node);
+		if (index == incident.length) {
+			int capacity = Math.max(16, index * 2);
+			incident = Arrays.copyOf(incident, capacity);
+			degrees = Arrays.copyOf(degrees, capacity);
+		}
+		incident[index] = NO_EDGES;
+		incidentViews.add(new HalfEdgeList(index));
+		modifications++;
 	}
 
 	/**
@@ -55,50 +124,116 @@ public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements
 	@Override
 	public void addEdge(Edge<V, D> edge) {
 		if (edge == null) throw new NullPointerException("edge == null");
-		Node<V> source = getNode(edge.source().value());
-		if (source == null) throw new IllegalArgumentException(
+		if (getNode(edge.source().value()) == null) throw new IllegalArgumentException(
 				"source of edge(" + edge.source() + ") is not in the graph");
-		Node<V> destination = getNode(edge.destination().value());
-		if (destination == null) throw new IllegalArgumentException(
+		if (getNode(edge.destination().value()) == null) throw new IllegalArgumentException(
 				"destination of edge(" + edge.destination() + ") is not in the graph");
-		appendEdge(source, edge);
-		appendEdge(destination, edge.swap());
+		storeEdge(edge, true);
+	}
+
+	// stores the edge and, if both directions are wanted, its swap
+	private void storeEdge(Edge<V, D> edge, boolean bothDirections) {
+		int forward = halves.size();
+		halves.add(edge);
+		halves.add(bothDirections ? edge.swap() : null);
+		modifications++;
+		appendHalfEdge(indices.get(edge.source().value()), forward);
+		if (bothDirections)
+			appendHalfEdge(indices.get(edge.destination().value()), forward | 1);
 	}
 
-	private void appendEdge(Node<V> node, Edge<V, D> edge) {
-		sourceEdges.get(node).add(edge);
-		destinationEdges.get(node).add(edge);
-		edges.add(edge);
+	private void appendHalfEdge(int node, int half) {
+		int[] list = incident[node];
+		if (degrees[node] == list.length)
+			incident[node] = list = Arrays.copyOf(list, Math.max(4, list.length * 2));
+		list[degrees[node]++] = half;
+		if (orderSize == order.length)
+			order = Arrays.copyOf(order, Math.max(16, orderSize * 2));
+		order[orderSize++] = half;
 	}
 
 	@Override
 	public Node<V> getNode(V value) {
-		return valueNodeMap.get(value);
+		Integer index = indices.get(value);
+		return index == null ? null : nodes.get(index);
 	}
 
 	@Override
 	public boolean containsNode(V value) {
-		return valueNodeMap.containsKey(value);
+		return indices.containsKey(value);
 	}
 
 	@Override
 	public List<Node<V>> getNodes() {
-		return Collections.unmodifiableList(new ArrayList<>(valueNodeMap.values()));
+		return nodesView;
 	}
 
 	@Override
 	public Collection<Edge<V, D>> getEdges() {
-		return Collections.unmodifiableList(edges);
+		return edgesView;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <br>
+	 * Both directions of every edge touching the node are listed, the same as
+	 * {@link #getEdgesTo(Node)}.
+	 */
 	@Override
 	public Collection<Edge<V, D>> getEdgesFrom(Node<V> source) {
-		return Collections.unmodifiableList(sourceEdges.get(source));
+		return incidentEdges(source);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <br>
+	 * Both directions of every edge touching the node are listed, the same as
+	 * {@link #getEdgesFrom(Node)}.
+	 */
 	@Override
 	public Collection<Edge<V, D>> getEdgesTo(Node<V> destination) {
-		return Collections.unmodifiableList(destinationEdges.get(destination));
+		return incidentEdges(destination);
+	}
+
+	/**
+	 * @return a frozen copy of this graph, the same instance as long as this
+	 *         graph is not modified
+	 */
+	FrozenGraph<V, D> frozen() {
+		FrozenGraph<V, D> frozen = this.frozen;
+		if (frozen != null && frozenAt == modifications) return frozen;
+		frozen = FrozenGraph.wrap(new UndirectedGraph<>(this));
+		frozenAt = modifications;
+		this.frozen = frozen;
+		return frozen;
+	}
+
+	private Collection<Edge<V, D>> incidentEdges(Node<V> node) {
+		Integer index = node == null ? null : indices.get(node.value());
+		if (index == null) return Collections.emptyList();
+		return incidentViews.get(index);
+	}
+
+	@Override
+	public void forEachEdgeFrom(V source, EdgeVisitor<? super V, ? super D> visitor) {
+		Integer index = indices.get(source);
+		if (index == null) return;
+		int[] nodeHalves = incident[index];
+		for (int i = 0; i < degrees[index]; i++) {
+			Edge<V, D> edge = halves.get(nodeHalves[i]);
+			visitor.visit(edge.destination().value(), edge.data());
+		}
+	}
+
+	@Override
+	public void forEachEdgeFrom(int source, IntEdgeVisitor<? super D> visitor) {
+		Integer index = indices.get(source);
+		if (index == null) return;
+		int[] nodeHalves = incident[index];
+		for (int i = 0; i < degrees[index]; i++) {
+			Edge<V, D> edge = halves.get(nodeHalves[i]);
+			visitor.visit((Integer) edge.destination().value(), edge.data());
+		}
 	}
 
 	@Override
@@ -108,11 +243,33 @@ public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements
 
 	@Override
 	public int size() {
-		return valueNodeMap.size();
+		return nodes.size();
 	}
 
 	@Override
 	public String toString() {
-		return "UndirectedGraph{" + "nodes=" + valueNodeMap.values() + ", edges=" + edges + '}';
+		return "UndirectedGraph{" + "nodes=" + nodes + ", edges=" + getEdges() + '}';
+	}
+
+	// all edges in insertion order, or the edges of one node
+	private final class HalfEdgeList extends AbstractList<Edge<V, D>> implements RandomAccess {
+
+		private final int node; // -1 for all edges
+
+		HalfEdgeList(int node) {
+			this.node = node;
+		}
+
+		@Override
+		public Edge<V, D> get(int index) {
+			if (index < 0 || index >= size())
+				throw new IndexOutOfBoundsException("index " + index);
+			return halves.get(node == -1 ? order[index] : incident[node][index]);
+		}
+
+		@Override
+		public int size() {
+			return node == -1 ? orderSize : degrees[node];
+		}
 	}
 }
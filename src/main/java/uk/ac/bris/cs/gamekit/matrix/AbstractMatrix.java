@@ -13,12 +13,21 @@ public abstract class AbstractMatrix<T> implements Matrix<T> {
 				this.columnSize() != that.columnSize() ||
 				this.rowSize() != that.rowSize())
 			return false;
-		return Objects.equals(this.asList(), that.asList());
+		// cell by cell rather than through asList() copies
+		for (int row = 0; row < rowSize(); row++)
+			for (int column = 0; column < columnSize(); column++)
+				if (!Objects.equals(get(row, column), that.get(row, column))) return false;
+		return true;
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(asList());
+		// the same value as Objects.hash(asList())
+		int hash = 1;
+		for (int row = 0; row < rowSize(); row++)
+			for (int column = 0; column < columnSize(); column++)
+				hash = 31 * hash + Objects.hashCode(get(row, column));
+		return 31 + hash;
 	}
 
 }
@@ -0,0 +1,295 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+
+/**
+ * A square boolean matrix with every row packed into {@code long} words, for
+ * relations such as "node i can reach node j"
+ * <br>
+ * Row operations and the boolean product work on 64 cells per word. With
+ * {@link #adjacency(Graph, Collection)} as {@code A}, {@link #power(int)
+ * A.power(k)} holds the pairs joined by a walk of exactly {@code k} edges and
+ * {@link #closure(int) A.closure(k)} the pairs joined by at most {@code k}
+ * edges, for all sources at once.
+ */
+public final class BitSquareMatrix extends FlatSquareMatrix<Boolean> {
+
+	private static final long serialVersionUID = 2962813508153463720L;
+	private final int words;
+	// row r is words [r * words, (r + 1) * words), column c is bit c of it
+	private final long[] cells;
+
+	/**
+	 * Creates a new {@code size*size} square matrix with all cells false
+	 *
+	 * @param size size of the size*size grid, must be &gt; 0
+	 */
+	public BitSquareMatrix(int size) {
+		super(size);
+		this.words = (size + Long.SIZE - 1) / Long.SIZE;
+		this.cells = new long[size * words];
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param matrix the matrix to copy from
+	 */
+	public BitSquareMatrix(BitSquareMatrix matrix) {
+		super(matrix.size);
+		this.words = matrix.words;
+		this.cells = matrix.cells.clone();
+	}
+
+	/**
+	 * @param size size of the size*size grid, must be &gt; 0
+	 * @return a new matrix with only the main diagonal set
+	 */
+	public static BitSquareMatrix identity(int size) {
+		BitSquareMatrix matrix = new BitSquareMatrix(size);
+		for (int i = 0; i < size; i++)
+			matrix.cells[i * matrix.words + (i >>> 6)] |= 1L << i;
+		return matrix;
+	}
+
+	/**
+	 * Creates the adjacency matrix of a graph restricted to some edge data
+	 * values. Row and column {@code i} are the {@code i}th node of
+	 * {@link Graph#getNodes()}.
+	 *
+	 * @param graph the graph; not null and not empty
+	 * @param using the edge data values to keep; not null
+	 * @return a new matrix with cell {@code (i, j)} set if an edge with one of
+	 *         the given values goes from node {@code i} to node {@code j}
+	 */
+	public static <V, D> BitSquareMatrix adjacency(Graph<V, D> graph, Collection<D> using) {
+		List<Node<V>> nodes = graph.getNodes();
+		Map<V, Integer> indices = new HashMap<>();
+		for (int i = 0; i < nodes.size(); i++)
+			indices.put(nodes.get(i).value(), i);
+		BitSquareMatrix matrix = new BitSquareMatrix(nodes.size());
+		for (Edge<V, D> edge : graph.getEdges()) {
+			if (!using.contains(edge.data())) continue;
+			int source = indices.get(edge.source().value());
+			int destination = indices.get(edge.destination().value());
+			matrix.cells[source * matrix.words + (destination >>> 6)] |= 1L << destination;
+		}
+		return matrix;
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @return the element
+	 */
+	public boolean getBit(int row, int column) {
+		checkCell(row, column);
+		return (cells[row * words + (column >>> 6)] & 1L << column) != 0;
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @param value the element
+	 */
+	public void putBit(int row, int column, boolean value) {
+		checkCell(row, column);
+		if (value) cells[row * words + (column >>> 6)] |= 1L << column;
+		else cells[row * words + (column >>> 6)] &= ~(1L << column);
+	}
+
+	/**
+	 * Sets each cell of a row to itself OR the cell of another row
+	 *
+	 * @param row the row to change
+	 * @param other the row to OR into it
+	 */
+	public void orRow(int row, int other) {
+		orRow(row, this, other);
+	}
+
+	/**
+	 * Sets each cell of a row to itself OR the cell of a row of another matrix
+	 *
+	 * @param row the row to change
+	 * @param matrix the matrix to read from; not null and of the same size
+	 * @param other the row of the given matrix to OR into it
+	 */
+	public void orRow(int row, BitSquareMatrix matrix, int other) {
+		checkSize(matrix.size);
+		checkBound("row", row);
+		checkBound("row", other);
+		int to = row * words, from = other * words;
+		for (int w = 0; w < words; w++)
+			cells[to + w] |= matrix.cells[from + w];
+	}
+
+	/**
+	 * Sets each cell of a row to itself AND the cell of another row
+	 *
+	 * @param row the row to change
+	 * @param other the row to AND into it
+	 */
+	public void andRow(int row, int other) {
+		andRow(row, this, other);
+	}
+
+	/**
+	 * Sets each cell of a row to itself AND the cell of a row of another
+	 * matrix
+	 *
+	 * @param row the row to change
+	 * @param matrix the matrix to read from; not null and of the same size
+	 * @param other the row of the given matrix to AND into it
+	 */
+	public void andRow(int row, BitSquareMatrix matrix, int other) {
+		checkSize(matrix.size);
+		checkBound("row", row);
+		checkBound("row", other);
+		int to = row * words, from = other * words;
+		for (int w = 0; w < words; w++)
+			cells[to + w] &= matrix.cells[from + w];
+	}
+
+	/**
+	 * Sets each cell to itself OR the same cell of another matrix
+	 *
+	 * @param matrix the matrix; not null and of the same size
+	 */
+	public void or(BitSquareMatrix matrix) {
+		checkSize(matrix.size);
+		for (int i = 0; i < cells.length; i++)
+			cells[i] |= matrix.cells[i];
+	}
+
+	/**
+	 * Sets each cell to itself AND the same cell of another matrix
+	 *
+	 * @param matrix the matrix; not null and of the same size
+	 */
+	public void and(BitSquareMatrix matrix) {
+		checkSize(matrix.size);
+		for (int i = 0; i < cells.length; i++)
+			cells[i] &= matrix.cells[i];
+	}
+
+	/**
+	 * Boolean matrix product, rows are computed in parallel
+	 *
+	 * @param matrix the right hand side; not null and of the same size
+	 * @return a new matrix with cell {@code (i, j)} set if some {@code k} has
+	 *         {@code (i, k)} set in this matrix and {@code (k, j)} set in the
+	 *         given one
+	 */
+	public BitSquareMatrix multiply(BitSquareMatrix matrix) {
+		checkSize(matrix.size);
+		BitSquareMatrix product = new BitSquareMatrix(size);
+		IntStream.range(0, size).parallel().forEach(row -> {
+			int to = row * words;
+			for (int w = 0; w < words; w++) {
+				for (long word = cells[to + w]; word != 0; word &= word - 1) {
+					int from = ((w << 6) + Long.numberOfTrailingZeros(word)) * words;
+					for (int v = 0; v < words; v++)
+						product.cells[to + v] |= matrix.cells[from + v];
+				}
+			}
+		});
+		return product;
+	}
+
+	/**
+	 * Boolean matrix power by repeated squaring
+	 *
+	 * @param exponent the exponent, must be &gt;= 0
+	 * @return a new matrix; for an adjacency matrix, the pairs joined by a
+	 *         walk of exactly {@code exponent} edges
+	 */
+	public BitSquareMatrix power(int exponent) {
+		if (exponent < 0) throw new IllegalArgumentException("exponent " + exponent + " < 0");
+		BitSquareMatrix result = null;
+		BitSquareMatrix square = this;
+		for (int e = exponent; e != 0; e >>>= 1) {
+			if ((e & 1) != 0) result = result == null ? new BitSquareMatrix(square)
+					: result.multiply(square);
+			if (e > 1) square = square.multiply(square);
+		}
+		return result == null ? identity(size) : result;
+	}
+
+	/**
+	 * Boolean power of this matrix with the main diagonal set
+	 *
+	 * @param steps the number of steps, must be &gt;= 0
+	 * @return a new matrix; for an adjacency matrix, the pairs joined by a
+	 *         walk of at most {@code steps} edges
+	 */
+	public BitSquareMatrix closure(int steps) {
+		if (steps < 0) throw new IllegalArgumentException("steps " + steps + " < 0");
+		BitSquareMatrix reflexive = new BitSquareMatrix(this);
+		reflexive.or(identity(size));
+		return reflexive.power(steps);
+	}
+
+	/**
+	 * @param row the row
+	 * @return the number of set cells in the row
+	 */
+	public int cardinality(int row) {
+		checkBound("row", row);
+		int count = 0;
+		for (int w = row * words; w < (row + 1) * words; w++)
+			count += Long.bitCount(cells[w]);
+		return count;
+	}
+
+	/**
+	 * @param row the row
+	 * @return a new bit set of the set columns of the row
+	 */
+	public BitSet rowBits(int row) {
+		checkBound("row", row);
+		return BitSet.valueOf(Arrays.copyOfRange(cells, row * words, (row + 1) * words));
+	}
+
+	@Override
+	Boolean cell(int index) {
+		int row = index / size, column = index % size;
+		return (cells[row * words + (column >>> 6)] & 1L << column) != 0;
+	}
+
+	@Override
+	void cell(int index, Boolean value) {
+		putBit(index / size, index % size, value);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof BitSquareMatrix) {
+			BitSquareMatrix that = (BitSquareMatrix) o;
+			return size == that.size && Arrays.equals(cells, that.cells);
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		// the same as Objects.hash(asList()) without boxing
+		int hash = 1;
+		for (int row = 0; row < size; row++)
+			for (int column = 0; column < size; column++)
+				hash = 31 * hash + ((cells[row * words + (column >>> 6)] & 1L << column) != 0
+						? 1231 : 1237);
+		return 31 + hash;
+	}
+
+}
@@ -0,0 +1,217 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A square matrix of {@code byte} cells stored in a single row-major array,
+ * for tables that would otherwise hold {@code size * size} boxed
+ * {@link Byte}s
+ * <br>
+ * {@link #getByte(int, int)}, {@link #putByte(int, int, byte)} and the
+ * {@link View}s of rows, columns and diagonals read and write cells without
+ * boxing, the {@link Matrix} methods box them.
+ */
+public final class ByteSquareMatrix extends FlatSquareMatrix<Byte> {
+
+	private static final long serialVersionUID = -2280446862718398807L;
+	private final byte[] cells;
+
+	/**
+	 * Creates a new {@code size*size} square matrix
+	 *
+	 * @param size size of the size*size grid, must be &gt; 0
+	 * @param defaultValue initial value for all cells
+	 */
+	public ByteSquareMatrix(int size, byte defaultValue) {
+		super(size);
+		this.cells = new byte[size * size];
+		Arrays.fill(cells, defaultValue);
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param matrix the matrix to copy from
+	 */
+	public ByteSquareMatrix(ByteSquareMatrix matrix) {
+		super(matrix.size);
+		this.cells = matrix.cells.clone();
+	}
+
+	/**
+	 * Copies a square matrix of boxed values
+	 *
+	 * @param matrix the matrix to copy from; not null and without null cells
+	 * @return a new matrix with the same cells; never null
+	 */
+	public static ByteSquareMatrix copyOf(Matrix<Byte> matrix) {
+		if (matrix instanceof ByteSquareMatrix) return new ByteSquareMatrix((ByteSquareMatrix) matrix);
+		if (matrix.rowSize() != matrix.columnSize())
+			throw new IllegalArgumentException("Matrix " + matrix.rowSize() + "x"
+					+ matrix.columnSize() + " is not square");
+		ByteSquareMatrix copy = new ByteSquareMatrix(matrix.rowSize(), (byte) 0);
+		int index = 0;
+		for (Byte cell : matrix.asList())
+			copy.cells[index++] = Objects.requireNonNull(cell, "cell == null");
+		return copy;
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @return the element
+	 */
+	public byte getByte(int row, int column) {
+		return cells[index(row, column)];
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @param value the element
+	 */
+	public void putByte(int row, int column, byte value) {
+		cells[index(row, column)] = value;
+	}
+
+	/**
+	 * Sets every cell to the given value
+	 *
+	 * @param value the value
+	 */
+	public void fill(byte value) {
+		Arrays.fill(cells, value);
+	}
+
+	/**
+	 * Sets every cell of a row to the given value
+	 *
+	 * @param row the row
+	 * @param value the value
+	 */
+	public void fillRow(int row, byte value) {
+		checkBound("row", row);
+		Arrays.fill(cells, row * size, (row + 1) * size, value);
+	}
+
+	/**
+	 * Replaces all cells with the cells of the given matrix
+	 *
+	 * @param matrix the matrix to copy from; not null and of the same size
+	 */
+	public void copyFrom(ByteSquareMatrix matrix) {
+		checkSize(matrix.size);
+		System.arraycopy(matrix.cells, 0, cells, 0, cells.length);
+	}
+
+	/**
+	 * Replaces all cells with the given row-major values
+	 *
+	 * @param values {@code size * size} values; not null
+	 */
+	public void copyFrom(byte[] values) {
+		if (values.length != cells.length) throw new IllegalArgumentException(
+				"values.length " + values.length + " != " + cells.length);
+		System.arraycopy(values, 0, cells, 0, cells.length);
+	}
+
+	/**
+	 * @return a new array with all cells in row-major order
+	 */
+	public byte[] toArray() {
+		return cells.clone();
+	}
+
+	/**
+	 * @param row the row
+	 * @return a live view of the row; the same instance on every call
+	 */
+	public View rowView(int row) {
+		return (View) rowLine(row);
+	}
+
+	/**
+	 * @param column the column
+	 * @return a live view of the column; the same instance on every call
+	 */
+	public View columnView(int column) {
+		return (View) columnLine(column);
+	}
+
+	/**
+	 * @return a live view of the main diagonal; the same instance on every
+	 *         call
+	 */
+	public View mainDiagonalView() {
+		return (View) mainDiagonalLine();
+	}
+
+	/**
+	 * @return a live view of the antidiagonal; the same instance on every
+	 *         call
+	 */
+	public View antiDiagonalView() {
+		return (View) antiDiagonalLine();
+	}
+
+	@Override
+	View line(int start, int stride, int count) {
+		return new View(start, stride, count);
+	}
+
+	@Override
+	Byte cell(int index) {
+		return cells[index];
+	}
+
+	@Override
+	void cell(int index, Byte value) {
+		cells[index] = value;
+	}
+
+	/**
+	 * A read-only view of a row, column or diagonal that sees later writes to
+	 * the matrix, with unboxed access to its cells
+	 */
+	public final class View extends Line {
+
+		private View(int start, int stride, int count) {
+			super(start, stride, count);
+		}
+
+		/**
+		 * @param index the index of the element in the view
+		 * @return the element
+		 */
+		public byte getByte(int index) {
+			return cells[cellIndex(index)];
+		}
+
+		/**
+		 * @return a new array with the elements of the view
+		 */
+		public byte[] toByteArray() {
+			byte[] values = new byte[size()];
+			for (int i = 0; i < values.length; i++)
+				values[i] = cells[cellIndex(i)];
+			return values;
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof ByteSquareMatrix) {
+			ByteSquareMatrix that = (ByteSquareMatrix) o;
+			return size == that.size && Arrays.equals(cells, that.cells);
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		// the same as Objects.hash(asList()) without boxing
+		return 31 + Arrays.hashCode(cells);
+	}
+
+}
@@ -0,0 +1,227 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Base of the square matrices backed by a single row-major primitive array.
+ * <br>
+ * The {@link Matrix} methods box cells on access; lists returned by them are
+ * read-only views of the array that see later writes, created once per row,
+ * column or diagonal and then reused.
+ *
+ * @param <T> the boxed type of elements in the matrix
+ */
+abstract class FlatSquareMatrix<T> extends AbstractMatrix<T> implements Serializable {
+
+	private static final long serialVersionUID = -1590437322061914455L;
+	final int size;
+	private transient Object[] rowLines;
+	private transient Object[] columnLines;
+	private transient Line mainDiagonal;
+	private transient Line antiDiagonal;
+	private transient Line all;
+
+	FlatSquareMatrix(int size) {
+		if (size < 1) throw new IllegalArgumentException("Size must be > 0, got " + size);
+		if ((long) size * size > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Size " + size + " is too large");
+		this.size = size;
+	}
+
+	/**
+	 * @return the number of rows, which is also the number of columns
+	 */
+	public int size() {
+		return size;
+	}
+
+	abstract T cell(int index);
+
+	abstract void cell(int index, T value);
+
+	// index of the cell in the array, a single range check for both
+	final int index(int row, int column) {
+		checkCell(row, column);
+		return row * size + column;
+	}
+
+	final void checkCell(int row, int column) {
+		if ((row | column) < 0 || row >= size || column >= size) {
+			checkBound("row", row);
+			checkBound("column", column);
+		}
+	}
+
+	final void checkBound(String name, int value) {
+		if (value < 0) throw new IndexOutOfBoundsException(name + " " + value + " < 0");
+		if (value >= size)
+			throw new IndexOutOfBoundsException(name + " " + value + " > " + (size - 1));
+	}
+
+	final void checkSize(int size) {
+		if (this.size != size)
+			throw new IllegalArgumentException("size " + size + " != " + this.size);
+	}
+
+	@Override
+	public T get(int row, int column) {
+		return cell(index(row, column));
+	}
+
+	@Override
+	public void put(int row, int column, T cell) {
+		Objects.requireNonNull(cell, "cell == null");
+		cell(index(row, column), cell);
+	}
+
+	@Override
+	public boolean inBounds(int row, int column) {
+		return (row >= 0 && row < size) && (column >= 0 && column < size);
+	}
+
+	/**
+	 * @return a new view of cells {@code start, start + stride, ...}
+	 */
+	Line line(int start, int stride, int count) {
+		return new Line(start, stride, count);
+	}
+
+	final Line rowLine(int row) {
+		checkBound("row", row);
+		Object[] lines = rowLines;
+		if (lines == null) rowLines = lines = new Object[size];
+		if (lines[row] == null) lines[row] = line(row * size, 1, size);
+		return cast(lines[row]);
+	}
+
+	final Line columnLine(int column) {
+		checkBound("column", column);
+		Object[] lines = columnLines;
+		if (lines == null) columnLines = lines = new Object[size];
+		if (lines[column] == null) lines[column] = line(column, size, size);
+		return cast(lines[column]);
+	}
+
+	final Line mainDiagonalLine() {
+		Line line = mainDiagonal;
+		if (line == null) mainDiagonal = line = line(0, size + 1, size);
+		return line;
+	}
+
+	final Line antiDiagonalLine() {
+		Line line = antiDiagonal;
+		if (line == null) antiDiagonal = line = line(size - 1, size - 1, size);
+		return line;
+	}
+
+	final Line allLine() {
+		Line line = all;
+		if (line == null) all = line = line(0, 1, size * size);
+		return line;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Line cast(Object line) {
+		return (Line) line;
+	}
+
+	@Override
+	public List<T> row(int row) {
+		return rowLine(row);
+	}
+
+	@Override
+	public void row(int row, List<T> values) {
+		Objects.requireNonNull(values);
+		checkBound("row", row);
+		if (size != values.size()) throw new IllegalArgumentException("size != value.size()");
+		for (int i = 0; i < size; i++)
+			cell(row * size + i, Objects.requireNonNull(values.get(i), "cell == null"));
+	}
+
+	@Override
+	public List<T> column(int column) {
+		return columnLine(column);
+	}
+
+	@Override
+	public void column(int column, List<T> values) {
+		Objects.requireNonNull(values);
+		checkBound("column", column);
+		if (size != values.size()) throw new IllegalArgumentException("size != value.size()");
+		for (int i = 0; i < size; i++)
+			cell(i * size + column, Objects.requireNonNull(values.get(i), "cell == null"));
+	}
+
+	@Override
+	public List<T> mainDiagonal() {
+		return mainDiagonalLine();
+	}
+
+	@Override
+	public List<T> antiDiagonal() {
+		return antiDiagonalLine();
+	}
+
+	@Override
+	public List<T> asList() {
+		return allLine();
+	}
+
+	@Override
+	public int columnSize() {
+		return size;
+	}
+
+	@Override
+	public int rowSize() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return IntStream.range(0, size)
+				.mapToObj(row -> IntStream.range(0, size)
+						.mapToObj(column -> String.valueOf(cell(row * size + column)))
+						.collect(Collectors.joining(", ")))
+				.collect(Collectors.joining("\n", "[", "]"));
+	}
+
+	// cells start, start + stride, ... of the array
+	class Line extends AbstractList<T> implements RandomAccess {
+
+		private final int start;
+		private final int stride;
+		private final int count;
+
+		Line(int start, int stride, int count) {
+			this.start = start;
+			this.stride = stride;
+			this.count = count;
+		}
+
+		// index of the given element of the line in the array
+		final int cellIndex(int index) {
+			if (index < 0 || index >= count)
+				throw new IndexOutOfBoundsException("index " + index);
+			return start + index * stride;
+		}
+
+		@Override
+		public T get(int index) {
+			return cell(cellIndex(index));
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+	}
+
+}
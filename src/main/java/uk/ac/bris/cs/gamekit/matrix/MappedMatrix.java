@@ -0,0 +1,528 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * A matrix of fixed-width numeric cells stored in a memory-mapped file, for
+ * tables too large to keep on the heap.
+ * <br>
+ * The file has a short header(cell type and size) followed by the cells in
+ * row-major order. Pages are read by the operating system when first used
+ * and a file opened read-only by {@link #open(Path)} is shared through the
+ * page cache by every process that maps it. {@link #cached(Path, CellType,
+ * int, int, Consumer)} computes a table once and reuses the file afterwards.
+ */
+public final class MappedMatrix extends AbstractMatrix<Number> {
+
+	/**
+	 * Storage of a cell
+	 */
+	public enum CellType {
+		BYTE(0), SHORT(1), INT(2), LONG(3), FLOAT(2), DOUBLE(3);
+
+		private final int shift;
+
+		CellType(int shift) {
+			this.shift = shift;
+		}
+
+		/**
+		 * @return number of bytes of a cell
+		 */
+		public int width() {
+			return 1 << shift;
+		}
+
+		boolean integral() {
+			return this != FLOAT && this != DOUBLE;
+		}
+	}
+
+	private static final int MAGIC = 0x474B4D58;
+	private static final int VERSION = 1;
+	private static final int HEADER = 32;
+	private static final CellType[] TYPES = CellType.values();
+	// cells are mapped in segments of 2^SEGMENT_SHIFT bytes, a cell is never
+	// split across two segments as widths are powers of two
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	private final CellType type;
+	private final int rows;
+	private final int columns;
+	private final boolean readOnly;
+	private final MappedByteBuffer[] segments;
+
+	private MappedMatrix(FileChannel channel, CellType type, int rows, int columns,
+			boolean readOnly) throws IOException {
+		this.type = type;
+		this.rows = rows;
+		this.columns = columns;
+		this.readOnly = readOnly;
+		long bytes = dataBytes(type, rows, columns);
+		this.segments = new MappedByteBuffer[(int) ((bytes + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+		for (int s = 0; s < segments.length; s++) {
+			long start = (long) s << SEGMENT_SHIFT;
+			segments[s] = channel.map(readOnly ? MapMode.READ_ONLY : MapMode.READ_WRITE,
+					HEADER + start, Math.min(1L << SEGMENT_SHIFT, bytes - start));
+		}
+	}
+
+	private static long dataBytes(CellType type, int rows, int columns) {
+		return ((long) rows * columns) << type.shift;
+	}
+
+	/**
+	 * Creates a file for a new matrix with all cells zero, replacing the file
+	 * if it exists
+	 *
+	 * @param path the file; not null
+	 * @param type the cell type; not null
+	 * @param rows number of rows, must be &gt; 0
+	 * @param columns number of columns, must be &gt; 0
+	 * @return a writable matrix mapped from the file; never null
+	 * @throws IOException if the file cannot be written
+	 */
+	public static MappedMatrix create(Path path, CellType type, int rows, int columns)
+			throws IOException {
+		Objects.requireNonNull(type);
+		if (rows < 1 || columns < 1) throw new IllegalArgumentException(
+				"Size must be > 0, got " + rows + "x" + columns);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			header.putInt(MAGIC).putInt(VERSION).putInt(type.ordinal()).putInt(rows)
+					.putInt(columns).position(0);
+			while (header.hasRemaining())
+				channel.write(header);
+			// the file is extended with zeros up to the last cell
+			channel.write(ByteBuffer.allocate(1), HEADER + dataBytes(type, rows, columns) - 1);
+			return new MappedMatrix(channel, type, rows, columns, false);
+		}
+	}
+
+	/**
+	 * Opens a matrix file read-only
+	 *
+	 * @param path the file; not null
+	 * @return a read-only matrix mapped from the file; never null
+	 * @throws IOException if the file cannot be read or is not a matrix file
+	 */
+	public static MappedMatrix open(Path path) throws IOException {
+		return open(path, true);
+	}
+
+	/**
+	 * Opens a matrix file for reading and writing, writes are visible to
+	 * other processes mapping the file
+	 *
+	 * @param path the file; not null
+	 * @return a writable matrix mapped from the file; never null
+	 * @throws IOException if the file cannot be read or is not a matrix file
+	 */
+	public static MappedMatrix openWritable(Path path) throws IOException {
+		return open(path, false);
+	}
+
+	private static MappedMatrix open(Path path, boolean readOnly) throws IOException {
+		try (FileChannel channel = readOnly
+				? FileChannel.open(path, StandardOpenOption.READ)
+				: FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			while (header.hasRemaining() && channel.read(header) != -1) {}
+			header.flip();
+			if (header.remaining() < HEADER || header.getInt() != MAGIC)
+				throw new IOException(path + " is not a matrix file");
+			int version = header.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported matrix file version " + version);
+			int ordinal = header.getInt();
+			int rows = header.getInt();
+			int columns = header.getInt();
+			if (ordinal < 0 || ordinal >= TYPES.length || rows < 1 || columns < 1)
+				throw new IOException(path + " has a corrupt header");
+			CellType type = TYPES[ordinal];
+			if (channel.size() < HEADER + dataBytes(type, rows, columns))
+				throw new IOException(path + " is truncated");
+			return new MappedMatrix(channel, type, rows, columns, readOnly);
+		}
+	}
+
+	/**
+	 * Opens a matrix file read-only if it exists with the given type and size,
+	 * otherwise computes the matrix, writes it to the file and opens it
+	 * read-only. The file is written under a temporary name and moved into
+	 * place, so concurrent workers never see a partial file.
+	 *
+	 * @param path the file; not null
+	 * @param type the cell type; not null
+	 * @param rows number of rows, must be &gt; 0
+	 * @param columns number of columns, must be &gt; 0
+	 * @param compute fills a new writable matrix with all cells zero; not null
+	 * @return a read-only matrix mapped from the file; never null
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public static MappedMatrix cached(Path path, CellType type, int rows, int columns,
+			Consumer<? super MappedMatrix> compute) throws IOException {
+		Objects.requireNonNull(compute);
+		if (Files.exists(path)) {
+			try {
+				MappedMatrix matrix = open(path);
+				if (matrix.type == type && matrix.rows == rows && matrix.columns == columns)
+					return matrix;
+			} catch (IOException e) {
+				// not a usable matrix file, compute it again
+			}
+		}
+		Path absolute = path.toAbsolutePath();
+		Path temporary = Files.createTempFile(absolute.getParent(),
+				absolute.getFileName().toString(), ".tmp");
+		try {
+			MappedMatrix matrix = create(temporary, type, rows, columns);
+			compute.accept(matrix);
+			matrix.force();
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		return open(path);
+	}
+
+	/**
+	 * Writes a matrix to a file, replacing the file if it exists
+	 *
+	 * @param path the file; not null
+	 * @param type the cell type, every cell must fit in it; not null
+	 * @param matrix the matrix; not null and without null cells
+	 * @return a writable matrix mapped from the file; never null
+	 * @throws IOException if the file cannot be written
+	 */
+	public static MappedMatrix copyOf(Path path, CellType type, Matrix<? extends Number> matrix)
+			throws IOException {
+		MappedMatrix copy = create(path, type, matrix.rowSize(), matrix.columnSize());
+		for (int row = 0; row < copy.rows; row++) {
+			List<? extends Number> cells = matrix.row(row);
+			for (int column = 0; column < copy.columns; column++)
+				copy.put(row, column, cells.get(column));
+		}
+		copy.force();
+		return copy;
+	}
+
+	/**
+	 * @return the cell type
+	 */
+	public CellType cellType() {
+		return type;
+	}
+
+	/**
+	 * @return true if the file was opened read-only
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Writes changes to the file
+	 */
+	public void force() {
+		if (!readOnly) for (MappedByteBuffer segment : segments)
+			segment.force();
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @return the element, converted to {@code long} if it is a floating
+	 *         point cell
+	 */
+	public long getLong(int row, int column) {
+		long offset = offset(row, column);
+		ByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+		int position = (int) (offset & SEGMENT_MASK);
+		switch (type) {
+			case BYTE:
+				return segment.get(position);
+			case SHORT:
+				return segment.getShort(position);
+			case INT:
+				return segment.getInt(position);
+			case LONG:
+				return segment.getLong(position);
+			case FLOAT:
+				return (long) segment.getFloat(position);
+			default:
+				return (long) segment.getDouble(position);
+		}
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @return the element
+	 */
+	public int getInt(int row, int column) {
+		return (int) getLong(row, column);
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @return the element
+	 */
+	public double getDouble(int row, int column) {
+		if (type.integral()) return getLong(row, column);
+		long offset = offset(row, column);
+		ByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+		int position = (int) (offset & SEGMENT_MASK);
+		return type == CellType.FLOAT ? segment.getFloat(position)
+				: segment.getDouble(position);
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @param value the element; must fit in the cell type
+	 */
+	public void putLong(int row, int column, long value) {
+		if (!type.integral()) {
+			putDouble(row, column, value);
+			return;
+		}
+		checkWritable();
+		long offset = offset(row, column);
+		ByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+		int position = (int) (offset & SEGMENT_MASK);
+		switch (type) {
+			case BYTE:
+				if ((byte) value != value) throw doesNotFit(value);
+				segment.put(position, (byte) value);
+				break;
+			case SHORT:
+				if ((short) value != value) throw doesNotFit(value);
+				segment.putShort(position, (short) value);
+				break;
+			case INT:
+				if ((int) value != value) throw doesNotFit(value);
+				segment.putInt(position, (int) value);
+				break;
+			default:
+				segment.putLong(position, value);
+		}
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @param value the element; must be a whole number for integral cell
+	 *        types
+	 */
+	public void putDouble(int row, int column, double value) {
+		if (type.integral()) {
+			if ((long) value != value) throw doesNotFit(value);
+			putLong(row, column, (long) value);
+			return;
+		}
+		checkWritable();
+		long offset = offset(row, column);
+		ByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+		int position = (int) (offset & SEGMENT_MASK);
+		if (type == CellType.FLOAT) segment.putFloat(position, (float) value);
+		else segment.putDouble(position, value);
+	}
+
+	private long offset(int row, int column) {
+		if ((row | column) < 0 || row >= rows || column >= columns) {
+			checkBound("row", row, rows);
+			checkBound("column", column, columns);
+		}
+		return ((long) row * columns + column) << type.shift;
+	}
+
+	private static void checkBound(String name, int value, int size) {
+		if (value < 0) throw new IndexOutOfBoundsException(name + " " + value + " < 0");
+		if (value >= size)
+			throw new IndexOutOfBoundsException(name + " " + value + " > " + (size - 1));
+	}
+
+	private void checkWritable() {
+		if (readOnly) throw new UnsupportedOperationException(
+				"put is not supported in a read-only MappedMatrix");
+	}
+
+	private IllegalArgumentException doesNotFit(Number value) {
+		return new IllegalArgumentException(value + " does not fit in a " + type + " cell");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @return the element, boxed as the cell type(e.g {@link Integer} for
+	 *         {@link CellType#INT}); never null
+	 */
+	@Override
+	public Number get(int row, int column) {
+		switch (type) {
+			case BYTE:
+				return (byte) getLong(row, column);
+			case SHORT:
+				return (short) getLong(row, column);
+			case INT:
+				return (int) getLong(row, column);
+			case LONG:
+				return getLong(row, column);
+			case FLOAT:
+				return (float) getDouble(row, column);
+			default:
+				return getDouble(row, column);
+		}
+	}
+
+	@Override
+	public void put(int row, int column, Number cell) {
+		Objects.requireNonNull(cell, "cell == null");
+		if (type.integral() && !(cell instanceof Double || cell instanceof Float))
+			putLong(row, column, cell.longValue());
+		else putDouble(row, column, cell.doubleValue());
+	}
+
+	@Override
+	public boolean inBounds(int row, int column) {
+		return (row >= 0 && row < rows) && (column >= 0 && column < columns);
+	}
+
+	@Override
+	public List<Number> row(int row) {
+		checkBound("row", row, rows);
+		return new Cells(columns) {
+			@Override
+			Number cell(int index) {
+				return MappedMatrix.this.get(row, index);
+			}
+		};
+	}
+
+	@Override
+	public void row(int row, List<Number> values) {
+		Objects.requireNonNull(values);
+		checkBound("row", row, rows);
+		if (columns != values.size()) throw new IllegalArgumentException("size != value.size()");
+		for (int i = 0; i < columns; i++)
+			put(row, i, values.get(i));
+	}
+
+	@Override
+	public List<Number> column(int column) {
+		checkBound("column", column, columns);
+		return new Cells(rows) {
+			@Override
+			Number cell(int index) {
+				return MappedMatrix.this.get(index, column);
+			}
+		};
+	}
+
+	@Override
+	public void column(int column, List<Number> values) {
+		Objects.requireNonNull(values);
+		checkBound("column", column, columns);
+		if (rows != values.size()) throw new IllegalArgumentException("size != value.size()");
+		for (int i = 0; i < rows; i++)
+			put(i, column, values.get(i));
+	}
+
+	@Override
+	public List<Number> mainDiagonal() {
+		return new Cells(Math.min(rows, columns)) {
+			@Override
+			Number cell(int index) {
+				return MappedMatrix.this.get(index, index);
+			}
+		};
+	}
+
+	@Override
+	public List<Number> antiDiagonal() {
+		return new Cells(Math.min(rows, columns)) {
+			@Override
+			Number cell(int index) {
+				return MappedMatrix.this.get(index, columns - 1 - index);
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws UnsupportedOperationException if the matrix has more than
+	 *         {@code Integer.MAX_VALUE} cells
+	 */
+	@Override
+	public List<Number> asList() {
+		if ((long) rows * columns > Integer.MAX_VALUE) throw new UnsupportedOperationException(
+				"asList is not supported for " + rows + "x" + columns + " cells");
+		return new Cells(rows * columns) {
+			@Override
+			Number cell(int index) {
+				return MappedMatrix.this.get(index / columns, index % columns);
+			}
+		};
+	}
+
+	@Override
+	public int columnSize() {
+		return columns;
+	}
+
+	@Override
+	public int rowSize() {
+		return rows;
+	}
+
+	@Override
+	public String toString() {
+		return "MappedMatrix{" + "type=" + type + ", rows=" + rows + ", columns=" + columns
+				+ ", readOnly=" + readOnly + '}';
+	}
+
+	// read-only view of some cells, boxed on access
+	private abstract static class Cells extends AbstractList<Number> implements RandomAccess {
+
+		private final int count;
+
+		Cells(int count) {
+			this.count = count;
+		}
+
+		abstract Number cell(int index);
+
+		@Override
+		public Number get(int index) {
+			if (index < 0 || index >= count)
+				throw new IndexOutOfBoundsException("index " + index);
+			return cell(index);
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+	}
+
+}
@@ -39,7 +39,7 @@ public interface Matrix<T> {
 	 * Get the specified row as a list
 	 *
 	 * @param row the row
-	 * @return a immutable list; never null
+	 * @return a live, read-only view of the row; never null
 	 */
 	List<T> row(int row);
 
@@ -55,7 +55,7 @@ public interface Matrix<T> {
 	 * Get the specified column as a list
 	 *
 	 * @param column the row
-	 * @return a immutable list; never null
+	 * @return a live, read-only view of the column; never null
 	 */
 	List<T> column(int column);
 
@@ -70,21 +70,22 @@ public interface Matrix<T> {
 	/**
 	 * Get the main diagonal elements of the matrix
 	 *
-	 * @return an immutable list; never null
+	 * @return a live, read-only view of the diagonal; never null
 	 */
 	List<T> mainDiagonal();
 
 	/**
 	 * Get the antidiagonal elements of the matrix
 	 *
-	 * @return an immutable list; never null
+	 * @return a live, read-only view of the antidiagonal; never null
 	 */
 	List<T> antiDiagonal();
 
 	/**
-	 * Flatten the matrix to a list
+	 * Flatten the matrix to a list, row by row
 	 *
-	 * @return an immutable list with {@code size * size} elements; never null
+	 * @return a live, read-only view with {@code rowSize() * columnSize()} elements, later
+	 *         writes to the matrix show through it; never null
 	 */
 	List<T> asList();
 
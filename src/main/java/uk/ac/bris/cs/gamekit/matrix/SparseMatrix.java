@@ -0,0 +1,344 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An immutable matrix of {@code double} cells stored in compressed sparse row
+ * form: the column and value of every non-zero cell, row by row. Cells not
+ * stored are {@code 0.0}.
+ * <br>
+ * {@link #multiply(double[], double[])} computes a matrix-vector product in
+ * time proportional to the number of stored cells; products of large
+ * matrices are split by rows over the common {@link ForkJoinPool}.
+ */
+public final class SparseMatrix extends AbstractMatrix<Double> implements Serializable {
+
+	private static final long serialVersionUID = -6316047729004624716L;
+	// stored cells per task of a parallel product, smaller products run inline
+	private static final int PARALLEL_CELLS = 1 << 15;
+
+	private final int rows;
+	private final int columns;
+	// cells of row r are [offsets[r], offsets[r + 1]), sorted by column
+	private final int[] offsets;
+	private final int[] indices;
+	private final double[] values;
+
+	private SparseMatrix(int rows, int columns, int[] offsets, int[] indices,
+			double[] values) {
+		this.rows = rows;
+		this.columns = columns;
+		this.offsets = offsets;
+		this.indices = indices;
+		this.values = values;
+	}
+
+	/**
+	 * @return number of stored cells
+	 */
+	public int storedCount() {
+		return values.length;
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @return the element
+	 */
+	public double getDouble(int row, int column) {
+		checkBound("row", row, rows);
+		checkBound("column", column, columns);
+		int index = Arrays.binarySearch(indices, offsets[row], offsets[row + 1], column);
+		return index < 0 ? 0 : values[index];
+	}
+
+	/**
+	 * Computes {@code result = this * vector}
+	 *
+	 * @param vector the vector, {@link #columnSize()} long; not null
+	 * @param result the vector to write to, {@link #rowSize()} long; not
+	 *        null and not the given vector
+	 * @return the result vector
+	 */
+	public double[] multiply(double[] vector, double[] result) {
+		if (vector.length != columns) throw new IllegalArgumentException(
+				"vector.length " + vector.length + " != " + columns);
+		if (result.length != rows) throw new IllegalArgumentException(
+				"result.length " + result.length + " != " + rows);
+		if (vector == result) throw new IllegalArgumentException("vector == result");
+		if (values.length <= PARALLEL_CELLS) multiplyRows(vector, result, 0, rows);
+		else ForkJoinPool.commonPool().invoke(new Product(vector, result, 0, rows));
+		return result;
+	}
+
+	/**
+	 * Computes {@code this * vector}
+	 *
+	 * @param vector the vector, {@link #columnSize()} long; not null
+	 * @return a new vector, {@link #rowSize()} long
+	 */
+	public double[] multiply(double[] vector) {
+		return multiply(vector, new double[rows]);
+	}
+
+	private void multiplyRows(double[] vector, double[] result, int from, int to) {
+		for (int row = from; row < to; row++) {
+			double sum = 0;
+			for (int i = offsets[row]; i < offsets[row + 1]; i++)
+				sum += values[i] * vector[indices[i]];
+			result[row] = sum;
+		}
+	}
+
+	// rows [from, to) of a product, split in halves by stored cells
+	private final class Product extends RecursiveAction {
+
+		private static final long serialVersionUID = 4286386396208006283L;
+		private final double[] vector;
+		private final double[] result;
+		private final int from;
+		private final int to;
+
+		Product(double[] vector, double[] result, int from, int to) {
+			this.vector = vector;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from < 2 || offsets[to] - offsets[from] <= PARALLEL_CELLS) {
+				multiplyRows(vector, result, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new Product(vector, result, from, middle),
+					new Product(vector, result, middle, to));
+		}
+	}
+
+	@Override
+	public Double get(int row, int column) {
+		return getDouble(row, column);
+	}
+
+	@Override
+	public void put(int row, int column, Double cell) {
+		throw new UnsupportedOperationException("put is not supported in SparseMatrix");
+	}
+
+	@Override
+	public boolean inBounds(int row, int column) {
+		return (row >= 0 && row < rows) && (column >= 0 && column < columns);
+	}
+
+	@Override
+	public List<Double> row(int row) {
+		checkBound("row", row, rows);
+		return new Cells(columns) {
+			@Override
+			double cell(int index) {
+				return getDouble(row, index);
+			}
+		};
+	}
+
+	@Override
+	public void row(int row, List<Double> values) {
+		throw new UnsupportedOperationException("row is not supported in SparseMatrix");
+	}
+
+	@Override
+	public List<Double> column(int column) {
+		checkBound("column", column, columns);
+		return new Cells(rows) {
+			@Override
+			double cell(int index) {
+				return getDouble(index, column);
+			}
+		};
+	}
+
+	@Override
+	public void column(int column, List<Double> values) {
+		throw new UnsupportedOperationException("column is not supported in SparseMatrix");
+	}
+
+	@Override
+	public List<Double> mainDiagonal() {
+		return new Cells(Math.min(rows, columns)) {
+			@Override
+			double cell(int index) {
+				return getDouble(index, index);
+			}
+		};
+	}
+
+	@Override
+	public List<Double> antiDiagonal() {
+		return new Cells(Math.min(rows, columns)) {
+			@Override
+			double cell(int index) {
+				return getDouble(index, columns - 1 - index);
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws UnsupportedOperationException if the matrix has more than
+	 *         {@code Integer.MAX_VALUE} cells
+	 */
+	@Override
+	public List<Double> asList() {
+		if ((long) rows * columns > Integer.MAX_VALUE) throw new UnsupportedOperationException(
+				"asList is not supported for " + rows + "x" + columns + " cells");
+		return new Cells(rows * columns) {
+			@Override
+			double cell(int index) {
+				return getDouble(index / columns, index % columns);
+			}
+		};
+	}
+
+	@Override
+	public int columnSize() {
+		return columns;
+	}
+
+	@Override
+	public int rowSize() {
+		return rows;
+	}
+
+	private static void checkBound(String name, int value, int size) {
+		if (value < 0) throw new IndexOutOfBoundsException(name + " " + value + " < 0");
+		if (value >= size)
+			throw new IndexOutOfBoundsException(name + " " + value + " > " + (size - 1));
+	}
+
+	@Override
+	public String toString() {
+		return "SparseMatrix{" + "rows=" + rows + ", columns=" + columns + ", stored="
+				+ values.length + '}';
+	}
+
+	// read-only view of some cells, boxed on access
+	private abstract static class Cells extends AbstractList<Double> implements RandomAccess {
+
+		private final int count;
+
+		Cells(int count) {
+			this.count = count;
+		}
+
+		abstract double cell(int index);
+
+		@Override
+		public Double get(int index) {
+			if (index < 0 || index >= count)
+				throw new IndexOutOfBoundsException("index " + index);
+			return cell(index);
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+	}
+
+	/**
+	 * Builder for {@link SparseMatrix}. Cells can be added in any order, values
+	 * added to the same cell are summed.
+	 */
+	public static final class Builder {
+
+		private final int rows;
+		private final int columns;
+		private int[] cellRows = new int[16];
+		private int[] cellColumns = new int[16];
+		private double[] cellValues = new double[16];
+		private int count;
+
+		/**
+		 * @param rows number of rows, must be &gt; 0
+		 * @param columns number of columns, must be &gt; 0
+		 */
+		public Builder(int rows, int columns) {
+			if (rows < 1 || columns < 1) throw new IllegalArgumentException(
+					"Size must be > 0, got " + rows + "x" + columns);
+			this.rows = rows;
+			this.columns = columns;
+		}
+
+		/**
+		 * Adds a value to a cell
+		 *
+		 * @param row the row of the cell
+		 * @param column the column of the cell
+		 * @param value the value to add
+		 * @return this builder
+		 */
+		public Builder add(int row, int column, double value) {
+			checkBound("row", row, rows);
+			checkBound("column", column, columns);
+			if (count == cellRows.length) {
+				int capacity = count * 2;
+				cellRows = Arrays.copyOf(cellRows, capacity);
+				cellColumns = Arrays.copyOf(cellColumns, capacity);
+				cellValues = Arrays.copyOf(cellValues, capacity);
+			}
+			cellRows[count] = row;
+			cellColumns[count] = column;
+			cellValues[count] = value;
+			count++;
+			return this;
+		}
+
+		/**
+		 * @return a new matrix with the cells added so far
+		 */
+		public SparseMatrix build() {
+			// counting sort by row, then by column within each row
+			int[] offsets = new int[rows + 1];
+			for (int i = 0; i < count; i++)
+				offsets[cellRows[i] + 1]++;
+			for (int r = 0; r < rows; r++)
+				offsets[r + 1] += offsets[r];
+			int[] next = Arrays.copyOf(offsets, rows);
+			long[] keys = new long[count];
+			for (int i = 0; i < count; i++)
+				keys[next[cellRows[i]]++] = (long) cellColumns[i] << 32 | i;
+
+			int[] indices = new int[count];
+			double[] values = new double[count];
+			int stored = 0;
+			int[] compacted = new int[rows + 1];
+			for (int r = 0; r < rows; r++) {
+				Arrays.sort(keys, offsets[r], offsets[r + 1]);
+				for (int k = offsets[r]; k < offsets[r + 1]; k++) {
+					int column = (int) (keys[k] >>> 32);
+					double value = cellValues[(int) keys[k]];
+					if (stored > compacted[r] && indices[stored - 1] == column)
+						values[stored - 1] += value;
+					else {
+						indices[stored] = column;
+						values[stored++] = value;
+					}
+				}
+				compacted[r + 1] = stored;
+			}
+			return new SparseMatrix(rows, columns, compacted,
+					Arrays.copyOf(indices, stored), Arrays.copyOf(values, stored));
+		}
+	}
+
+}
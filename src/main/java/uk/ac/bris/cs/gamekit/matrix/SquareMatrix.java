@@ -1,21 +1,34 @@
 package uk.ac.bris.cs.gamekit.matrix;
 
 import static java.util.Collections.nCopies;
-import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toCollection;
-import static java.util.stream.Collectors.toList;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.stream.IntStream;
 
+/**
+ * A square matrix of references stored as a list of rows
+ * <br>
+ * Rows, columns, diagonals and {@link #asList()} are read-only views that see
+ * later changes to the matrix; each is created once and then reused.
+ *
+ * @param <T> the type of elements in the matrix
+ */
 public final class SquareMatrix<T> extends AbstractMatrix<T> implements Serializable {
 
 	private static final long serialVersionUID = 3361784939506993018L;
 	private final List<List<T>> cells;
+	private transient List<Line> rowLines;
+	private transient List<Line> columnLines;
+	private transient Line mainDiagonal;
+	private transient Line antiDiagonal;
+	private transient Line all;
 
 	/**
 	 * Creates a new {@code size*size} square matrix with default values. Is is
@@ -64,7 +77,8 @@ public final class SquareMatrix<T> extends AbstractMatrix<T> implements Serializ
 	@Override
 	public List<T> row(int row) {
 		checkBound("row", row);
-		return unmodifiableList(cells.get(row));
+		if (rowLines == null) rowLines = lines(size(), 1);
+		return rowLines.get(row);
 	}
 
 	@Override
@@ -78,7 +92,8 @@ public final class SquareMatrix<T> extends AbstractMatrix<T> implements Serializ
 	@Override
 	public List<T> column(int column) {
 		checkBound("column", column);
-		return unmodifiableList(cells.stream().map(c -> c.get(column)).collect(toList()));
+		if (columnLines == null) columnLines = lines(1, size());
+		return columnLines.get(column);
 	}
 
 	@Override
@@ -92,20 +107,28 @@ public final class SquareMatrix<T> extends AbstractMatrix<T> implements Serializ
 
 	@Override
 	public List<T> mainDiagonal() {
-		return unmodifiableList(
-				IntStream.range(0, size()).mapToObj(i -> get(i, i)).collect(toList()));
+		if (mainDiagonal == null) mainDiagonal = new Line(0, size() + 1, size());
+		return mainDiagonal;
 	}
 
 	@Override
 	public List<T> antiDiagonal() {
-		int size = size();
-		return unmodifiableList(
-				IntStream.range(0, size()).mapToObj(i -> get(i, size - 1 - i)).collect(toList()));
+		if (antiDiagonal == null) antiDiagonal = new Line(size() - 1, size() - 1, size());
+		return antiDiagonal;
 	}
 
 	@Override
 	public List<T> asList() {
-		return cells.stream().flatMap(List::stream).collect(toList());
+		if (all == null) all = new Line(0, 1, size() * size());
+		return all;
+	}
+
+	// one line per row or column, line i starts at cell i * spacing
+	private List<Line> lines(int spacing, int stride) {
+		List<Line> lines = new ArrayList<>(size());
+		for (int i = 0; i < size(); i++)
+			lines.add(new Line(i * spacing, stride, size()));
+		return lines;
 	}
 
 	@Override
@@ -138,6 +161,34 @@ public final class SquareMatrix<T> extends AbstractMatrix<T> implements Serializ
 		return super.hashCode();
 	}
 
+	// cells start, start + stride, ... in row-major order
+	private final class Line extends AbstractList<T> implements RandomAccess {
+
+		private final int start;
+		private final int stride;
+		private final int count;
+
+		Line(int start, int stride, int count) {
+			this.start = start;
+			this.stride = stride;
+			this.count = count;
+		}
+
+		@Override
+		public T get(int index) {
+			if (index < 0 || index >= count)
+				throw new IndexOutOfBoundsException("index " + index);
+			int cell = start + index * stride;
+			int size = SquareMatrix.this.size();
+			return cells.get(cell / size).get(cell % size);
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return cells.stream().map(l -> l.stream().map(Object::toString).collect(joining(", ")))
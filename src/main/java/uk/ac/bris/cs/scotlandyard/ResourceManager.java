@@ -13,6 +13,7 @@ import com.google.common.collect.ImmutableMap;
 
 import javafx.geometry.Point2D;
 import javafx.scene.image.Image;
+import uk.ac.bris.cs.gamekit.graph.DistanceOracle;
 import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
 import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
@@ -35,6 +36,7 @@ public final class ResourceManager implements ResourceProvider {
 	private Map<Ticket, Image> ticketResources;
 	private Map<Integer, Entry<Integer, Integer>> mapCoordinates;
 	private Graph<Integer, Transport> graph;
+	private DistanceOracle<Transport> distanceOracle;
 
 	/**
 	 * Loads all resources into memory <br>
@@ -56,6 +58,7 @@ public final class ResourceManager implements ResourceProvider {
 
 		mapCoordinates = ImmutableMap.copyOf(StandardGame.pngMapPositionEntries());
 		graph = new ImmutableGraph<>(StandardGame.standardGraph());
+		distanceOracle = DistanceOracle.build(graph, Transport.class);
 	}
 
 	private static Image loadImage(String path) {
@@ -81,6 +84,11 @@ public final class ResourceManager implements ResourceProvider {
 		return graph;
 	}
 
+	@Override
+	public DistanceOracle<Transport> getDistanceOracle() {
+		return distanceOracle;
+	}
+
 	@Override
 	public Point2D coordinateAtNode(int node) {
 		Entry<Integer, Integer> entry = mapCoordinates.get(node);
@@ -2,6 +2,7 @@ package uk.ac.bris.cs.scotlandyard.ai;
 
 import javafx.geometry.Point2D;
 import javafx.scene.image.Image;
+import uk.ac.bris.cs.gamekit.graph.DistanceOracle;
 import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.scotlandyard.model.Ticket;
 import uk.ac.bris.cs.scotlandyard.model.Transport;
@@ -36,6 +37,20 @@ public interface ResourceProvider {
 	 */
 	Graph<Integer, Transport> getGraph();
 
+	/**
+	 * Retrieves the precomputed shortest hop counts between all nodes of the
+	 * graph retrieved using {@link #getGraph()}, for every subset of
+	 * {@link Transport}. The default creates a new oracle for every call
+	 * that computes its tables on first use, see
+	 * {@link DistanceOracle#lazy(Graph, Class)}; providers should override it
+	 * to share one oracle
+	 *
+	 * @return the distance oracle; never null
+	 */
+	default DistanceOracle<Transport> getDistanceOracle() {
+		return DistanceOracle.lazy(getGraph(), Transport.class);
+	}
+
 	/**
 	 * Retrieves the position of node on the map image retrieved using
 	 * {@link #getMap()}
@@ -13,9 +13,8 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import uk.ac.bris.cs.gamekit.graph.FrozenGraph;
 import uk.ac.bris.cs.gamekit.graph.Graph;
-import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
-import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
 import uk.ac.bris.cs.scotlandyard.model.Colour;
 import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
 import uk.ac.bris.cs.scotlandyard.model.Move;
@@ -77,7 +76,7 @@ public final class ImmutableScotlandYardView implements ScotlandYardView {
 
 	private final ImmutableList<Colour> colours;
 	private final ImmutableList<Boolean> rounds;
-	private final ImmutableGraph<Integer, Transport> graph;
+	private final FrozenGraph<Integer, Transport> graph;
 
 	final ImmutableList<ImmutablePlayer> players;
 	final ImmutableSet<Colour> winning;
@@ -92,7 +91,7 @@ public final class ImmutableScotlandYardView implements ScotlandYardView {
 	private ImmutableScotlandYardView(
 			ImmutableList<Colour> colours,
 			ImmutableList<Boolean> rounds,
-			ImmutableGraph<Integer, Transport> graph,
+			FrozenGraph<Integer, Transport> graph,
 			ImmutableList<ImmutablePlayer> players,
 			ImmutableSet<Colour> winning, boolean gameOver,
 			Colour currentPlayer, int currentRound) {
@@ -123,7 +122,7 @@ public final class ImmutableScotlandYardView implements ScotlandYardView {
 		currentRound = view.getCurrentRound();
 		currentPlayer = view.getCurrentPlayer();
 		rounds = ImmutableList.copyOf((view.getRounds()));
-		graph = new ImmutableGraph<>(new UndirectedGraph<>(view.getGraph()));
+		graph = FrozenGraph.of(view.getGraph());
 	}
 
 	@Override public List<Colour> getPlayers() { return colours; }
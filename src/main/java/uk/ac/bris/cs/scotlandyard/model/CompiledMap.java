@@ -0,0 +1,223 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.IntCsrGraph;
+import uk.ac.bris.cs.gamekit.graph.MappedCsrGraph;
+
+/**
+ * A Scotland Yard map in a binary format that can be memory-mapped and used
+ * without parsing.
+ * <br>
+ * The format is a header({@value #MAGIC} magic number and format version),
+ * the graph section of {@link MappedCsrGraph} and the node coordinates: a
+ * count followed by all x and then all y coordinates, in node index order.
+ * Maps are compiled from the text formats of {@code graph.txt} and
+ * {@code pos.txt} with {@link #compile(List, List)} or the {@link #main}
+ * method:
+ *
+ * <pre>
+ * java uk.ac.bris.cs.scotlandyard.model.CompiledMap graph.txt pos.txt map.bin
+ * </pre>
+ */
+public final class CompiledMap {
+
+	/**
+	 * Magic number at the start of every compiled map, {@code "SYMP"}
+	 */
+	public static final int MAGIC = 0x53594D50;
+
+	/**
+	 * Version of the format written by this class
+	 */
+	public static final int VERSION = 2;
+
+	private static final int NO_POSITION = Integer.MIN_VALUE;
+
+	private final ByteBuffer buffer;
+	private final MappedCsrGraph<Transport> graph;
+	private final IntBuffer xs;
+	private final IntBuffer ys;
+
+	private CompiledMap(ByteBuffer buffer) {
+		this.buffer = buffer.duplicate();
+		ByteBuffer in = buffer.duplicate();
+		if (in.remaining() < 2 * Integer.BYTES || in.getInt() != MAGIC)
+			throw new IllegalArgumentException("Not a compiled map");
+		int version = in.getInt();
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unsupported compiled map version " + version);
+		this.graph = MappedCsrGraph.read(in, Transport.class);
+		if (in.remaining() < Integer.BYTES || in.getInt() != graph.size()
+				|| in.remaining() < 2L * graph.size() * Integer.BYTES)
+			throw new IllegalArgumentException("Compiled map has malformed coordinates");
+		IntBuffer coordinates = in.asIntBuffer();
+		coordinates.limit(graph.size());
+		this.xs = coordinates.slice();
+		coordinates.limit(2 * graph.size()).position(graph.size());
+		this.ys = coordinates.slice();
+	}
+
+	/**
+	 * Memory-maps a compiled map file
+	 *
+	 * @param path the file; not null
+	 * @return the map; never null
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a valid compiled
+	 *         map
+	 */
+	public static CompiledMap load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, READ)) {
+			return new CompiledMap(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Reads a compiled map from a buffer without copying it
+	 *
+	 * @param buffer the buffer, from its position to its limit; not null,
+	 *        must not be modified while the map is in use
+	 * @return the map; never null
+	 * @throws IllegalArgumentException if the buffer does not hold a valid
+	 *         compiled map
+	 */
+	public static CompiledMap read(ByteBuffer buffer) {
+		return new CompiledMap(Objects.requireNonNull(buffer));
+	}
+
+	/**
+	 * Compiles a map from its text form
+	 *
+	 * @param graphLines lines in the format of {@code graph.txt}, see
+	 *        {@link ScotlandYardGraphReader}; not null
+	 * @param positionLines lines in the format of {@code pos.txt}({@code node
+	 *        x y}, other lines are ignored); not null
+	 * @return the map, held on the heap; never null
+	 * @throws IllegalArgumentException if either input is malformed or a
+	 *         position is given for a node that is not in the graph
+	 */
+	public static CompiledMap compile(List<String> graphLines, List<String> positionLines) {
+		IntCsrGraph<Transport> graph = ScotlandYardGraphReader.compactFromLines(graphLines);
+		int[] xs = new int[graph.size()];
+		int[] ys = new int[graph.size()];
+		Arrays.fill(xs, NO_POSITION);
+		Arrays.fill(ys, NO_POSITION);
+		for (String line : positionLines) {
+			String[] values = line.trim().split("\\s+");
+			if (values.length != 3) continue;
+			int node = graph.indexOf(Integer.parseInt(values[0]));
+			if (node == -1) throw new IllegalArgumentException(
+					"Position given for node " + values[0] + " which is not in the graph");
+			xs[node] = Integer.parseInt(values[1]);
+			ys[node] = Integer.parseInt(values[2]);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + MappedCsrGraph.sizeOf(graph)
+				+ (1 + 2 * graph.size()) * Integer.BYTES);
+		buffer.putInt(MAGIC).putInt(VERSION);
+		MappedCsrGraph.write(graph, buffer);
+		buffer.putInt(graph.size());
+		for (int x : xs)
+			buffer.putInt(x);
+		for (int y : ys)
+			buffer.putInt(y);
+		buffer.flip();
+		return new CompiledMap(buffer);
+	}
+
+	/**
+	 * Writes this map to a file, replacing it if it exists
+	 *
+	 * @param path the file; not null
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, WRITE, CREATE, TRUNCATE_EXISTING)) {
+			ByteBuffer out = buffer.duplicate();
+			while (out.hasRemaining())
+				channel.write(out);
+		}
+	}
+
+	/**
+	 * @return the graph of this map, backed by the compiled map
+	 */
+	public CsrGraph<Transport> graph() {
+		return graph;
+	}
+
+	/**
+	 * @param node the node value
+	 * @return whether the node has a position
+	 */
+	public boolean hasPosition(int node) {
+		int index = graph.indexOf(node);
+		return index != -1 && xs.get(index) != NO_POSITION;
+	}
+
+	/**
+	 * @param node the node value
+	 * @return the x coordinate of the node
+	 * @throws IllegalArgumentException if the node has no position
+	 */
+	public int x(int node) {
+		return xs.get(positioned(node));
+	}
+
+	/**
+	 * @param node the node value
+	 * @return the y coordinate of the node
+	 * @throws IllegalArgumentException if the node has no position
+	 */
+	public int y(int node) {
+		return ys.get(positioned(node));
+	}
+
+	private int positioned(int node) {
+		if (!hasPosition(node))
+			throw new IllegalArgumentException("Node " + node + " has no position");
+		return graph.indexOf(node);
+	}
+
+	@Override
+	public String toString() {
+		return "CompiledMap{" + "graph=" + graph + '}';
+	}
+
+	/**
+	 * Compiles {@code graph.txt} and {@code pos.txt} files into a compiled
+	 * map file
+	 *
+	 * @param args graph file, position file and output file
+	 * @throws IOException if any of the files cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.err.println("Usage: CompiledMap <graph.txt> <pos.txt> <output>");
+			System.exit(1);
+		}
+		CompiledMap map = compile(
+				Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8),
+				Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8));
+		map.write(Paths.get(args[2]));
+		System.out.println("Compiled " + map.graph + " to " + args[2]);
+	}
+
+}
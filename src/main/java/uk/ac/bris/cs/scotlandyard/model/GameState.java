@@ -0,0 +1,461 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+
+/**
+ * The state of a game of Scotland Yard packed into a few {@code long}s, for
+ * searching the game tree.
+ * <br>
+ * Players are numbered in the order of {@link ScotlandYardView#getPlayers()},
+ * Mr.X is player 0. {@link #makeMove(int)} applies a move packed with
+ * {@link PackedMove} by the rules {@link ScotlandYardModel} applies an
+ * accepted move: tickets move from detectives to Mr.X, Mr.X's moves advance
+ * the round and reveal his location on reveal rounds, then the turn passes
+ * to the next player. {@link #unmakeMove()} takes back the last move made,
+ * so one state can walk a whole tree without allocating. Moves are not
+ * checked against the map; {@link #moves(TransportAdjacency, MoveList)}
+ * generates the valid ones. {@link #zobristHash()} is kept up to date by
+ * every move made or taken back.
+ */
+public final class GameState {
+
+	/**
+	 * Maximum number of players, Mr.X included
+	 */
+	public static final int MAX_PLAYERS = 6;
+	/**
+	 * Maximum number of rounds
+	 */
+	public static final int MAX_ROUNDS = 64;
+	/**
+	 * Maximum count of a ticket. Counts are signed, as the model does not
+	 * stop Mr.X's double moves from using a ticket he does not have
+	 */
+	public static final int MAX_TICKETS = (1 << 11) - 1;
+
+	private static final Colour[] COLOURS = Colour.values();
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private static final int LOCATION_BITS = 10;
+	private static final int TICKET_BITS = 12;
+	private static final long TICKET_MASK = (1L << TICKET_BITS) - 1;
+	// fields of status
+	private static final int PLAYER = 8;
+	private static final int LAST_KNOWN = 11;
+	private static final int HISTORY = 5; // longs per move made
+
+	private final int playerCount;
+	private final int colours; // colour ordinal of player i in bits [3i, 3i + 3)
+	private final int roundCount;
+	private final long reveals; // bit r if Mr.X is revealed after his move of round r
+
+	private long locations; // location of player i in bits [10i, 10i + 10)
+	private final long[] tickets = new long[MAX_PLAYERS]; // signed count of ticket t in bits [12t, 12t + 12)
+	private long status; // round in bits [0, 8), player in [8, 11), last known in [11, 21)
+
+	private long hash; // see Zobrist
+
+	// locations, status, tickets of the mover, tickets of Mr.X and hash before each move
+	private long[] history = new long[HISTORY * 16];
+	private int depth;
+
+	private GameState(List<Colour> players, List<Boolean> rounds) {
+		if (players.isEmpty() || players.size() > MAX_PLAYERS)
+			throw new IllegalArgumentException("Player count must be in [1, " + MAX_PLAYERS
+					+ "], got " + players.size());
+		if (players.get(0) != BLACK)
+			throw new IllegalArgumentException("Mr.X must be the first player, got " + players);
+		if (rounds.size() > MAX_ROUNDS)
+			throw new IllegalArgumentException("Round count must be <= " + MAX_ROUNDS
+					+ ", got " + rounds.size());
+		this.playerCount = players.size();
+		int colours = 0;
+		for (int i = 0; i < playerCount; i++)
+			colours |= players.get(i).ordinal() << 3 * i;
+		this.colours = colours;
+		this.roundCount = rounds.size();
+		long reveals = 0;
+		for (int r = 0; r < roundCount; r++)
+			if (rounds.get(r)) reveals |= 1L << r;
+		this.reveals = reveals;
+	}
+
+	/**
+	 * Copy constructor, the history of moves made is not copied
+	 *
+	 * @param state the state to copy from
+	 */
+	public GameState(GameState state) {
+		this.playerCount = state.playerCount;
+		this.colours = state.colours;
+		this.roundCount = state.roundCount;
+		this.reveals = state.reveals;
+		this.locations = state.locations;
+		System.arraycopy(state.tickets, 0, tickets, 0, MAX_PLAYERS);
+		this.status = state.status;
+		this.hash = state.hash;
+	}
+
+	/**
+	 * Same as {@link #of(ScotlandYardView, int)} with Mr.X on his last known
+	 * location
+	 */
+	public static GameState of(ScotlandYardView view) {
+		return of(view, view.getPlayerLocation(BLACK).orElse(0));
+	}
+
+	/**
+	 * Captures the state of a game
+	 *
+	 * @param view the game; not null
+	 * @param mrXLocation Mr.X's actual location, e.g the location given to
+	 *        his {@link Player}
+	 * @return a new state
+	 * @throws IllegalArgumentException if the game does not fit, see
+	 *         {@link #MAX_PLAYERS}, {@link #MAX_ROUNDS}, {@link #MAX_TICKETS}
+	 *         and {@link PackedMove#MAX_DESTINATION}
+	 */
+	public static GameState of(ScotlandYardView view, int mrXLocation) {
+		List<Colour> players = view.getPlayers();
+		GameState state = new GameState(players, view.getRounds());
+		for (int i = 0; i < players.size(); i++) {
+			Colour colour = players.get(i);
+			int location = i == 0 ? mrXLocation : view.getPlayerLocation(colour).orElse(0);
+			state.locations |= (long) checkLocation(location) << LOCATION_BITS * i;
+			for (Ticket ticket : TICKETS) {
+				int count = view.getPlayerTickets(colour, ticket).orElse(0);
+				if (count < -MAX_TICKETS || count > MAX_TICKETS) throw new IllegalArgumentException(
+						colour + " has " + count + " " + ticket + " tickets");
+				state.tickets[i] = adjust(state.tickets[i], ticket.ordinal(), count);
+			}
+		}
+		int round = view.getCurrentRound();
+		if (round < 0 || round > state.roundCount)
+			throw new IllegalArgumentException("Round " + round + " is not in [0, "
+					+ state.roundCount + "]");
+		int player = players.indexOf(view.getCurrentPlayer());
+		if (player < 0) throw new IllegalArgumentException(
+				"Current player " + view.getCurrentPlayer() + " is not playing");
+		int lastKnown = checkLocation(view.getPlayerLocation(BLACK).orElse(0));
+		state.status = round | (long) player << PLAYER | (long) lastKnown << LAST_KNOWN;
+		state.hash = state.computeHash();
+		return state;
+	}
+
+	private static int checkLocation(int location) {
+		if (location < 0 || location > PackedMove.MAX_DESTINATION)
+			throw new IllegalArgumentException("location " + location + " is not in [0, "
+					+ PackedMove.MAX_DESTINATION + "]");
+		return location;
+	}
+
+	/**
+	 * @return the number of players, Mr.X included
+	 */
+	public int playerCount() {
+		return playerCount;
+	}
+
+	/**
+	 * @param player the player, in {@code [0, playerCount())}
+	 * @return the colour of the player
+	 */
+	public Colour colour(int player) {
+		return COLOURS[colours >>> 3 * checkPlayer(player) & 7];
+	}
+
+	/**
+	 * @param player the player, in {@code [0, playerCount())}
+	 * @return the location of the player, Mr.X's actual location for player 0
+	 */
+	public int location(int player) {
+		return (int) (locations >>> LOCATION_BITS * checkPlayer(player)) & PackedMove.MAX_DESTINATION;
+	}
+
+	/**
+	 * @param player the player, in {@code [0, playerCount())}
+	 * @param ticket the ticket; not null
+	 * @return the number of the given ticket the player has
+	 */
+	public int tickets(int player, Ticket ticket) {
+		return count(tickets[checkPlayer(player)], ticket.ordinal());
+	}
+
+	private static int count(long tickets, int ticket) {
+		return (int) (tickets << Long.SIZE - TICKET_BITS * (ticket + 1) >> Long.SIZE - TICKET_BITS);
+	}
+
+	// Adds to the count of a ticket, the result must fit
+	private static long adjust(long tickets, int ticket, int by) {
+		int count = count(tickets, ticket) + by;
+		if (count < -MAX_TICKETS || count > MAX_TICKETS)
+			throw new IllegalStateException("Ticket count " + count + " does not fit");
+		int shift = TICKET_BITS * ticket;
+		return tickets & ~(TICKET_MASK << shift) | (count & TICKET_MASK) << shift;
+	}
+
+	private int checkPlayer(int player) {
+		if (player < 0 || player >= playerCount) throw new IndexOutOfBoundsException(
+				"player " + player + " is not in [0, " + playerCount + ")");
+		return player;
+	}
+
+	/**
+	 * @return the player to move next
+	 */
+	public int currentPlayer() {
+		return (int) (status >>> PLAYER) & 7;
+	}
+
+	/**
+	 * @return the number of rounds played, as
+	 *         {@link ScotlandYardView#getCurrentRound()}
+	 */
+	public int currentRound() {
+		return (int) status & 0xFF;
+	}
+
+	/**
+	 * @return the number of rounds in the game
+	 */
+	public int roundCount() {
+		return roundCount;
+	}
+
+	/**
+	 * @return Mr.X's location as the detectives see it, as
+	 *         {@link ScotlandYardView#getPlayerLocation(Colour)}
+	 */
+	public int mrXLastKnownLocation() {
+		return (int) (status >>> LAST_KNOWN) & PackedMove.MAX_DESTINATION;
+	}
+
+	/**
+	 * @return true if a detective is on Mr.X's location
+	 */
+	public boolean isMrXCaptured() {
+		int mrX = location(0);
+		for (int i = 1; i < playerCount; i++)
+			if (location(i) == mrX) return true;
+		return false;
+	}
+
+	/**
+	 * @return the number of moves that can be taken back
+	 */
+	public int depth() {
+		return depth;
+	}
+
+	/**
+	 * Makes a move of the current player. Like
+	 * {@link ScotlandYardModel#visit(TicketMove)} and
+	 * {@link ScotlandYardModel#visit(DoubleMove)} this does not check the
+	 * player has the tickets used.
+	 *
+	 * @param move the packed move
+	 * @throws IllegalArgumentException if the move is not of the current
+	 *         player or a detective makes a double move
+	 * @throws IllegalStateException if a ticket count would not fit, see
+	 *         {@link #MAX_TICKETS}
+	 */
+	public void makeMove(int move) {
+		int player = currentPlayer();
+		if (PackedMove.colour(move).ordinal() != (colours >>> 3 * player & 7))
+			throw new IllegalArgumentException(PackedMove.toString(move) + " is not a move of "
+					+ colour(player));
+		int kind = PackedMove.kind(move);
+		long moverTickets = tickets[player];
+		long mrXTickets = tickets[0];
+		long nextMover = moverTickets;
+		long nextMrX = mrXTickets;
+		long nextLocations = locations;
+		int round = currentRound();
+		int lastKnown = mrXLastKnownLocation();
+		if (kind == PackedMove.TICKET) {
+			int ticket = PackedMove.firstTicket(move).ordinal();
+			int destination = PackedMove.firstDestination(move);
+			int shift = LOCATION_BITS * player;
+			nextLocations = nextLocations & ~((long) PackedMove.MAX_DESTINATION << shift)
+					| (long) destination << shift;
+			nextMover = adjust(moverTickets, ticket, -1);
+			if (player == 0) {
+				nextMrX = nextMover;
+				if (round < MAX_ROUNDS && (reveals >>> round & 1) != 0) lastKnown = destination;
+				round++;
+			} else {
+				// detectives pay Mr.X
+				nextMrX = adjust(mrXTickets, ticket, 1);
+			}
+		} else if (kind == PackedMove.DOUBLE) {
+			if (player != 0) throw new IllegalArgumentException(
+					"Only Mr.X can make " + PackedMove.toString(move));
+			nextMrX = adjust(mrXTickets, Ticket.DOUBLE.ordinal(), -1);
+			nextMrX = adjust(nextMrX, PackedMove.firstTicket(move).ordinal(), -1);
+			nextMrX = adjust(nextMrX, PackedMove.secondTicket(move).ordinal(), -1);
+			nextMover = nextMrX;
+			// shifts are taken modulo 64, rounds past the last are never revealed
+			if (round < MAX_ROUNDS && (reveals >>> round & 1) != 0)
+				lastKnown = PackedMove.firstDestination(move);
+			if (round + 1 < MAX_ROUNDS && (reveals >>> round + 1 & 1) != 0)
+				lastKnown = PackedMove.secondDestination(move);
+			round += 2;
+			nextLocations = nextLocations & ~(long) PackedMove.MAX_DESTINATION
+					| PackedMove.secondDestination(move);
+		}
+
+		long nextStatus = round | (long) ((player + 1) % playerCount) << PLAYER
+				| (long) lastKnown << LAST_KNOWN;
+		long nextHash = hash ^ ticketKeys(player, moverTickets, nextMover)
+				^ statusKeys(status, nextStatus);
+		if (player != 0) nextHash ^= ticketKeys(0, mrXTickets, nextMrX);
+		if (nextLocations != locations) nextHash ^= Zobrist.location(colour(player), location(player))
+				^ Zobrist.location(colour(player), (int) (nextLocations >>> LOCATION_BITS * player)
+						& PackedMove.MAX_DESTINATION);
+
+		if (depth * HISTORY == history.length) history = Arrays.copyOf(history, history.length * 2);
+		int top = depth * HISTORY;
+		history[top] = locations;
+		history[top + 1] = status;
+		history[top + 2] = moverTickets;
+		history[top + 3] = mrXTickets;
+		history[top + 4] = hash;
+		depth++;
+		tickets[player] = nextMover;
+		tickets[0] = nextMrX;
+		locations = nextLocations;
+		status = nextStatus;
+		hash = nextHash;
+	}
+
+	// The keys of the ticket counts of a player that differ between the two
+	private long ticketKeys(int player, long tickets, long nextTickets) {
+		long keys = 0;
+		if (tickets == nextTickets) return keys;
+		Colour colour = colour(player);
+		for (int t = 0; t < TICKETS.length; t++) {
+			int count = count(tickets, t), next = count(nextTickets, t);
+			if (count != next)
+				keys ^= Zobrist.tickets(colour, TICKETS[t], count)
+						^ Zobrist.tickets(colour, TICKETS[t], next);
+		}
+		return keys;
+	}
+
+	// The keys of the round, player to move and last known location that differ between the two
+	private long statusKeys(long status, long nextStatus) {
+		long keys = 0;
+		int round = (int) status & 0xFF, nextRound = (int) nextStatus & 0xFF;
+		if (round != nextRound) keys ^= Zobrist.round(round) ^ Zobrist.round(nextRound);
+		int player = (int) (status >>> PLAYER) & 7, nextPlayer = (int) (nextStatus >>> PLAYER) & 7;
+		if (player != nextPlayer)
+			keys ^= Zobrist.toMove(colour(player)) ^ Zobrist.toMove(colour(nextPlayer));
+		int lastKnown = (int) (status >>> LAST_KNOWN) & PackedMove.MAX_DESTINATION;
+		int nextLastKnown = (int) (nextStatus >>> LAST_KNOWN) & PackedMove.MAX_DESTINATION;
+		if (lastKnown != nextLastKnown)
+			keys ^= Zobrist.lastKnown(lastKnown) ^ Zobrist.lastKnown(nextLastKnown);
+		return keys;
+	}
+
+	// Hashes the state from scratch, see Zobrist#hash(ScotlandYardView, int)
+	private long computeHash() {
+		long hash = Zobrist.round(currentRound()) ^ Zobrist.toMove(colour(currentPlayer()))
+				^ Zobrist.lastKnown(mrXLastKnownLocation());
+		for (int i = 0; i < playerCount; i++) {
+			hash ^= Zobrist.location(colour(i), location(i));
+			for (Ticket ticket : TICKETS)
+				hash ^= Zobrist.tickets(colour(i), ticket, tickets(i, ticket));
+		}
+		return hash;
+	}
+
+	/**
+	 * @return the Zobrist hash of the state, see {@link Zobrist}
+	 */
+	public long zobristHash() {
+		return hash;
+	}
+
+	/**
+	 * Takes back the last move made
+	 *
+	 * @throws IllegalStateException if no move was made since the state was
+	 *         created
+	 */
+	public void unmakeMove() {
+		if (depth == 0) throw new IllegalStateException("No move to take back");
+		depth--;
+		int top = depth * HISTORY;
+		locations = history[top];
+		status = history[top + 1];
+		tickets[currentPlayer()] = history[top + 2];
+		tickets[0] = history[top + 3];
+		hash = history[top + 4];
+	}
+
+	/**
+	 * Appends the valid moves of the current player, the moves
+	 * {@link ScotlandYardModel} would give the player in this state
+	 *
+	 * @param adjacency the map; not null
+	 * @param into the list to append to; not null
+	 * @return the given list
+	 */
+	public MoveList moves(TransportAdjacency adjacency, MoveList into) {
+		Objects.requireNonNull(into);
+		long[] occupied = adjacency.emptySet();
+		for (int i = 1; i < playerCount; i++) {
+			int location = location(i);
+			if (location < occupied.length * Long.SIZE) NodeBits.add(occupied, location);
+		}
+		int player = currentPlayer();
+		int[] counts = new int[TICKETS.length];
+		for (int t = 0; t < TICKETS.length; t++)
+			counts[t] = count(tickets[player], t);
+		Colour colour = colour(player);
+		int size = into.size();
+		MoveGenerator generator = new MoveGenerator(adjacency, occupied, colour, counts,
+				location(player), currentRound() != roundCount - 1);
+		for (int move = generator.nextPacked(); move != 0; move = generator.nextPacked())
+			into.add(move);
+		// a detective with nowhere to go passes
+		if (colour.isDetective() && into.size() == size) into.add(PackedMove.pass(colour));
+		return into;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof GameState)) return false;
+		GameState that = (GameState) o;
+		return playerCount == that.playerCount && colours == that.colours
+				&& roundCount == that.roundCount && reveals == that.reveals
+				&& locations == that.locations && status == that.status
+				&& Arrays.equals(tickets, that.tickets);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = Long.hashCode(locations);
+		hash = 31 * hash + Long.hashCode(status);
+		hash = 31 * hash + Arrays.hashCode(tickets);
+		hash = 31 * hash + colours;
+		return 31 * hash + Long.hashCode(reveals);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("GameState{round=").append(currentRound())
+				.append(", current=").append(colour(currentPlayer()));
+		for (int i = 0; i < playerCount; i++)
+			sb.append(", ").append(colour(i)).append('@').append(location(i));
+		return sb.append(", lastKnown=").append(mrXLastKnownLocation()).append('}').toString();
+	}
+
+}
@@ -0,0 +1,160 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+import uk.ac.bris.cs.gamekit.matrix.SparseMatrix;
+
+/**
+ * Propagates a probability distribution of a hidden player's location over a
+ * Scotland Yard map, one {@link TicketMove} at a time. The player is assumed
+ * to move from its node to one of the distinct neighbours the ticket can
+ * reach, chosen uniformly: a {@link Ticket#TAXI}, {@link Ticket#BUS} or
+ * {@link Ticket#UNDERGROUND} ticket reaches neighbours over its transport, a
+ * {@link Ticket#SECRET} ticket reaches neighbours over any transport.
+ * <br>
+ * Distributions are arrays indexed by node value, {@link #size()} long, and
+ * every ticket has a {@link SparseMatrix} of transition probabilities, so a
+ * step on the standard map takes a few microseconds. Occupied nodes are
+ * bitsets in the format of {@link NodeBits}. Instances are immutable.
+ */
+public final class LocationPropagator {
+
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private final int size;
+	private final long[] nodes;
+	// [ticket ordinal], column is the source node and row the destination
+	private final SparseMatrix[] transitions = new SparseMatrix[TICKETS.length];
+
+	private LocationPropagator(Graph<Integer, Transport> graph) {
+		int maxValue = 0;
+		for (Node<Integer> node : graph.getNodes()) {
+			if (node.value() < 0)
+				throw new IllegalArgumentException(node + " has a negative value");
+			maxValue = Math.max(maxValue, node.value());
+		}
+		this.size = maxValue + 1;
+		this.nodes = NodeBits.create(maxValue);
+		for (Node<Integer> node : graph.getNodes())
+			NodeBits.add(nodes, node.value());
+
+		TransportAdjacency adjacency = TransportAdjacency.of(graph);
+		for (Ticket ticket : TICKETS) {
+			if (ticket == Ticket.DOUBLE) continue;
+			SparseMatrix.Builder builder = new SparseMatrix.Builder(size, size);
+			int transports = TransportAdjacency.transportsOf(ticket);
+			for (int source = NodeBits.next(nodes, 0); source != -1;
+					source = NodeBits.next(nodes, source + 1)) {
+				int count = 0;
+				for (int i = adjacency.start(source); i < adjacency.end(source); i++)
+					if ((adjacency.transports(i) & transports) != 0) count++;
+				for (int i = adjacency.start(source); i < adjacency.end(source); i++)
+					if ((adjacency.transports(i) & transports) != 0)
+						builder.add(adjacency.neighbour(i), source, 1.0 / count);
+			}
+			transitions[ticket.ordinal()] = builder.build();
+		}
+	}
+
+	/**
+	 * Builds the transition matrices for the given graph
+	 *
+	 * @param graph the graph; not null, all node values must be non-negative
+	 * @return the propagator; never null
+	 */
+	public static LocationPropagator of(Graph<Integer, Transport> graph) {
+		return new LocationPropagator(Objects.requireNonNull(graph));
+	}
+
+	/**
+	 * @return the length of distributions, the largest node value plus one
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return a new bitset of the nodes in the graph
+	 */
+	public long[] nodes() {
+		return nodes.clone();
+	}
+
+	/**
+	 * @param ticket the ticket; not null and not {@link Ticket#DOUBLE}
+	 * @return the transition matrix of the ticket, cell {@code (to, from)} is
+	 *         the probability of moving from {@code from} to {@code to}
+	 */
+	public SparseMatrix transitions(Ticket ticket) {
+		SparseMatrix matrix = transitions[Objects.requireNonNull(ticket).ordinal()];
+		if (matrix == null)
+			throw new IllegalArgumentException(ticket + " does not move a player by itself");
+		return matrix;
+	}
+
+	/**
+	 * Creates a distribution with the same probability for each given node
+	 *
+	 * @param candidates the nodes; not null
+	 * @return a new distribution, all zero if no given node is in the graph
+	 */
+	public double[] uniform(long[] candidates) {
+		double[] distribution = new double[size];
+		int count = 0;
+		for (int node = NodeBits.next(candidates, 0); node != -1 && node < size;
+				node = NodeBits.next(candidates, node + 1))
+			if (NodeBits.contains(nodes, node)) count++;
+		for (int node = NodeBits.next(candidates, 0); node != -1 && node < size;
+				node = NodeBits.next(candidates, node + 1))
+			if (NodeBits.contains(nodes, node)) distribution[node] = 1.0 / count;
+		return distribution;
+	}
+
+	/**
+	 * Moves a distribution by one ticket, then removes the occupied nodes
+	 * from it, see {@link #exclude(double[], long[])}
+	 *
+	 * @param from the distribution before the move; not null
+	 * @param ticket the ticket used; not null and not {@link Ticket#DOUBLE}
+	 * @param occupied the nodes the player cannot be on after the move; not
+	 *        null
+	 * @param to the array to write the distribution after the move to; not
+	 *        null and not the given distribution
+	 * @return the probability of the move ending on a node that is not
+	 *         occupied; 0 if the move is impossible, then {@code to} is all
+	 *         zero
+	 */
+	public double propagate(double[] from, Ticket ticket, long[] occupied, double[] to) {
+		transitions(ticket).multiply(from, to);
+		return exclude(to, occupied);
+	}
+
+	/**
+	 * Sets the probability of the occupied nodes to zero and scales the rest
+	 * to sum to one
+	 *
+	 * @param distribution the distribution to change; not null
+	 * @param occupied the nodes to exclude; not null
+	 * @return the probability of the nodes kept, before scaling
+	 */
+	public double exclude(double[] distribution, long[] occupied) {
+		for (int node = NodeBits.next(occupied, 0); node != -1 && node < size;
+				node = NodeBits.next(occupied, node + 1))
+			distribution[node] = 0;
+		double sum = 0;
+		for (double probability : distribution)
+			sum += probability;
+		if (sum > 0) for (int i = 0; i < distribution.length; i++)
+			distribution[i] /= sum;
+		return sum;
+	}
+
+	@Override
+	public String toString() {
+		return "LocationPropagator{" + "size=" + size + '}';
+	}
+
+}
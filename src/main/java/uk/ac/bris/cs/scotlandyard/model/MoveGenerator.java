@@ -0,0 +1,242 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+
+/**
+ * Generates the ticket and double moves of a player one at a time, following
+ * the rules of {@link ScotlandYardModel}'s valid moves.
+ * <br>
+ * Moves are grouped by the destination of their first ticket; the moves of
+ * one destination are worked out when the first of them is asked for, so
+ * consumers that stop early never build the rest. Groups are disjoint, so a
+ * generator splits by ranges of first destinations without sharing state.
+ * The occupied nodes and ticket counts are copied on creation. Moves can be
+ * taken as {@link Move}s or packed with {@link PackedMove}.
+ */
+final class MoveGenerator implements Spliterator<Move> {
+
+	private static final Transport[] TRANSPORTS = Transport.values();
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private final TransportAdjacency adjacency;
+	private final long[] occupied;
+	private final int[] counts; // ticket counts by ordinal
+	private final Colour colour;
+	private final int location;
+	private final boolean doubles; // whether double moves are allowed at all
+	private int cursor; // index of the next neighbour of location to look at
+	private int fence; // neighbours of location are looked at below this index
+
+	private int first = -1; // first destination of the current group, -1 if none
+	private int firstTickets; // bit t if the ticket of ordinal t travels to first
+	private int singles; // bit t if a TicketMove with ticket t to first is pending
+	private int secondCursor = -1; // index of the next neighbour of first, -1 if none
+	private int second;
+	private int pairs; // bit t1 * TICKETS + t2 if a DoubleMove to second is pending
+	private int ticket; // ticket ordinal of the last TicketMove, see advance
+	private int pair; // bit of pairs of the last DoubleMove, see advance
+
+	/**
+	 * @param adjacency the map; not null
+	 * @param occupied the detective locations, see {@link TransportAdjacency};
+	 *        not null
+	 * @param player the player; not null
+	 * @param location the location of the player
+	 * @param doubles whether double moves may be made this round
+	 */
+	MoveGenerator(TransportAdjacency adjacency, long[] occupied, ScotlandYardPlayer player,
+			int location, boolean doubles) {
+		this(adjacency, occupied.clone(), player.colour(), counts(player), location, doubles);
+	}
+
+	/**
+	 * Same as {@link #MoveGenerator(TransportAdjacency, long[],
+	 * ScotlandYardPlayer, int, boolean)} with the given arrays used as they
+	 * are, they must not change while moves are generated
+	 *
+	 * @param counts the ticket counts of the player by ordinal; not null
+	 */
+	MoveGenerator(TransportAdjacency adjacency, long[] occupied, Colour colour, int[] counts,
+			int location, boolean doubles) {
+		this.adjacency = adjacency;
+		this.occupied = occupied;
+		this.counts = counts;
+		this.colour = colour;
+		this.location = location;
+		this.doubles = doubles && colour.isMrX() && hasTicket(Ticket.DOUBLE.ordinal());
+		this.cursor = adjacency.start(location);
+		this.fence = adjacency.end(location);
+	}
+
+	private static int[] counts(ScotlandYardPlayer player) {
+		int[] counts = new int[TICKETS.length];
+		for (Ticket ticket : TICKETS)
+			counts[ticket.ordinal()] = player.wallet().count(ticket);
+		return counts;
+	}
+
+	private MoveGenerator(MoveGenerator parent, int cursor, int fence) {
+		this.adjacency = parent.adjacency;
+		this.occupied = parent.occupied;
+		this.counts = parent.counts;
+		this.colour = parent.colour;
+		this.location = parent.location;
+		this.doubles = parent.doubles;
+		this.cursor = cursor;
+		this.fence = fence;
+	}
+
+	private boolean has(Ticket ticket, int quantity) {
+		return counts[ticket.ordinal()] >= quantity;
+	}
+
+	private boolean hasTicket(int ordinal) {
+		return counts[ordinal] != 0;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Move> action) {
+		switch (advance()) {
+			case PackedMove.TICKET:
+				action.accept(Moves.ticket(colour, TICKETS[ticket], first));
+				return true;
+			case PackedMove.DOUBLE:
+				action.accept(Moves.doubleMove(colour, TICKETS[pair / TICKETS.length], first,
+						TICKETS[pair % TICKETS.length], second));
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * @return the next move packed with {@link PackedMove}, 0 if there are no
+	 *         more moves
+	 */
+	int nextPacked() {
+		switch (advance()) {
+			case PackedMove.TICKET:
+				return PackedMove.ticket(colour, TICKETS[ticket], first);
+			case PackedMove.DOUBLE:
+				return PackedMove.doubleMove(colour, TICKETS[pair / TICKETS.length], first,
+						TICKETS[pair % TICKETS.length], second);
+			default:
+				return 0;
+		}
+	}
+
+	// Moves on to the next move and returns its PackedMove kind, 0 if there is none
+	private int advance() {
+		while (true) {
+			if (singles != 0) {
+				ticket = Integer.numberOfTrailingZeros(singles);
+				singles &= singles - 1;
+				return PackedMove.TICKET;
+			}
+			if (pairs != 0) {
+				pair = Integer.numberOfTrailingZeros(pairs);
+				pairs &= pairs - 1;
+				return PackedMove.DOUBLE;
+			}
+			if (secondCursor >= 0 && nextSecond()) continue;
+			if (!nextFirst()) return 0;
+		}
+	}
+
+	// Moves on to the next free neighbour of location in [cursor, fence)
+	private boolean nextFirst() {
+		first = -1;
+		secondCursor = -1;
+		while (cursor < fence) {
+			int index = cursor++;
+			int destination = adjacency.neighbour(index);
+			if (NodeBits.contains(occupied, destination)) continue;
+			firstTickets = 0;
+			singles = 0;
+			for (Transport transport : TRANSPORTS) {
+				if (!adjacency.connects(index, transport)) continue;
+				int ticket = Ticket.fromTransport(transport).ordinal();
+				firstTickets |= 1 << ticket;
+				if (hasTicket(ticket)) singles |= 1 << ticket;
+			}
+			if (colour.isMrX() && hasTicket(SECRET.ordinal())) singles |= 1 << SECRET.ordinal();
+			first = destination;
+			if (doubles) secondCursor = adjacency.start(destination);
+			return true;
+		}
+		return false;
+	}
+
+	// Moves on to the next free neighbour of first reachable with a ticket held
+	private boolean nextSecond() {
+		int end = adjacency.end(first);
+		while (secondCursor < end) {
+			int index = secondCursor++;
+			second = adjacency.neighbour(index);
+			if (NodeBits.contains(occupied, second)) continue;
+			int secondTickets = 0;
+			for (Transport transport : TRANSPORTS) {
+				int ticket = Ticket.fromTransport(transport).ordinal();
+				if (hasTicket(ticket) && adjacency.connects(index, transport))
+					secondTickets |= 1 << ticket;
+			}
+			if (secondTickets == 0) continue;
+			pairs = pairs(secondTickets);
+			return true;
+		}
+		secondCursor = -1;
+		return false;
+	}
+
+	// The ticket pairs of DoubleMoves to second, see ScotlandYardModel#getDoubleMoves
+	private int pairs(int secondTickets) {
+		int secret = SECRET.ordinal();
+		int pairs = 0;
+		for (int t1 = 0; t1 < TICKETS.length; t1++) {
+			if ((firstTickets & 1 << t1) == 0) continue;
+			for (int t2 = 0; t2 < TICKETS.length; t2++) {
+				if ((secondTickets & 1 << t2) == 0) continue;
+				if (hasTicket(SECRET.ordinal())) {
+					pairs |= 1 << (t1 * TICKETS.length + secret);
+					pairs |= 1 << (secret * TICKETS.length + t2);
+				}
+				if (has(SECRET, 2)) pairs |= 1 << (secret * TICKETS.length + secret);
+				if (t1 != t2 || counts[t1] >= 2) pairs |= 1 << (t1 * TICKETS.length + t2);
+			}
+		}
+		return pairs;
+	}
+
+	/**
+	 * Splits off the upper half of the neighbours of the location not looked
+	 * at yet, the current group stays with this generator
+	 */
+	@Override
+	public Spliterator<Move> trySplit() {
+		if (fence - cursor < 2) return null;
+		int middle = (cursor + fence) >>> 1;
+		MoveGenerator upper = new MoveGenerator(this, middle, fence);
+		fence = middle;
+		return upper;
+	}
+
+	/**
+	 * @return the number of neighbours of the location left to look at, not
+	 *         the number of moves
+	 */
+	@Override
+	public long estimateSize() {
+		return fence - cursor + (first >= 0 ? 1 : 0);
+	}
+
+	@Override
+	public int characteristics() {
+		return DISTINCT | NONNULL | IMMUTABLE;
+	}
+
+}
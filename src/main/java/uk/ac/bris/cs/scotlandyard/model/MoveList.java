@@ -0,0 +1,165 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A growable list of moves packed with {@link PackedMove}, backed by an
+ * {@code int[]}.
+ * <br>
+ * {@link #truncate(int)} drops the moves after a mark without freeing
+ * anything, so one list can serve as the move stack of a search: each level
+ * appends its moves, then truncates back to where it started.
+ */
+public final class MoveList {
+
+	private int[] moves;
+	private int size;
+
+	/**
+	 * Creates an empty list
+	 */
+	public MoveList() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty list
+	 *
+	 * @param capacity the number of moves to make room for, must be &gt;= 0
+	 */
+	public MoveList(int capacity) {
+		if (capacity < 0) throw new IllegalArgumentException("capacity " + capacity + " < 0");
+		this.moves = new int[capacity];
+	}
+
+	/**
+	 * Creates a list of the given moves, in iteration order
+	 *
+	 * @param moves the moves; not null
+	 * @return a new list
+	 */
+	public static MoveList of(Collection<? extends Move> moves) {
+		MoveList list = new MoveList(moves.size());
+		for (Move move : moves)
+			list.add(PackedMove.encode(move));
+		return list;
+	}
+
+	/**
+	 * @return the number of moves in the list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the list has no moves
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param index the index, in {@code [0, size())}
+	 * @return the packed move at the index
+	 */
+	public int get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+		return moves[index];
+	}
+
+	/**
+	 * Appends a move
+	 *
+	 * @param move the packed move
+	 */
+	public void add(int move) {
+		if (size == moves.length) moves = Arrays.copyOf(moves, Math.max(16, size * 2));
+		moves[size++] = move;
+	}
+
+	/**
+	 * Drops every move from the given index on
+	 *
+	 * @param size the new size, in {@code [0, size()]}
+	 */
+	public void truncate(int size) {
+		if (size < 0 || size > this.size)
+			throw new IndexOutOfBoundsException("size " + size + ", was " + this.size);
+		this.size = size;
+	}
+
+	/**
+	 * Drops every move
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @param move the packed move
+	 * @return true if the list has the move
+	 */
+	public boolean contains(int move) {
+		for (int i = 0; i < size; i++)
+			if (moves[i] == move) return true;
+		return false;
+	}
+
+	/**
+	 * Sorts the moves from the given index on by their packed value
+	 *
+	 * @param from the first index to sort, in {@code [0, size()]}
+	 */
+	public void sort(int from) {
+		if (from < 0 || from > size)
+			throw new IndexOutOfBoundsException("from " + from + ", size " + size);
+		Arrays.sort(moves, from, size);
+	}
+
+	/**
+	 * @return a new array of the packed moves
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(moves, size);
+	}
+
+	/**
+	 * @return a new list of the moves, decoded
+	 */
+	public List<Move> toMoves() {
+		List<Move> decoded = new ArrayList<>(size);
+		for (int i = 0; i < size; i++)
+			decoded.add(PackedMove.decode(moves[i]));
+		return decoded;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof MoveList)) return false;
+		MoveList that = (MoveList) o;
+		if (size != that.size) return false;
+		for (int i = 0; i < size; i++)
+			if (moves[i] != that.moves[i]) return false;
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < size; i++)
+			hash = 31 * hash + moves[i];
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return toMoves().toString();
+	}
+
+}
@@ -0,0 +1,123 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A factory of canonical {@link Move} instances.
+ * <br>
+ * Each distinct move with destinations in
+ * {@code [0, PackedMove.MAX_DESTINATION]} is created once and handed out
+ * again on every later request, so generating moves that were seen before
+ * allocates nothing and equal moves from here are usually the same instance.
+ * Moves with other destinations are created every time. Safe to use from
+ * any thread.
+ */
+public final class Moves {
+
+	private static final Colour[] COLOURS = Colour.values();
+	private static final Ticket[] TICKETS = Ticket.values();
+	private static final int DESTINATIONS = PackedMove.MAX_DESTINATION + 1;
+	private static final int CHUNK_BITS = 6;
+	private static final int CHUNK = 1 << CHUNK_BITS; // second destinations per chunk
+	private static final int CHUNKS = DESTINATIONS >>> CHUNK_BITS; // chunks per second ticket
+
+	private static final PassMove[] PASSES = new PassMove[COLOURS.length];
+	// [(colour * TICKETS + ticket) * DESTINATIONS + destination]
+	private static final AtomicReferenceArray<TicketMove> TICKET_MOVES =
+			new AtomicReferenceArray<>(COLOURS.length * TICKETS.length * DESTINATIONS);
+	// the double moves of each first move, indexed as TICKET_MOVES, in chunks
+	// [second ticket * CHUNKS + second destination / CHUNK][second destination % CHUNK]
+	// created as they are first needed
+	private static final AtomicReferenceArray<AtomicReferenceArray<AtomicReferenceArray<DoubleMove>>>
+			DOUBLE_MOVES = new AtomicReferenceArray<>(COLOURS.length * TICKETS.length * DESTINATIONS);
+
+	static {
+		for (Colour colour : COLOURS)
+			PASSES[colour.ordinal()] = new PassMove(colour);
+	}
+
+	private Moves() {
+		// nope
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @return the canonical pass move
+	 */
+	public static PassMove pass(Colour colour) {
+		return PASSES[colour.ordinal()];
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param ticket the ticket; not null
+	 * @param destination the destination
+	 * @return the canonical ticket move
+	 */
+	public static TicketMove ticket(Colour colour, Ticket ticket, int destination) {
+		if (destination < 0 || destination >= DESTINATIONS)
+			return new TicketMove(colour, ticket, destination);
+		int index = index(colour, ticket, destination);
+		TicketMove move = TICKET_MOVES.get(index);
+		if (move != null) return move;
+		TICKET_MOVES.compareAndSet(index, null, new TicketMove(colour, ticket, destination));
+		return TICKET_MOVES.get(index);
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param first the ticket of the first move; not null
+	 * @param firstDestination the destination of the first move
+	 * @param second the ticket of the second move; not null
+	 * @param secondDestination the destination of the second move
+	 * @return the canonical double move
+	 */
+	public static DoubleMove doubleMove(Colour colour, Ticket first, int firstDestination,
+			Ticket second, int secondDestination) {
+		if (firstDestination < 0 || firstDestination >= DESTINATIONS || secondDestination < 0
+				|| secondDestination >= DESTINATIONS)
+			return new DoubleMove(colour, first, firstDestination, second, secondDestination);
+		AtomicReferenceArray<DoubleMove> chunk = array(array(DOUBLE_MOVES,
+				index(colour, first, firstDestination), TICKETS.length * CHUNKS),
+				second.ordinal() * CHUNKS + (secondDestination >>> CHUNK_BITS), CHUNK);
+		int index = secondDestination & CHUNK - 1;
+		DoubleMove move = chunk.get(index);
+		if (move != null) return move;
+		chunk.compareAndSet(index, null, new DoubleMove(colour,
+				ticket(colour, first, firstDestination), ticket(colour, second, secondDestination)));
+		return chunk.get(index);
+	}
+
+	// Returns the array at the index, creating it if there is none yet
+	private static <T> AtomicReferenceArray<T> array(
+			AtomicReferenceArray<AtomicReferenceArray<T>> arrays, int index, int length) {
+		AtomicReferenceArray<T> array = arrays.get(index);
+		if (array != null) return array;
+		arrays.compareAndSet(index, null, new AtomicReferenceArray<>(length));
+		return arrays.get(index);
+	}
+
+	/**
+	 * @param move the move; not null
+	 * @return the canonical instance of a move equal to the given one
+	 */
+	public static Move canonical(Move move) {
+		if (move instanceof TicketMove) {
+			TicketMove ticketMove = (TicketMove) move;
+			return ticket(move.colour(), ticketMove.ticket(), ticketMove.destination());
+		}
+		if (move instanceof DoubleMove) {
+			DoubleMove doubleMove = (DoubleMove) move;
+			return doubleMove(move.colour(), doubleMove.firstMove().ticket(),
+					doubleMove.firstMove().destination(), doubleMove.secondMove().ticket(),
+					doubleMove.secondMove().destination());
+		}
+		if (move instanceof PassMove) return pass(move.colour());
+		return move;
+	}
+
+	private static int index(Colour colour, Ticket ticket, int destination) {
+		return (colour.ordinal() * TICKETS.length + ticket.ordinal()) * DESTINATIONS + destination;
+	}
+
+}
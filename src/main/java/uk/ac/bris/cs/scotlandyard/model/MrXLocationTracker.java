@@ -0,0 +1,128 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+
+/**
+ * A {@link Spectator} that keeps the probability of Mr.X being on each node
+ * of the map, as seen by the detectives.
+ * <br>
+ * Every move of Mr.X is a {@link TicketMove} once a {@link DoubleMove} is
+ * announced in parts. A revealed move puts Mr.X on its destination, a hidden
+ * one is propagated by its ticket with {@link LocationPropagator}. Nodes
+ * occupied by detectives are excluded after every move. If the moves seen
+ * cannot be explained(e.g Mr.X did not start on a candidate node) the
+ * distribution starts over from all nodes that are not occupied.
+ */
+public final class MrXLocationTracker implements Spectator {
+
+	private final LocationPropagator propagator;
+	private final long[] occupied;
+	private double[] probabilities;
+	private double[] scratch;
+
+	/**
+	 * Creates a tracker that starts with every node equally likely
+	 *
+	 * @param graph the graph; not null
+	 */
+	public MrXLocationTracker(Graph<Integer, Transport> graph) {
+		this(LocationPropagator.of(graph));
+	}
+
+	/**
+	 * Creates a tracker that starts with every node equally likely
+	 *
+	 * @param propagator the propagator for the map; not null
+	 */
+	public MrXLocationTracker(LocationPropagator propagator) {
+		this.propagator = Objects.requireNonNull(propagator);
+		this.occupied = new long[NodeBits.words(propagator.size() - 1)];
+		this.probabilities = propagator.uniform(propagator.nodes());
+		this.scratch = new double[propagator.size()];
+	}
+
+	/**
+	 * Starts over with each of the given nodes equally likely, e.g
+	 * {@link StandardGame#MRX_LOCATIONS} at the start of a game
+	 *
+	 * @param locations the nodes; not null
+	 */
+	public void reset(Collection<Integer> locations) {
+		long[] candidates = new long[occupied.length];
+		for (int location : locations)
+			if (location >= 0 && location < propagator.size()) NodeBits.add(candidates, location);
+		probabilities = propagator.uniform(candidates);
+	}
+
+	/**
+	 * @param node the node value
+	 * @return the probability of Mr.X being on the node
+	 */
+	public double probability(int node) {
+		return node >= 0 && node < probabilities.length ? probabilities[node] : 0;
+	}
+
+	/**
+	 * @return a new array of the probability of Mr.X being on each node,
+	 *         indexed by node value
+	 */
+	public double[] probabilities() {
+		return probabilities.clone();
+	}
+
+	@Override
+	public void onMoveMade(ScotlandYardView view, Move move) {
+		if (!(move instanceof TicketMove)) return;
+		TicketMove ticketMove = (TicketMove) move;
+		updateOccupied(view);
+		if (move.colour().isDetective()) {
+			exclude();
+			return;
+		}
+		int round = view.getCurrentRound();
+		boolean revealed = round >= 1 && round <= view.getRounds().size()
+				&& view.getRounds().get(round - 1);
+		if (revealed && ticketMove.destination() < propagator.size()) {
+			long[] location = new long[occupied.length];
+			NodeBits.add(location, ticketMove.destination());
+			probabilities = propagator.uniform(location);
+			return;
+		}
+		if (propagator.propagate(probabilities, ticketMove.ticket(), occupied, scratch) > 0) {
+			double[] swap = probabilities;
+			probabilities = scratch;
+			scratch = swap;
+		} else {
+			restart();
+		}
+	}
+
+	private void updateOccupied(ScotlandYardView view) {
+		for (int w = 0; w < occupied.length; w++)
+			occupied[w] = 0;
+		for (Colour colour : view.getPlayers())
+			if (colour.isDetective())
+				view.getPlayerLocation(colour).ifPresent(node -> NodeBits.add(occupied, node));
+	}
+
+	private void exclude() {
+		if (propagator.exclude(probabilities, occupied) == 0) restart();
+	}
+
+	private void restart() {
+		long[] candidates = propagator.nodes();
+		for (int w = 0; w < candidates.length; w++)
+			candidates[w] &= ~occupied[w];
+		probabilities = propagator.uniform(candidates);
+	}
+
+	@Override
+	public String toString() {
+		return "MrXLocationTracker{" + propagator + '}';
+	}
+
+}
@@ -0,0 +1,207 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Objects;
+
+/**
+ * A collection of utility methods for moves packed into a single {@code int}.
+ * <br>
+ * From the lowest bit: the first destination(10 bits), the second
+ * destination(10 bits), the first ticket(3 bits), the second ticket(3 bits),
+ * the colour(3 bits) and the kind(2 bits). Fields a move does not have are
+ * zero, so every move has exactly one encoding and two packed moves are equal
+ * exactly when the {@link Move}s they encode are. Packed moves are never
+ * negative or zero, leaving those values free for markers.
+ */
+public final class PackedMove {
+
+	/**
+	 * Kind of a packed {@link PassMove}
+	 */
+	public static final int PASS = 1;
+	/**
+	 * Kind of a packed {@link TicketMove}
+	 */
+	public static final int TICKET = 2;
+	/**
+	 * Kind of a packed {@link DoubleMove}
+	 */
+	public static final int DOUBLE = 3;
+	/**
+	 * Largest destination a packed move can hold
+	 */
+	public static final int MAX_DESTINATION = (1 << 10) - 1;
+
+	private static final Colour[] COLOURS = Colour.values();
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private static final int SECOND_DESTINATION = 10;
+	private static final int FIRST_TICKET = 20;
+	private static final int SECOND_TICKET = 23;
+	private static final int COLOUR = 26;
+	private static final int KIND = 29;
+
+	private PackedMove() {
+		// nope
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @return the packed {@link PassMove}
+	 */
+	public static int pass(Colour colour) {
+		return PASS << KIND | colour.ordinal() << COLOUR;
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param ticket the ticket; not null
+	 * @param destination the destination, in {@code [0, MAX_DESTINATION]}
+	 * @return the packed {@link TicketMove}
+	 */
+	public static int ticket(Colour colour, Ticket ticket, int destination) {
+		return TICKET << KIND | colour.ordinal() << COLOUR | ticket.ordinal() << FIRST_TICKET
+				| checkDestination(destination);
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param first the ticket of the first move; not null
+	 * @param firstDestination the destination of the first move, in
+	 *        {@code [0, MAX_DESTINATION]}
+	 * @param second the ticket of the second move; not null
+	 * @param secondDestination the destination of the second move, in
+	 *        {@code [0, MAX_DESTINATION]}
+	 * @return the packed {@link DoubleMove}
+	 */
+	public static int doubleMove(Colour colour, Ticket first, int firstDestination,
+			Ticket second, int secondDestination) {
+		return DOUBLE << KIND | colour.ordinal() << COLOUR | first.ordinal() << FIRST_TICKET
+				| second.ordinal() << SECOND_TICKET | checkDestination(firstDestination)
+				| checkDestination(secondDestination) << SECOND_DESTINATION;
+	}
+
+	private static int checkDestination(int destination) {
+		if (destination < 0 || destination > MAX_DESTINATION)
+			throw new IllegalArgumentException("destination " + destination
+					+ " is not in [0, " + MAX_DESTINATION + "]");
+		return destination;
+	}
+
+	/**
+	 * @param move the packed move
+	 * @return {@link #PASS}, {@link #TICKET} or {@link #DOUBLE}
+	 */
+	public static int kind(int move) {
+		return move >>> KIND;
+	}
+
+	/**
+	 * @param move the packed move
+	 * @return the colour of the player
+	 */
+	public static Colour colour(int move) {
+		return COLOURS[move >>> COLOUR & 7];
+	}
+
+	/**
+	 * @param move the packed ticket or double move
+	 * @return the ticket of the move, or of the first move of a double move
+	 */
+	public static Ticket firstTicket(int move) {
+		return TICKETS[move >>> FIRST_TICKET & 7];
+	}
+
+	/**
+	 * @param move the packed ticket or double move
+	 * @return the destination of the move, or of the first move of a double
+	 *         move
+	 */
+	public static int firstDestination(int move) {
+		return move & MAX_DESTINATION;
+	}
+
+	/**
+	 * @param move the packed double move
+	 * @return the ticket of the second move
+	 */
+	public static Ticket secondTicket(int move) {
+		return TICKETS[move >>> SECOND_TICKET & 7];
+	}
+
+	/**
+	 * @param move the packed double move
+	 * @return the destination of the second move
+	 */
+	public static int secondDestination(int move) {
+		return move >>> SECOND_DESTINATION & MAX_DESTINATION;
+	}
+
+	/**
+	 * @param move the packed ticket or double move
+	 * @return where the player ends up after the move
+	 */
+	public static int finalDestination(int move) {
+		return kind(move) == DOUBLE ? secondDestination(move) : firstDestination(move);
+	}
+
+	/**
+	 * @param move the move; not null
+	 * @return the packed move
+	 * @throws IllegalArgumentException if a destination is not in
+	 *         {@code [0, MAX_DESTINATION]}
+	 */
+	public static int encode(Move move) {
+		Objects.requireNonNull(move);
+		if (move instanceof TicketMove) {
+			TicketMove ticketMove = (TicketMove) move;
+			return ticket(move.colour(), ticketMove.ticket(), ticketMove.destination());
+		}
+		if (move instanceof DoubleMove) {
+			DoubleMove doubleMove = (DoubleMove) move;
+			return doubleMove(move.colour(), doubleMove.firstMove().ticket(),
+					doubleMove.firstMove().destination(), doubleMove.secondMove().ticket(),
+					doubleMove.secondMove().destination());
+		}
+		if (move instanceof PassMove) return pass(move.colour());
+		throw new IllegalArgumentException("Unknown move " + move);
+	}
+
+	/**
+	 * @param move the packed move
+	 * @return a new move equal to the one packed
+	 * @throws IllegalArgumentException if the value is not a packed move
+	 */
+	public static Move decode(int move) {
+		if ((move >>> COLOUR & 7) >= COLOURS.length || (move >>> FIRST_TICKET & 7) >= TICKETS.length
+				|| (move >>> SECOND_TICKET & 7) >= TICKETS.length)
+			throw new IllegalArgumentException("Not a packed move " + move);
+		Move decoded;
+		switch (kind(move)) {
+			case PASS:
+				decoded = new PassMove(colour(move));
+				break;
+			case TICKET:
+				decoded = new TicketMove(colour(move), firstTicket(move), firstDestination(move));
+				break;
+			case DOUBLE:
+				decoded = new DoubleMove(colour(move), firstTicket(move), firstDestination(move),
+						secondTicket(move), secondDestination(move));
+				break;
+			default:
+				throw new IllegalArgumentException("Not a packed move " + move);
+		}
+		// fields the kind does not have must be zero
+		if (encode(decoded) != move)
+			throw new IllegalArgumentException("Not a packed move " + move);
+		return decoded;
+	}
+
+	/**
+	 * @param move the packed move
+	 * @return the string of the move it decodes to
+	 */
+	public static String toString(int move) {
+		return decode(move).toString();
+	}
+
+}
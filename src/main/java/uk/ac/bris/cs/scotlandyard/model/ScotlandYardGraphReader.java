@@ -1,5 +1,10 @@
 package uk.ac.bris.cs.scotlandyard.model;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -7,6 +12,7 @@ import java.util.regex.Pattern;
 
 import uk.ac.bris.cs.gamekit.graph.Edge;
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.IntCsrGraph;
 import uk.ac.bris.cs.gamekit.graph.Node;
 import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
 
@@ -17,6 +23,7 @@ import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
 public class ScotlandYardGraphReader {
 
 	private static final String DELIMITER = " ";
+	private static final Transport[] TRANSPORTS = Transport.values();
 
 	private ScotlandYardGraphReader() {
 		// nope
@@ -29,72 +36,179 @@ public class ScotlandYardGraphReader {
 	 * @return a graph for {@link ScotlandYardGame} to use
 	 */
 	public static ImmutableGraph<Integer, Transport> fromLines(List<String> lines) {
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		parse(lines, new GraphSink() {
+			@Override
+			public void addNode(int value) {
+				graph.addNode(new Node<>(value));
+			}
+
+			@Override
+			public boolean containsNode(int value) {
+				return graph.containsNode(value);
+			}
+
+			@Override
+			public void addEdge(int source, int destination, Transport data) {
+				graph.addEdge(new Edge<>(graph.getNode(source), graph.getNode(destination), data));
+			}
+		});
+		return new ImmutableGraph<>(graph);
+	}
+
+	/**
+	 * Converts lines of strings into a Scotland Yard game map stored in
+	 * compressed sparse row form, the resulting graph is equal to the one
+	 * returned by {@link #fromLines(List)}
+	 *
+	 * @param lines the lines
+	 * @return a compact graph for {@link ScotlandYardGame} to use
+	 */
+	public static IntCsrGraph<Transport> compactFromLines(List<String> lines) {
+		IntCsrGraph.Builder<Transport> builder = new IntCsrGraph.Builder<>(Transport.class);
+		parse(lines, new GraphSink() {
+			@Override
+			public void addNode(int value) {
+				builder.addNode(value);
+			}
+
+			@Override
+			public boolean containsNode(int value) {
+				return builder.containsNode(value);
+			}
+
+			@Override
+			public void addEdge(int source, int destination, Transport data) {
+				builder.addUndirectedEdge(source, destination, data);
+			}
+		});
+		return builder.build();
+	}
+
+	/**
+	 * Reads a Scotland Yard game map from a file without holding its lines in
+	 * memory; the file is memory-mapped and parsed in parallel, see
+	 * {@link #compactFromLines(List)} for the format and errors
+	 *
+	 * @param path the file, UTF-8 encoded and at most 2GB
+	 * @return a compact graph for {@link ScotlandYardGame} to use
+	 * @throws IOException if the file cannot be read
+	 */
+	public static IntCsrGraph<Transport> compactFromPath(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException(path + " is larger than 2GB");
+			return StreamingGraphReader.read(
+					channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Reads a Scotland Yard game map from a stream without holding it in
+	 * memory; the stream is read in chunks that are parsed in parallel while
+	 * the next ones are read. The stream is read to the end but not closed;
+	 * see {@link #compactFromLines(List)} for the format and errors
+	 *
+	 * @param stream the stream, UTF-8 encoded
+	 * @return a compact graph for {@link ScotlandYardGame} to use
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static IntCsrGraph<Transport> compactFromStream(InputStream stream)
+			throws IOException {
+		return StreamingGraphReader.read(stream);
+	}
+
+	private interface GraphSink {
+		void addNode(int value);
+
+		boolean containsNode(int value);
+
+		void addEdge(int source, int destination, Transport data);
+	}
+
+	private static void parse(List<String> lines, GraphSink graph) {
 		if (lines == null) throw new NullPointerException("lines == null");
 		if (lines.isEmpty()) throw new IllegalArgumentException("Lines must not be empty!");
 
-		String[] topLine = parseLine(0, lines, DELIMITER, 2);
-		int numberOfNodes;
-		int numberOfEdges;
-		try {
-			numberOfNodes = Integer.parseInt(topLine[0]);
-			numberOfEdges = Integer.parseInt(topLine[1]);
-		} catch (NumberFormatException e) {
-			throw new IllegalArgumentException("Invalid symbol at line 1:\n\t" + lines.get(0));
-		}
+		int[] counts = parseHeader(lines.get(0));
+		int numberOfNodes = counts[0];
+		int numberOfEdges = counts[1];
 
 		if (numberOfNodes + numberOfEdges > lines.size() - 1)
 			throw new IllegalArgumentException("Line count < (edge count + node count)");
 
-		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
-
 		// we read the first line already
-		for (int i = 1; i <= numberOfNodes; i++) {
-			if (lines.get(i).isEmpty())
-				throw new IllegalArgumentException("Expected non-empty line at line " + i);
-			String value = parseLine(i, lines, DELIMITER, 1)[0];
-			try {
-				graph.addNode(new Node<>(Integer.parseInt(value)));
-			} catch (NumberFormatException e) {
-				throw new IllegalArgumentException(
-						"Expected integer at line " + i + "\n\t" + lines.get(i));
-			}
-		}
+		for (int i = 1; i <= numberOfNodes; i++)
+			graph.addNode(parseNode(i, lines.get(i)));
 
 		for (int i = numberOfNodes + 1; i <= numberOfNodes + numberOfEdges; i++) {
-			if (lines.get(i).isEmpty())
-				throw new IllegalArgumentException("Expected non-empty line at line " + i);
-			String[] segments = parseLine(i, lines, DELIMITER, 3);
-
-			Node<Integer> source;
-			Node<Integer> destination;
-			Transport data;
-			try {
-				source = graph.getNode(Integer.parseInt(segments[0]));
-				destination = graph.getNode(Integer.parseInt(segments[1]));
-			} catch (NumberFormatException e) {
-				throw new IllegalArgumentException(
-						"Expected integer at line " + i + "\n\t" + lines.get(i));
-			}
-			try {
-				data = Transport.valueOf(segments[2].toUpperCase(Locale.ENGLISH));
-			} catch (IllegalArgumentException e) {
-				throw new IllegalArgumentException(
-						"Expected enum with value of " + Arrays.toString(Transport.values())
-								+ " at line " + i + "\n\t" + lines.get(i));
-			}
-			if (source == null) throw new IllegalArgumentException(
-					"Expected source node to exist in graph  at line " + i + "\n\t" + lines.get(i));
-			if (destination == null) throw new IllegalArgumentException(
-					"Expected destination node to exist in graph  at line " + i + "\n\t"
-							+ lines.get(i));
-			graph.addEdge(new Edge<>(source, destination, data));
+			int[] edge = parseEdge(i, lines.get(i));
+			if (!graph.containsNode(edge[0])) throw missingNode(true, i, lines.get(i));
+			if (!graph.containsNode(edge[1])) throw missingNode(false, i, lines.get(i));
+			graph.addEdge(edge[0], edge[1], TRANSPORTS[edge[2]]);
 		}
-		return new ImmutableGraph<>(graph);
 	}
 
-	private static String[] parseLine(int line, List<String> lines, String delimiter,
+	/**
+	 * @return node count and edge count declared on the first line
+	 */
+	static int[] parseHeader(String line) {
+		String[] topLine = parseLine(0, line, DELIMITER, 2);
+		try {
+			return new int[] { Integer.parseInt(topLine[0]), Integer.parseInt(topLine[1]) };
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid symbol at line 1:\n\t" + line);
+		}
+	}
+
+	/**
+	 * @return the node value on the given node line
+	 */
+	static int parseNode(int i, String line) {
+		if (line.isEmpty())
+			throw new IllegalArgumentException("Expected non-empty line at line " + i);
+		String value = parseLine(i, line, DELIMITER, 1)[0];
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Expected integer at line " + i + "\n\t" + line);
+		}
+	}
+
+	/**
+	 * @return source, destination and transport ordinal on the given edge line
+	 */
+	static int[] parseEdge(int i, String line) {
+		if (line.isEmpty())
+			throw new IllegalArgumentException("Expected non-empty line at line " + i);
+		String[] segments = parseLine(i, line, DELIMITER, 3);
+
+		int source;
+		int destination;
+		Transport data;
+		try {
+			source = Integer.parseInt(segments[0]);
+			destination = Integer.parseInt(segments[1]);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Expected integer at line " + i + "\n\t" + line);
+		}
+		try {
+			data = Transport.valueOf(segments[2].toUpperCase(Locale.ENGLISH));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(
+					"Expected enum with value of " + Arrays.toString(Transport.values())
+							+ " at line " + i + "\n\t" + line);
+		}
+		return new int[] { source, destination, data.ordinal() };
+	}
+
+	static IllegalArgumentException missingNode(boolean source, int i, String line) {
+		return new IllegalArgumentException("Expected " + (source ? "source" : "destination")
+				+ " node to exist in graph  at line " + i + "\n\t" + line);
+	}
+
+	private static String[] parseLine(int line, String currentLine, String delimiter,
 			int expectedSegments) {
-		String currentLine = lines.get(line);
 		if (currentLine == null) throw new NullPointerException("Line " + line + " is null");
 		String[] segments = currentLine.split(Pattern.quote(delimiter));
 		if (segments.length != expectedSegments) throw new IllegalArgumentException(
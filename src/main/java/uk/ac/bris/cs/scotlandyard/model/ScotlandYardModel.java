@@ -12,12 +12,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import uk.ac.bris.cs.gamekit.graph.Edge;
 import uk.ac.bris.cs.gamekit.graph.Graph;
-import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
-import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.FrozenGraph;
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
 
 
 // A working implementation of ScotlandYardModel. 124 tests pass.
@@ -25,12 +27,21 @@ import uk.ac.bris.cs.gamekit.graph.Node;
 
 public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, MoveVisitor{
 	private final List<Boolean> rounds;
-	private final Graph<Integer,Transport> map;
+	private final FrozenGraph<Integer,Transport> map;
+	private final TransportAdjacency adjacency; // neighbour lists of the map for move generation
+	private final long[] occupied; // detective locations, updated as detectives move
+	private final boolean[] detectiveStuck = new boolean[Colour.values().length]; // indexed by Colour.ordinal(), see updateStuck
+	private int stuckDetectives = 0; // number of detectives without a ticket move
+	private Set<Move> turnMoves; // valid moves of turnColour, null once a move is visited
+	private Colour turnColour;
+	private long zobristHash; // see Zobrist, updated as moves are accepted
 	private List<ScotlandYardPlayer> players = new ArrayList<>();
+	private final ScotlandYardPlayer[] playersByColour = new ScotlandYardPlayer[Colour.values().length]; // indexed by Colour.ordinal()
+	private final List<Colour> colours; // colours of players in play order
 	private int currentRound = 0;
 	private int currentPlayer;
 	private boolean gameOver = false;
-	private int xLastLocation = 0; // MrX's last known location
+	private int xLastLocation = 0; // MrX's last known location, updated as he is revealed
 	private int xActualLocation; // Stores MrX's actual location at a given time
 	private boolean revealRound = false;
 	private boolean gameNotStarted = true; // The first rotation of startRotate has not been entered yet
@@ -41,7 +52,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 							 PlayerConfiguration mrX, PlayerConfiguration firstDetective,
 							 PlayerConfiguration... restOfTheDetectives) {
 		this.rounds = requireNonNull(rounds);
-		this.map = requireNonNull(graph);
+		this.map = FrozenGraph.of(requireNonNull(graph));
 		requireNonNull(mrX);
 		requireNonNull(firstDetective);
 		xActualLocation = mrX.location;
@@ -50,6 +61,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		currentPlayer = 0; //game starts with MrX
 		if(graph.isEmpty()) //map cannot be empty
 			throw new IllegalArgumentException("map should not be empty");
+		adjacency = TransportAdjacency.shared(map);
 		if(rounds.isEmpty()){ //there must be at least one round
 			throw new IllegalArgumentException("Empty Rounds");
 		}
@@ -62,7 +74,19 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		checkValidDetective(firstDetective);
 		checkOverlap(players);
 		checkDuplicate(players);
+		List<Colour> colours = new ArrayList<>();
+		for(ScotlandYardPlayer x : players){
+			playersByColour[x.colour().ordinal()] = x;
+			colours.add(x.colour());
+		}
+		this.colours = Collections.unmodifiableList(colours);
+		occupied = getDetectiveLocations();
+		for(ScotlandYardPlayer x : players){
+			if(x.isDetective())
+				updateStuck(x);
+		}
 		updateGameOver();
+		zobristHash = Zobrist.hash(this, xActualLocation, xLastLocation);
 	}
 
 	// MrX must have all tickets and must be black
@@ -136,111 +160,214 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		if(gameOver)
 			throw new IllegalStateException();
 		ScotlandYardPlayer p = players.get(0);
-		p.player().makeMove(this,xActualLocation,validMove(p.colour()),this);
+		p.player().makeMove(this,xActualLocation,getTurnMoves(p.colour()),this);
 	}
 
 	// When a detective makes a move
 	private void takeMove(){
 		ScotlandYardPlayer p = players.get(currentPlayer);
-		p.player().makeMove(this,p.location(),validMove(p.colour()),this);
+		p.player().makeMove(this,p.location(),getTurnMoves(p.colour()),this);
 	}
 
-	// Gets all valid TicketMoves
-	private Set<Move> getTicketMoves(Edge<Integer,Transport> e,Set<Move> moves,Colour player){
-		Ticket ticket = fromTransport(e.data());
-		int destination = e.destination().value();
+	// Gets all valid TicketMoves that use the given transport
+	private void getTicketMoves(ScotlandYardPlayer p,int location,Transport transport,long[] occupied,Set<Move> moves){
+		Ticket ticket = fromTransport(transport);
 		//if there aren't any more rounds then double moves should not be added
-        Boolean noMoreRounds = (getCurrentRound() == rounds.size() - 1 );
-        //players can't move to locations occupied by detectives
-        if(!getDetectiveLocations().contains(destination)){
-            if(getScotPlayer(player).hasTickets(ticket))
-                moves.add(new TicketMove(player,ticket,destination));
-			if(player.isMrX() && getScotPlayer(player).hasTickets(SECRET))
-				moves.add(new TicketMove(player,SECRET,destination));
-		}
-		if(player.isMrX() && getScotPlayer(player).hasTickets(DOUBLE) && !noMoreRounds){
-			Node<Integer> pos = e.destination();
-			for(Edge<Integer,Transport> x: map.getEdgesFrom(pos)){
-				moves.addAll(getDoubleMoves(x,moves,player,ticket,destination));
+		boolean noMoreRounds = (getCurrentRound() == rounds.size() - 1 );
+		for(int i = adjacency.start(location); i < adjacency.end(location); i++){
+			int destination = adjacency.neighbour(i);
+			//players can't move to locations occupied by detectives
+			if(!adjacency.connects(i,transport) || NodeBits.contains(occupied,destination))
+				continue;
+			if(p.hasTickets(ticket))
+				moves.add(Moves.ticket(p.colour(),ticket,destination));
+			if(p.isMrX() && p.hasTickets(SECRET))
+				moves.add(Moves.ticket(p.colour(),SECRET,destination));
+			if(p.isMrX() && p.hasTickets(DOUBLE) && !noMoreRounds){
+				for(Transport transport2 : Transport.values())
+					getDoubleMoves(p,ticket,destination,transport2,occupied,moves);
 			}
 		}
-		return moves;
 	}
 
-	// Gets all valid DoubleMoves
-	private Set<Move> getDoubleMoves(Edge<Integer,Transport> e,Set<Move> moves,Colour player,Ticket ticket,int destination){
-		Ticket ticket2 = fromTransport(e.data());
-		int destination2 = e.destination().value();
+	// Gets all valid DoubleMoves whose second move uses the given transport
+	private void getDoubleMoves(ScotlandYardPlayer p,Ticket ticket,int destination,Transport transport2,long[] occupied,Set<Move> moves){
+		Ticket ticket2 = fromTransport(transport2);
+		Colour player = p.colour();
 		//ensures that player has enough tickets for move
-		Boolean sameTickets = (ticket.equals(ticket2) && getScotPlayer(player).tickets().get(ticket) < 2 );
-		if(!getDetectiveLocations().contains(destination) && !getDetectiveLocations().contains(destination2) && getScotPlayer(player).hasTickets(ticket2)) {
-            if (getScotPlayer(player).hasTickets(SECRET)) {
-            	// add all possible combinations of a SECRET ticket since they can replace any other transport
-                moves.add(new DoubleMove(player, ticket, destination, SECRET, destination2));
-                moves.add(new DoubleMove(player, SECRET, destination, ticket2, destination2));
-            }
-            if (getScotPlayer(player).tickets().get(SECRET) >=2) {
-                moves.add(new DoubleMove(player, SECRET, destination, SECRET, destination2));
-            }
-		    if(!sameTickets){
-				moves.add(new DoubleMove(player, ticket, destination, ticket2, destination2));
-            }
+		boolean sameTickets = (ticket.equals(ticket2) && !p.hasTickets(ticket,2) );
+		if(!p.hasTickets(ticket2))
+			return;
+		for(int i = adjacency.start(destination); i < adjacency.end(destination); i++){
+			int destination2 = adjacency.neighbour(i);
+			if(!adjacency.connects(i,transport2) || NodeBits.contains(occupied,destination2))
+				continue;
+			if (p.hasTickets(SECRET)) {
+				// add all possible combinations of a SECRET ticket since they can replace any other transport
+				moves.add(Moves.doubleMove(player, ticket, destination, SECRET, destination2));
+				moves.add(Moves.doubleMove(player, SECRET, destination, ticket2, destination2));
+			}
+			if (p.hasTickets(SECRET,2)) {
+				moves.add(Moves.doubleMove(player, SECRET, destination, SECRET, destination2));
+			}
+			if(!sameTickets){
+				moves.add(Moves.doubleMove(player, ticket, destination, ticket2, destination2));
+			}
 		}
-		return moves;
+	}
+
+	// Returns the valid moves of a player, shared between a turn and accept until a move is visited
+	private Set<Move> getTurnMoves(Colour player){
+		if(turnMoves == null || turnColour != player){
+			turnMoves = Collections.unmodifiableSet(validMove(player));
+			turnColour = player;
+		}
+		return turnMoves;
 	}
 
 	// Returns a set of all valid moves based on a player's location
 	private Set<Move> validMove(Colour player){ //Generates all possible moves that can be made from anywhere on the board
 		ScotlandYardPlayer p = getScotPlayer(player);
-		Node<Integer> position = p.isMrX()? new Node<>(xActualLocation):new Node<>(p.location());
-		Collection<Edge<Integer,Transport>> edges = map.getEdgesFrom(position);
+		int location = p.isMrX()? xActualLocation:p.location();
 		Set<Move> moves = new HashSet<>();
-		for(Edge<Integer,Transport> e : edges){
-			moves = getTicketMoves(e,moves,player);
+		for(Transport transport : Transport.values()){
+			getTicketMoves(p,location,transport,occupied,moves);
 		}
 		// if there's no available place to move for a detective
 		if(player.isDetective() && moves.size() == 0)
-			moves.add(new PassMove(player)); // the player passes if they're a detective
+			moves.add(Moves.pass(player)); // the player passes if they're a detective
 		return moves;
 	}
 
-	// Returns a list of detective locations
-	private List<Integer> getDetectiveLocations(){
-		List<Integer> locations = new ArrayList<>();
+	// Returns the moves validMove would give the player, generated one at a time from a snapshot of the game
+	public Spliterator<Move> moveSpliterator(Colour colour){
+		ScotlandYardPlayer p = getScotPlayer(requireNonNull(colour));
+		// a stuck detective can only pass
+		if(p.isDetective() && !hasMove(p))
+			return Collections.<Move>singleton(Moves.pass(colour)).spliterator();
+		return newGenerator(p);
+	}
+
+	// Appends the moves validMove would give the player to the list, packed with PackedMove
+	public MoveList packedMoves(Colour colour, MoveList into){
+		ScotlandYardPlayer p = getScotPlayer(requireNonNull(colour));
+		requireNonNull(into);
+		if(p.isDetective() && !hasMove(p)){
+			into.add(PackedMove.pass(colour));
+			return into;
+		}
+		MoveGenerator generator = newGenerator(p);
+		for(int move = generator.nextPacked(); move != 0; move = generator.nextPacked())
+			into.add(move);
+		return into;
+	}
+
+	// Returns a generator of the ticket and double moves of the player from the current state
+	private MoveGenerator newGenerator(ScotlandYardPlayer p){
+		int location = p.isMrX()? xActualLocation:p.location();
+		boolean noMoreRounds = (getCurrentRound() == rounds.size() - 1 );
+		return new MoveGenerator(adjacency,occupied,p,location,!noMoreRounds);
+	}
+
+	// Returns a stream of the moves of moveSpliterator, which may be parallel
+	public Stream<Move> moveStream(Colour colour, boolean parallel){
+		return StreamSupport.stream(moveSpliterator(colour),parallel);
+	}
+
+	// Returns true if validMove would have a ticket move for the player, stops at the first one found
+	private boolean hasMove(ScotlandYardPlayer p){
+		int location = p.isMrX()? xActualLocation:p.location();
+		boolean noMoreRounds = (getCurrentRound() == rounds.size() - 1 );
+		for(Transport transport : Transport.values()){
+			Ticket ticket = fromTransport(transport);
+			for(int i = adjacency.start(location); i < adjacency.end(location); i++){
+				int destination = adjacency.neighbour(i);
+				if(!adjacency.connects(i,transport) || NodeBits.contains(occupied,destination))
+					continue;
+				if(p.hasTickets(ticket) || (p.isMrX() && p.hasTickets(SECRET)))
+					return true;
+				if(p.isMrX() && p.hasTickets(DOUBLE) && !noMoreRounds && hasDoubleMove(p,ticket,destination))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	// Returns true if getDoubleMoves would add a move for the given first move
+	private boolean hasDoubleMove(ScotlandYardPlayer p,Ticket ticket,int destination){
+		for(Transport transport2 : Transport.values()){
+			Ticket ticket2 = fromTransport(transport2);
+			boolean sameTickets = (ticket.equals(ticket2) && !p.hasTickets(ticket,2) );
+			if(!p.hasTickets(ticket2) || (sameTickets && !p.hasTickets(SECRET)))
+				continue;
+			for(int i = adjacency.start(destination); i < adjacency.end(destination); i++){
+				if(adjacency.connects(i,transport2) && !NodeBits.contains(occupied,adjacency.neighbour(i)))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	// Returns the set of detective locations, see TransportAdjacency
+	private long[] getDetectiveLocations(){
+		long[] locations = adjacency.emptySet();
 		for(ScotlandYardPlayer p: players){
 			if(p.isDetective())
-				locations.add(p.location());
+				occupy(locations, p.location());
 		}
 		return locations;
 	}
 
+	// Adds a location to a set of detective locations, locations off the map are left out
+	private static void occupy(long[] locations, int location){
+		if(location >= 0 && location < locations.length * 64)
+			NodeBits.add(locations, location);
+	}
+
 	// Returns a ScotlandYardPlayer of the given colour
 	private ScotlandYardPlayer getScotPlayer(Colour colour){
-		for(ScotlandYardPlayer x : players){
-			if(x.colour().equals(colour)){
-				return x;
-			}
-		}
-		throw new IllegalArgumentException("colour not in list");
+		ScotlandYardPlayer x = findScotPlayer(colour);
+		if(x == null)
+			throw new IllegalArgumentException("colour not in list");
+		return x;
+	}
+
+	// Returns a ScotlandYardPlayer of the given colour, null if there is none
+	private ScotlandYardPlayer findScotPlayer(Colour colour){
+		return colour == null ? null : playersByColour[colour.ordinal()];
 	}
 
 	//Visit method implementations from MoveVisitor
 	@Override
 	public void visit(PassMove m) {
-		//passMove does not do anything
+		//passMove does not do anything but end the turn
+		turnMoves = null;
 	}
 
 	@Override
 	public void visit(TicketMove m) {
 		ScotlandYardPlayer p = getScotPlayer(m.colour());
 		ScotlandYardPlayer mrX = getScotPlayer(BLACK);
+		turnMoves = null;
 		p.removeTicket(m.ticket());
 		if(p.isDetective()) {
+			int from = p.location();
+			// detectives never share a location so the old one is free now
+			NodeBits.remove(occupied, from);
+			occupy(occupied, m.destination());
 			p.location(m.destination());
 			mrX.addTicket(m.ticket());
+			// only the mover and detectives next to the freed or taken location can change
+			for(ScotlandYardPlayer q : players){
+				if(q.isDetective() && (q == p || adjacency.isNeighbour(q.location(), from)
+						|| adjacency.isNeighbour(q.location(), m.destination())))
+					updateStuck(q);
+			}
 		}
 		else {
 			xActualLocation = m.destination();//stores where mrX actually is
+			if(revealRound)
+				xLastLocation = xActualLocation; //the detectives see where mrX is
 			currentRound += 1; //if mrX increment round
 		}
 	}
@@ -248,11 +375,18 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	@Override
 	public void visit(DoubleMove m) {
 		ScotlandYardPlayer p = getScotPlayer(m.colour());
+		turnMoves = null;
 		//if they're no spectators just decrement the tickets and increment the round
 		if(spectators.isEmpty()){
 			p.removeTicket(DOUBLE);
 			p.removeTicket(m.firstMove().ticket());
 			p.removeTicket(m.secondMove().ticket());
+			//mrX is last seen where updateDoubleSpec leaves him
+			if(revealRound)
+				xLastLocation = m.firstMove().destination();
+			revealRound = currentRound + 1 < rounds.size() && rounds.get(currentRound + 1);
+			if(revealRound)
+				xLastLocation = m.finalDestination();
 			currentRound += 2;
 
 		}else{
@@ -265,7 +399,9 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	@Override
 	public void accept(Move m) {
 		requireNonNull(m);
-		Set<Move> validMoves = validMove(m.colour());
+		Set<Move> validMoves = getTurnMoves(m.colour());
+		ScotlandYardPlayer mover = getScotPlayer(m.colour());
+		long movedKeys = getMovedKeys(mover); // before revealRound changes
 		revealRound = players.get(currentPlayer).isMrX() && rounds.get(currentRound);
 
 		if(!validMoves.contains(m))
@@ -274,6 +410,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		m.visit(this);
 		updateGameOver();
 		currentPlayer = (currentPlayer + 1) % players.size();
+		zobristHash ^= movedKeys ^ getMovedKeys(mover);
 		if(!isGameOver()){ //If game is over then no one should make any more moves
 			if(!(m instanceof DoubleMove)) //Double Moves have already been taken care of
 				updateSpectators(m);
@@ -296,15 +433,17 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	// Updates gameOver and returns the winning players if the game is over
     private void updateGameOver() {
 	    boolean roundsUsed = currentRound == rounds.size();
-        boolean mrXStuck = validMove(BLACK).isEmpty();
+        boolean mrXStuck = !hasMove(getScotPlayer(BLACK));
         boolean endOfRot = currentPlayer == players.size() -1;
+        boolean detectivesStuck = areDetectivesStuck();
+        boolean captured = isMrXCaptured();
         /*the game is over if the rounds are used, the detectives are stuck or mrX is stuck at the end of a rotation
         or if mrX is captured at any point in the game */
-        gameOver = ((roundsUsed || areDetectivesStuck() || mrXStuck) && (endOfRot || gameNotStarted) )|| isMrXCaptured();
-        if(areDetectivesStuck() || (roundsUsed && !isMrXCaptured() && endOfRot)){
+        gameOver = ((roundsUsed || detectivesStuck || mrXStuck) && (endOfRot || gameNotStarted) )|| captured;
+        if(detectivesStuck || (roundsUsed && !captured && endOfRot)){
         	winningPlayers.add(BLACK);
 		}
-		if(mrXStuck||isMrXCaptured()){
+		if(mrXStuck||captured){
         	for(ScotlandYardPlayer p : players){
         		if(p.isDetective()){
         			winningPlayers.add(p.colour());
@@ -315,7 +454,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	// Updates the spectators for moves that are not double moves
 	private void updateSpectators(Move m){
 		ScotlandYardPlayer p = (currentPlayer != 0) ? players.get(currentPlayer - 1) : players.get(players.size() - 1);
-		Move move = (p.isMrX() && !revealRound) ? new TicketMove(m.colour(),((TicketMove) m).ticket(),xLastLocation) :  m;
+		Move move = (p.isMrX() && !revealRound) ? Moves.ticket(m.colour(),((TicketMove) m).ticket(),xLastLocation) :  m;
 		for(Spectator s : spectators){
 			if(p.isMrX() && !gameOver)
 				s.onRoundStarted(this,currentRound);// if previous player was mrX a new round has started
@@ -336,11 +475,10 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		// updates MrX's actual and last locations if the current round is a revealRound
 		getIntermediateLocation(m.firstMove(), revealRound);
 		boolean nextRevealRound = rounds.get(currentRound + 1);
-		TicketMove firstMove = new TicketMove(m.colour(),m.firstMove().ticket(),xLastLocation);
+		int firstLocation = xLastLocation;
 		//updates MrX's actual and last locations if the next round is a revealRound
 		getIntermediateLocation(m.secondMove(), nextRevealRound);
-		TicketMove secondMove = new TicketMove(m.colour(),m.secondMove().ticket(),xLastLocation);
-		return new DoubleMove(m.colour(),firstMove,secondMove);
+		return Moves.doubleMove(m.colour(),m.firstMove().ticket(),firstLocation,m.secondMove().ticket(),xLastLocation);
 	}
 
 	// Handles the Spectator updating when the move is a double move
@@ -388,26 +526,40 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		s.onMoveMade(this,hidden);
 	}
 
-	// Returns true if the detectives are stuck
+	// Returns the Zobrist keys of the features a move of the given player can change
+	private long getMovedKeys(ScotlandYardPlayer p){
+		ScotlandYardPlayer mrX = players.get(0);
+		long keys = Zobrist.round(currentRound) ^ Zobrist.toMove(getCurrentPlayer());
+		keys ^= Zobrist.lastKnown(xLastLocation);
+		keys ^= Zobrist.location(BLACK, xActualLocation) ^ Zobrist.tickets(BLACK, mrX.wallet());
+		if(p.isDetective())
+			keys ^= Zobrist.location(p.colour(), p.location()) ^ Zobrist.tickets(p.colour(), p.wallet());
+		return keys;
+	}
+
+	// Returns the Zobrist hash of the game with MrX on his actual location, see Zobrist.
+	// During the notifications of a DoubleMove it is still the hash from before the move.
+	public long getZobristHash() {
+		return zobristHash;
+	}
+
+	// Returns true if the detectives are stuck, i.e they can only pass
 	private boolean areDetectivesStuck() {
-		boolean isStuck = true;
-		for (ScotlandYardPlayer p : players) {
-			if (p.isDetective()) {
-				PassMove pass = new PassMove(p.colour());
-				isStuck = isStuck && validMove(p.colour()).contains(pass); // if detectives are stuck, they should only have the pass move
-			}
+		return stuckDetectives == players.size() - 1;
+	}
+
+	// Re-examines whether the given detective is stuck
+	private void updateStuck(ScotlandYardPlayer p){
+		boolean stuck = !hasMove(p);
+		if(stuck != detectiveStuck[p.colour().ordinal()]){
+			detectiveStuck[p.colour().ordinal()] = stuck;
+			stuckDetectives += stuck ? 1 : -1;
 		}
-		return isStuck;
 	}
 
 	// Returns true if MrX is captured
 	private boolean isMrXCaptured() {
-		for (ScotlandYardPlayer p : players) {
-			if (p.isDetective() && p.location() == xActualLocation) {
-				return true;
-			}
-		}
-		return false;
+		return NodeBits.contains(occupied, xActualLocation);
 	}
 
 	// Returns an immutable collection of spectators
@@ -417,11 +569,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	// Returns an immutable list of player colours
 	@Override
 	public List<Colour> getPlayers() {
-		List<Colour> colours = new ArrayList<>();
-		for ( ScotlandYardPlayer x: players){
-			colours.add(x.colour());
-		}
-		return Collections.unmodifiableList(colours);
+		return colours;
 	}
 
 	// Returns an immutable list of the winning players
@@ -433,28 +581,22 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	// The location of a player with a given colour in its last known location.
 	@Override
 	public Optional<Integer> getPlayerLocation(Colour colour) {
-		for (ScotlandYardPlayer player : players) {
-			if (player.colour() == colour) {
-				if (player.isMrX()) {
-					if (revealRound) {
-						xLastLocation = xActualLocation;
-					}
-					return Optional.of(xLastLocation); // if MrX is hidden this round, return 0
-
-				}
-				return Optional.of(player.location());
-			}
+		ScotlandYardPlayer player = findScotPlayer(colour);
+		if (player == null) return Optional.empty();
+		if (player.isMrX()) {
+			// xLastLocation follows every reveal as it happens; only while the
+			// moves of a double move are announced can MrX be revealed ahead of it
+			return Optional.of(revealRound ? xActualLocation : xLastLocation); // 0 until MrX is revealed
 		}
-		return Optional.empty();
+		return Optional.of(player.location());
 	}
 
 	// Returns the number of the given ticket the given player has
 	@Override
 	public Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket) {
-		for (ScotlandYardPlayer player : players) {
-			if (player.colour() == colour) return Optional.of(player.tickets().get(ticket));
-		}
-		return Optional.empty();
+		ScotlandYardPlayer player = findScotPlayer(colour);
+		if (player == null) return Optional.empty();
+		return Optional.of(player.wallet().count(ticket));
 	}
 
 	// Returns gameOver
@@ -481,6 +623,6 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 
 	// Returns an immutable graph of the Scotland Yard map
 	@Override
-	public Graph<Integer, Transport> getGraph() { return new ImmutableGraph<>(map); }
+	public Graph<Integer, Transport> getGraph() { return map; }
 
 }
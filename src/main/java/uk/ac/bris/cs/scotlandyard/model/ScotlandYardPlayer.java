@@ -1,6 +1,5 @@
 package uk.ac.bris.cs.scotlandyard.model;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -11,7 +10,7 @@ public class ScotlandYardPlayer {
 	private final Player player;
 	private final Colour colour;
 	private int location;
-	private final Map<Ticket, Integer> tickets;
+	private final TicketWallet tickets;
 
 	/**
 	 * Constructs a new ScotlandYardPlayer object.
@@ -26,7 +25,7 @@ public class ScotlandYardPlayer {
 		this.player = player;
 		this.colour = colour;
 		this.location = location;
-		this.tickets = new HashMap<>(tickets);
+		this.tickets = new TicketWallet(tickets);
 	}
 
 	/**
@@ -78,9 +77,18 @@ public class ScotlandYardPlayer {
 	}
 
 	/**
-	 * @return the player's current tickets.
+	 * @return an unmodifiable view of the player's current tickets, which
+	 *         follows later changes to them; copy it to keep the counts of a
+	 *         moment.
 	 */
 	public Map<Ticket, Integer> tickets() {
+		return tickets.asMap();
+	}
+
+	/**
+	 * @return the player's current tickets.
+	 */
+	public TicketWallet wallet() {
 		return tickets;
 	}
 
@@ -90,7 +98,7 @@ public class ScotlandYardPlayer {
 	 * @param ticket the ticket to be added.
 	 */
 	public void addTicket(Ticket ticket) {
-		adjustTicketCount(ticket, 1);
+		tickets.add(ticket);
 	}
 
 	/**
@@ -99,14 +107,7 @@ public class ScotlandYardPlayer {
 	 * @param ticket the ticket to be removed.
 	 */
 	public void removeTicket(Ticket ticket) {
-		adjustTicketCount(ticket, -1);
-	}
-
-	private void adjustTicketCount(Ticket ticket, int by) {
-		Integer ticketCount = tickets.get(ticket);
-		ticketCount += by;
 		tickets.remove(ticket);
-		tickets.put(ticket, ticketCount);
 	}
 
 	/**
@@ -116,7 +117,7 @@ public class ScotlandYardPlayer {
 	 * @return true if the player has the given ticket, false otherwise
 	 */
 	public boolean hasTickets(Ticket ticket) {
-		return tickets.get(ticket) != 0;
+		return tickets.has(ticket);
 	}
 
 	/**
@@ -129,7 +130,7 @@ public class ScotlandYardPlayer {
 	 *         otherwise
 	 */
 	public boolean hasTickets(Ticket ticket, int quantityInclusive) {
-		return tickets.get(ticket) >= quantityInclusive;
+		return tickets.has(ticket, quantityInclusive);
 	}
 
 	@Override
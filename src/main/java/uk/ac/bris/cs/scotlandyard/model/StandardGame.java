@@ -1,10 +1,12 @@
 package uk.ac.bris.cs.scotlandyard.model;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -16,9 +18,9 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.shuffle;
@@ -40,6 +42,10 @@ public class StandardGame {
 
 	private StandardGame() {}
 
+	private static final String COMPILED_MAP = "map.bin";
+
+	private static volatile CompiledMap compiledMap;
+
 	/**
 	 * Reveal rounds for a 24 round game
 	 */
@@ -133,34 +139,53 @@ public class StandardGame {
 	public static final int MAP_OFFSET = 60;
 
 	public static Map<Integer, Entry<Integer, Integer>> pngMapPositionEntries() throws IOException {
-		List<String> lines = readString("pos.txt");
+		CompiledMap compiled = compiledMap();
 		Map<Integer, Entry<Integer, Integer>> map = new HashMap<>();
-		for (String line : lines) {
-			Integer[] values = Stream.of(line.split("\\s+")).map(Integer::parseInt)
-					.toArray(Integer[]::new);
-			if (values.length != 3) continue;
-			map.put(values[0],
+		for (Node<Integer> node : compiled.graph().getNodes()) {
+			int value = node.value();
+			if (!compiled.hasPosition(value)) continue;
+			map.put(value,
 					new SimpleImmutableEntry<>(
-							values[1] + MAP_OFFSET,
-							values[2] + MAP_OFFSET));
+							compiled.x(value) + MAP_OFFSET,
+							compiled.y(value) + MAP_OFFSET));
 		}
 		return Collections.unmodifiableMap(map);
 	}
 
 	public static ImmutableGraph<Integer, Transport> standardGraph() throws IOException {
-		return ScotlandYardGraphReader.fromLines(readString("graph.txt"));
+		return new ImmutableGraph<>(compiledMap().graph());
 	}
 
-	private static List<String> readString(String resource) throws IOException {
-		try (InputStream stream = StandardGame.class
-				.getClassLoader()
-				.getResourceAsStream(resource)) {
-			if (stream == null) throw new IOException("Resource " + resource + " not found");
-			return new BufferedReader(
-					new InputStreamReader(stream, StandardCharsets.UTF_8))
-							.lines()
-							.collect(toList());
+	/**
+	 * The standard map compiled from {@code graph.txt} and {@code pos.txt},
+	 * see {@link CompiledMap}. The compiled map is loaded once and shared;
+	 * it is memory-mapped when the resource is a plain file.
+	 *
+	 * @return the standard map
+	 * @throws IOException if the compiled map cannot be read
+	 */
+	public static CompiledMap compiledMap() throws IOException {
+		CompiledMap map = compiledMap;
+		if (map != null) return map;
+		URL url = StandardGame.class.getClassLoader().getResource(COMPILED_MAP);
+		if (url == null) throw new IOException("Resource " + COMPILED_MAP + " not found");
+		if ("file".equals(url.getProtocol())) {
+			try {
+				map = CompiledMap.load(Paths.get(url.toURI()));
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+		} else {
+			try (InputStream stream = url.openStream()) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] chunk = new byte[8192];
+				for (int read; (read = stream.read(chunk)) != -1; )
+					bytes.write(chunk, 0, read);
+				map = CompiledMap.read(ByteBuffer.wrap(bytes.toByteArray()));
+			}
 		}
+		compiledMap = map;
+		return map;
 	}
 
 }
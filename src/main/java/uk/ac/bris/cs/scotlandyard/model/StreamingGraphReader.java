@@ -0,0 +1,467 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import uk.ac.bris.cs.gamekit.graph.IntCsrGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+
+/**
+ * Parses the map format of {@link ScotlandYardGraphReader} straight from
+ * UTF-8 bytes into an {@link IntCsrGraph}.
+ * <br>
+ * The input is cut into chunks at line boundaries; chunks are scanned in
+ * parallel by a byte level tokenizer that only accepts the plain form of a
+ * line({@code 12}, {@code 12 34 Taxi}). Any other line is decoded and handed
+ * to the line parser of {@link ScotlandYardGraphReader}, so accepted input and
+ * error messages(including line numbers) are the same as for
+ * {@link ScotlandYardGraphReader#compactFromLines(List)}.
+ * <br>
+ * A buffer is cut up front. A stream is cut as it is read, each chunk is
+ * parsed while the next ones are read and dropped once parsed, so only a few
+ * chunks are held at a time. Node lines come before edge lines, so edges are
+ * checked against the nodes as soon as they are parsed.
+ */
+final class StreamingGraphReader {
+
+	private static final int MIN_CHUNK = 1 << 16;
+	private static final Transport[] TRANSPORTS = Transport.values();
+	private static final byte[][] NAMES = new byte[TRANSPORTS.length][];
+
+	static {
+		for (Transport transport : TRANSPORTS)
+			NAMES[transport.ordinal()] = transport.name().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private int nodeCount;
+	private int edgeCount;
+	// grown while a stream is read, up to the counts
+	private int[] values = new int[0];
+	private int[] sources = new int[0];
+	private int[] destinations = new int[0];
+	private byte[] ordinals = new byte[0];
+	// node values shifted left by 32 ORed with their index, sorted; null
+	// until every node line is parsed
+	private long[] keys;
+	private int repeated = Integer.MAX_VALUE; // index of the first repeated node value
+
+	// chunks being parsed while a stream is read, oldest first
+	private final Deque<ForkJoinTask<Failure>> pending = new ArrayDeque<>();
+	private Failure nodeFailure;
+	private Failure edgeFailure;
+
+	private StreamingGraphReader() {}
+
+	/**
+	 * @param bytes the whole input from index 0 to the limit; not modified
+	 * @return the parsed graph; never null
+	 */
+	static IntCsrGraph<Transport> read(ByteBuffer bytes) {
+		return new StreamingGraphReader().readBuffer(bytes);
+	}
+
+	/**
+	 * @param stream the input, read to the end but not closed; not null
+	 * @return the parsed graph; never null
+	 * @throws IOException if the stream cannot be read
+	 */
+	static IntCsrGraph<Transport> read(InputStream stream) throws IOException {
+		return new StreamingGraphReader().readStream(stream);
+	}
+
+	private IntCsrGraph<Transport> readBuffer(ByteBuffer bytes) {
+		Chunk[] chunks = split(bytes);
+		int lineCount = 0;
+		for (Chunk chunk : chunks) {
+			chunk.line = lineCount;
+			lineCount += chunk.lines;
+		}
+		if (lineCount == 0) throw new IllegalArgumentException("Lines must not be empty!");
+		if (!header(chunks[0].bytes)) return ScotlandYardGraphReader.compactFromLines(
+				lines(new ByteArrayInputStream(copy(bytes, 0, bytes.limit()))));
+		if (nodeCount + edgeCount > lineCount - 1)
+			throw new IllegalArgumentException("Line count < (edge count + node count)");
+
+		growNodes(nodeCount);
+		growEdges(edgeCount);
+		nodeFailure = Arrays.stream(chunks).parallel()
+				.filter(chunk -> chunk.line <= nodeCount)
+				.map(chunk -> new ChunkParser(chunk).parse(false))
+				.reduce(null, Failure::first);
+		index();
+		edgeFailure = Arrays.stream(chunks).parallel()
+				.filter(chunk -> chunk.line + chunk.lines > nodeCount + 1)
+				.map(chunk -> new ChunkParser(chunk).parse(true))
+				.reduce(null, Failure::first);
+		return result(lineCount);
+	}
+
+	private IntCsrGraph<Transport> readStream(InputStream stream) throws IOException {
+		int limit = 2 * ForkJoinPool.getCommonPoolParallelism();
+		int lineCount = 0;
+		byte[] buffer = new byte[MIN_CHUNK];
+		int filled = 0;
+		while (true) {
+			int read = stream.read(buffer, filled, buffer.length - filled);
+			if (read > 0 && (filled += read) < buffer.length) continue;
+			boolean end = read < 0;
+			int cut = end ? filled : lastTerminator(buffer, filled) + 1;
+			// a carriage return at the end may be followed by a newline, so it
+			// is carried over rather than cut from it
+			if (!end && cut == filled && buffer[cut - 1] == '\r')
+				cut = lastTerminator(buffer, cut - 1) + 1;
+			if (cut == 0 && !end) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				continue;
+			}
+			Chunk chunk = new Chunk(ByteBuffer.wrap(buffer, 0, cut));
+			chunk.line = lineCount;
+			if (lineCount == 0) {
+				if (chunk.lines == 0) throw new IllegalArgumentException("Lines must not be empty!");
+				if (!header(chunk.bytes)) return ScotlandYardGraphReader.compactFromLines(lines(
+						new SequenceInputStream(new ByteArrayInputStream(buffer, 0, filled), stream)));
+			}
+			lineCount += chunk.lines;
+			submit(chunk, lineCount);
+			drain(limit);
+			if (end) break;
+			byte[] next = new byte[Math.max(MIN_CHUNK, 2 * (filled - cut))];
+			System.arraycopy(buffer, cut, next, 0, filled - cut);
+			buffer = next;
+			filled -= cut;
+		}
+		drain(0);
+		if (keys == null && nodeCount + edgeCount <= lineCount - 1) index();
+		return result(lineCount);
+	}
+
+	// queues the parsing of the node and edge lines of a chunk of a stream
+	private void submit(Chunk chunk, int lineCount) {
+		if (chunk.line <= nodeCount && lineCount > 1) {
+			growNodes(Math.min(nodeCount, lineCount - 1));
+			pending.add(ForkJoinPool.commonPool().submit(() -> new ChunkParser(chunk).parse(false)));
+		}
+		if (chunk.line <= nodeCount + edgeCount && lineCount > nodeCount + 1) {
+			if (keys == null) {
+				drain(0);
+				index();
+			}
+			growEdges(Math.min(edgeCount, lineCount - nodeCount - 1));
+			pending.add(ForkJoinPool.commonPool().submit(() -> new ChunkParser(chunk).parse(true)));
+		}
+	}
+
+	// waits for the oldest chunks until at most the given number are pending
+	private void drain(int limit) {
+		while (pending.size() > limit) {
+			Failure failure = pending.removeFirst().join();
+			// every node chunk is done before the first edge chunk is queued
+			if (keys == null) nodeFailure = Failure.first(nodeFailure, failure);
+			else edgeFailure = Failure.first(edgeFailure, failure);
+		}
+	}
+
+	// grown arrays are only swapped in with nothing pending, see drain
+	private void growNodes(int size) {
+		if (size <= values.length) return;
+		drain(0);
+		values = Arrays.copyOf(values, Math.min(nodeCount, Math.max(size, 2 * values.length)));
+	}
+
+	private void growEdges(int size) {
+		if (size <= sources.length) return;
+		drain(0);
+		int length = Math.min(edgeCount, Math.max(size, 2 * sources.length));
+		sources = Arrays.copyOf(sources, length);
+		destinations = Arrays.copyOf(destinations, length);
+		ordinals = Arrays.copyOf(ordinals, length);
+	}
+
+	// reads the counts from the first line of the input; returns false if
+	// they make the line parser read odd sections, those are left to it
+	private boolean header(ByteBuffer bytes) {
+		int stop = 0;
+		while (stop < bytes.limit() && !terminator(bytes.get(stop)))
+			stop++;
+		int[] counts = ScotlandYardGraphReader.parseHeader(
+				new String(copy(bytes, 0, stop), StandardCharsets.UTF_8));
+		nodeCount = counts[0];
+		edgeCount = counts[1];
+		return nodeCount >= 0 && edgeCount >= 0 && nodeCount + edgeCount >= 0;
+	}
+
+	// nodes are added in line order, so a repeated value fails at its second
+	// occurrence unless a syntax error comes first
+	private void index() {
+		long[] keys = new long[values.length];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = (long) values[i] << 32 | i;
+		Arrays.parallelSort(keys);
+		for (int i = 1; i < keys.length; i++)
+			if (keys[i] >> 32 == keys[i - 1] >> 32) repeated = Math.min(repeated, (int) keys[i]);
+		this.keys = keys;
+	}
+
+	private IntCsrGraph<Transport> result(int lineCount) {
+		if (nodeCount + edgeCount > lineCount - 1)
+			throw new IllegalArgumentException("Line count < (edge count + node count)");
+		int repeatedLine = repeated == Integer.MAX_VALUE ? repeated : repeated + 1;
+		if (nodeFailure != null && nodeFailure.line <= repeatedLine) throw nodeFailure.error;
+		if (repeated != Integer.MAX_VALUE) throw new IllegalArgumentException(
+				new Node<>(values[repeated]) + " is already in the graph");
+		if (edgeFailure != null) throw edgeFailure.error;
+		return IntCsrGraph.fromArrays(Transport.class, values, sources, destinations, ordinals,
+				true);
+	}
+
+	// cuts the input into chunks after newlines
+	private static Chunk[] split(ByteBuffer bytes) {
+		int length = bytes.limit();
+		int chunks = Math.max(1, Math.min(length / MIN_CHUNK,
+				4 * ForkJoinPool.getCommonPoolParallelism()));
+		int[] boundaries = new int[chunks + 1];
+		int count = 1;
+		for (int c = 1; c < chunks; c++) {
+			int position = Math.max((int) ((long) length * c / chunks), boundaries[count - 1]);
+			while (position < length && bytes.get(position - 1) != '\n')
+				position++;
+			if (position > boundaries[count - 1] && position < length)
+				boundaries[count++] = position;
+		}
+		boundaries[count++] = length;
+		return IntStream.range(0, count - 1).parallel()
+				.mapToObj(c -> new Chunk(slice(bytes, boundaries[c], boundaries[c + 1])))
+				.toArray(Chunk[]::new);
+	}
+
+	// index of the last line terminator before the given index, -1 if there
+	// is none
+	private static int lastTerminator(byte[] bytes, int before) {
+		for (int i = before - 1; i >= 0; i--)
+			if (terminator(bytes[i])) return i;
+		return -1;
+	}
+
+	private static boolean terminator(byte b) {
+		return b == '\n' || b == '\r';
+	}
+
+	private static ByteBuffer slice(ByteBuffer bytes, int from, int to) {
+		ByteBuffer slice = bytes.duplicate();
+		slice.limit(to);
+		slice.position(from);
+		return slice.slice();
+	}
+
+	private static byte[] copy(ByteBuffer bytes, int from, int to) {
+		byte[] copy = new byte[to - from];
+		for (int i = 0; i < copy.length; i++)
+			copy[i] = bytes.get(from + i);
+		return copy;
+	}
+
+	private static List<String> lines(InputStream stream) {
+		return new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)).lines()
+				.collect(Collectors.toList());
+	}
+
+	// lines end at a newline, a carriage return or both, as for a BufferedReader
+	private static final class Chunk {
+
+		// from index 0 to the limit, ends after a line terminator unless it
+		// ends the input
+		private final ByteBuffer bytes;
+		private final int lines; // lines beginning in the chunk
+		private int line; // the line the chunk begins at
+
+		Chunk(ByteBuffer bytes) {
+			this.bytes = bytes;
+			int length = bytes.limit();
+			int lines = 0;
+			for (int i = 0; i < length; i++) {
+				byte b = bytes.get(i);
+				if (b == '\n' || b == '\r' && (i + 1 == length || bytes.get(i + 1) != '\n'))
+					lines++;
+			}
+			if (length > 0 && !terminator(bytes.get(length - 1))) lines++;
+			this.lines = lines;
+		}
+	}
+
+	private final class ChunkParser {
+
+		private final Chunk chunk;
+		private final ByteBuffer bytes;
+		// end of the last token read by integer() or transport()
+		private int next;
+
+		ChunkParser(Chunk chunk) {
+			this.chunk = chunk;
+			this.bytes = chunk.bytes;
+		}
+
+		// the first failing node or edge line of the chunk, null if none fails
+		Failure parse(boolean edges) {
+			int first = edges ? nodeCount + 1 : 1;
+			int last = edges ? nodeCount + edgeCount : nodeCount;
+			int end = bytes.limit();
+			int line = chunk.line;
+			for (int start = 0; start < end && line <= last; line++) {
+				int stop = start;
+				while (stop < end && !terminator(bytes.get(stop)))
+					stop++;
+				if (line >= first) {
+					Failure failure = edges ? edge(line, start, stop) : node(line, start, stop);
+					if (failure != null) return failure;
+				}
+				start = stop + 1;
+				if (start < end && bytes.get(stop) == '\r' && bytes.get(start) == '\n') start++;
+			}
+			return null;
+		}
+
+		private Failure node(int line, int from, int to) {
+			if (parseNode(line, from, to)) return null;
+			try {
+				values[line - 1] = ScotlandYardGraphReader.parseNode(line, decode(from, to));
+				return null;
+			} catch (IllegalArgumentException e) {
+				return new Failure(line, e);
+			}
+		}
+
+		private Failure edge(int line, int from, int to) {
+			int edge = line - nodeCount - 1;
+			// lines the tokenizer does not accept go through the line parser,
+			// which either reads them or reports the same error as for a list
+			// of lines
+			if (!parseEdge(edge, from, to)) {
+				try {
+					int[] parsed = ScotlandYardGraphReader.parseEdge(line, decode(from, to));
+					sources[edge] = parsed[0];
+					destinations[edge] = parsed[1];
+					ordinals[edge] = (byte) parsed[2];
+				} catch (IllegalArgumentException e) {
+					return new Failure(line, e);
+				}
+			}
+			boolean source = contains(sources[edge]);
+			if (source && contains(destinations[edge])) return null;
+			return new Failure(line,
+					ScotlandYardGraphReader.missingNode(!source, line, decode(from, to)));
+		}
+
+		private boolean parseNode(int line, int from, int to) {
+			long value = integer(from, to);
+			if (value == Long.MIN_VALUE || !spaces(next, to)) return false;
+			values[line - 1] = (int) value;
+			return true;
+		}
+
+		private boolean parseEdge(int edge, int from, int to) {
+			long source = integer(from, to);
+			if (source == Long.MIN_VALUE || next == to || bytes.get(next) != ' ') return false;
+			long destination = integer(next + 1, to);
+			if (destination == Long.MIN_VALUE || next == to || bytes.get(next) != ' ') return false;
+			int transport = transport(next + 1, to);
+			if (transport == -1 || !spaces(next, to)) return false;
+			sources[edge] = (int) source;
+			destinations[edge] = (int) destination;
+			ordinals[edge] = (byte) transport;
+			return true;
+		}
+
+		// an optionally negative decimal int at the start of the range, or
+		// Long.MIN_VALUE if there is none
+		private long integer(int from, int to) {
+			int i = from;
+			boolean negative = i < to && bytes.get(i) == '-';
+			if (negative) i++;
+			int digits = i;
+			long value = 0;
+			for (; i < to && i - digits < 11; i++) {
+				int digit = bytes.get(i) - '0';
+				if (digit < 0 || digit > 9) break;
+				value = value * 10 + digit;
+			}
+			if (i == digits || i - digits > 10) return Long.MIN_VALUE;
+			if (negative) value = -value;
+			if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) return Long.MIN_VALUE;
+			next = i;
+			return value;
+		}
+
+		// the transport named(in any case) at the start of the range, or -1
+		private int transport(int from, int to) {
+			int stop = from;
+			while (stop < to && bytes.get(stop) != ' ')
+				stop++;
+			for (int t = 0; t < NAMES.length; t++) {
+				byte[] name = NAMES[t];
+				if (name.length != stop - from) continue;
+				int i = 0;
+				while (i < name.length && (bytes.get(from + i) & ~0x20) == name[i])
+					i++;
+				if (i == name.length) {
+					next = stop;
+					return t;
+				}
+			}
+			return -1;
+		}
+
+		private boolean spaces(int from, int to) {
+			for (int i = from; i < to; i++)
+				if (bytes.get(i) != ' ') return false;
+			return true;
+		}
+
+		private String decode(int from, int to) {
+			return new String(copy(bytes, from, to), StandardCharsets.UTF_8);
+		}
+	}
+
+	private boolean contains(int value) {
+		int low = 0, high = keys.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long current = keys[mid] >> 32;
+			if (current < value) low = mid + 1;
+			else if (current > value) high = mid - 1;
+			else return true;
+		}
+		return false;
+	}
+
+	// the first failing line of some chunks
+	private static final class Failure {
+
+		private final int line;
+		private final IllegalArgumentException error;
+
+		Failure(int line, IllegalArgumentException error) {
+			this.line = line;
+			this.error = error;
+		}
+
+		static Failure first(Failure current, Failure other) {
+			if (current == null) return other;
+			return other == null || current.line <= other.line ? current : other;
+		}
+	}
+
+}
@@ -10,6 +10,7 @@ public class TicketMove extends Move {
 	private static final long serialVersionUID = -8579140322766860934L;
 	private final Ticket ticket;
 	private final int destination;
+	private transient int hash; // 0 until computed
 
 	/**
 	 * Create a new ticket move with ticket and destination
@@ -54,7 +55,9 @@ public class TicketMove extends Move {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(super.hashCode(), ticket, destination);
+		int h = hash;
+		if (h == 0) hash = h = Objects.hash(super.hashCode(), ticket, destination);
+		return h;
 	}
 
 	@Override
@@ -0,0 +1,181 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.DOUBLE;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+
+/**
+ * Answers which nodes a player can reach within a number of moves given the
+ * exact tickets the player holds. Each move uses one ticket: a
+ * {@link Ticket#TAXI}, {@link Ticket#BUS} or {@link Ticket#UNDERGROUND} ticket
+ * for an edge of the matching transport, a {@link Ticket#SECRET} ticket for an
+ * edge of any transport(including {@link Transport#FERRY}) or a
+ * {@link Ticket#DOUBLE} ticket together with two of the former to travel two
+ * edges in one move.
+ * <br>
+ * Results are bitsets in the format of {@link TransportAdjacency} and always
+ * contain the starting node. Intermediate results are memoised on
+ * (node, tickets, moves); queries that do not avoid any nodes share their
+ * memo across calls until it holds {@link #MAX_SHARED_WORDS} words of results,
+ * at which point it is cleared. Instances are thread safe.
+ */
+public final class TicketReachability {
+
+	/**
+	 * Maximum number of moves a query may ask for
+	 */
+	public static final int MAX_MOVES = 31;
+
+	/**
+	 * Number of bitset words the memo shared across queries may hold before
+	 * it is cleared, 32MB worth
+	 */
+	public static final int MAX_SHARED_WORDS = 1 << 22;
+
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private final TransportAdjacency adjacency;
+	private final long[] nothing;
+	private final Map<Long, long[]> shared = new ConcurrentHashMap<>();
+	private final int maxShared;
+
+	/**
+	 * @param graph the map; not null
+	 */
+	public TicketReachability(Graph<Integer, Transport> graph) {
+		this(TransportAdjacency.of(graph));
+	}
+
+	/**
+	 * @param adjacency the index of the map; not null
+	 */
+	public TicketReachability(TransportAdjacency adjacency) {
+		this.adjacency = Objects.requireNonNull(adjacency);
+		this.nothing = adjacency.emptySet();
+		this.maxShared = Math.max(1, MAX_SHARED_WORDS / Math.max(1, adjacency.words()));
+	}
+
+	/**
+	 * Same as {@link #reachable(int, Map, int, long[])} with the player's
+	 * current location and tickets
+	 */
+	public long[] reachable(ScotlandYardPlayer player, int moves, long[] occupied) {
+		return reachable(player.location(), player.tickets(), moves, occupied);
+	}
+
+	/**
+	 * Same as {@link #reachable(int, Map, int, long[])} without avoiding any
+	 * nodes
+	 */
+	public long[] reachable(int location, Map<Ticket, Integer> tickets, int moves) {
+		return reachable(location, tickets, moves, null);
+	}
+
+	/**
+	 * Finds all nodes reachable from the given location in at most the given
+	 * number of moves
+	 *
+	 * @param location the starting node value
+	 * @param tickets the tickets available; not null, missing tickets count
+	 *        as zero
+	 * @param moves the maximum number of moves, in {@code [0, MAX_MOVES]}
+	 * @param occupied nodes that cannot be moved to or through, in the format
+	 *        of {@link TransportAdjacency}; null to allow all nodes
+	 * @return a new set of all reachable nodes; never null
+	 */
+	public long[] reachable(int location, Map<Ticket, Integer> tickets, int moves,
+			long[] occupied) {
+		Objects.requireNonNull(tickets);
+		if (moves < 0 || moves > MAX_MOVES)
+			throw new IllegalArgumentException("moves " + moves + " not in [0, " + MAX_MOVES + "]");
+		if (location < 0 || location >= adjacency.words() * 64)
+			throw new IllegalArgumentException("location " + location + " is not on the map");
+		if (occupied != null && occupied.length < adjacency.words())
+			throw new IllegalArgumentException("occupied has less than " + adjacency.words()
+					+ " words");
+		int[] counts = new int[TICKETS.length];
+		for (Ticket ticket : TICKETS) {
+			Integer count = tickets.get(ticket);
+			counts[ticket.ordinal()] = count == null ? 0 : Math.max(0, count);
+		}
+		if (occupied != null)
+			return reach(location, counts, moves, occupied, new HashMap<>()).clone();
+		long[] result = reach(location, counts, moves, nothing, shared).clone();
+		// a cap on the number of entries rather than an LRU: entries of one
+		// query depend on each other, so evicting single ones saves little
+		if (shared.size() > maxShared) shared.clear();
+		return result;
+	}
+
+	private long[] reach(int node, int[] tickets, int moves, long[] occupied,
+			Map<Long, long[]> memo) {
+		Long key = key(node, tickets, moves);
+		long[] result = memo.get(key);
+		if (result != null) return result;
+		result = adjacency.emptySet();
+		NodeBits.add(result, node);
+		if (moves > 0) {
+			for (Ticket ticket : TICKETS) {
+				if (ticket == DOUBLE || tickets[ticket.ordinal()] == 0) continue;
+				tickets[ticket.ordinal()]--;
+				int transports = TransportAdjacency.transportsOf(ticket);
+				for (int d = adjacency.start(node); d < adjacency.end(node); d++)
+					if (isDestination(d, transports, occupied))
+						or(result, reach(adjacency.neighbour(d), tickets, moves - 1, occupied, memo));
+				tickets[ticket.ordinal()]++;
+			}
+			if (tickets[DOUBLE.ordinal()] > 0) {
+				tickets[DOUBLE.ordinal()]--;
+				for (Ticket first : TICKETS) {
+					if (first == DOUBLE || tickets[first.ordinal()] == 0) continue;
+					tickets[first.ordinal()]--;
+					int firstTransports = TransportAdjacency.transportsOf(first);
+					for (int i = adjacency.start(node); i < adjacency.end(node); i++) {
+						if (!isDestination(i, firstTransports, occupied)) continue;
+						int intermediate = adjacency.neighbour(i);
+						for (Ticket second : TICKETS) {
+							if (second == DOUBLE || tickets[second.ordinal()] == 0) continue;
+							tickets[second.ordinal()]--;
+							int transports = TransportAdjacency.transportsOf(second);
+							for (int d = adjacency.start(intermediate); d < adjacency.end(intermediate); d++)
+								if (isDestination(d, transports, occupied))
+									or(result, reach(adjacency.neighbour(d), tickets, moves - 1, occupied, memo));
+							tickets[second.ordinal()]++;
+						}
+					}
+					tickets[first.ordinal()]++;
+				}
+				tickets[DOUBLE.ordinal()]++;
+			}
+		}
+		memo.put(key, result);
+		return result;
+	}
+
+	// whether the neighbour at the index is unoccupied and reachable with one of the transports
+	private boolean isDestination(int index, int transports, long[] occupied) {
+		return (adjacency.transports(index) & transports) != 0
+				&& !NodeBits.contains(occupied, adjacency.neighbour(index));
+	}
+
+	private static void or(long[] into, long[] from) {
+		for (int w = 0; w < into.length; w++)
+			into[w] |= from[w];
+	}
+
+	// no more than two tickets of a kind can be used per move, so counts above
+	// that make no difference and are clamped to keep the key within 64 bits
+	private static Long key(int node, int[] tickets, int moves) {
+		long key = node;
+		for (int count : tickets)
+			key = key << 6 | Math.min(count, 2 * moves);
+		return key << 5 | moves;
+	}
+
+}
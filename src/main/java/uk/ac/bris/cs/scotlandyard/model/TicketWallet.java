@@ -0,0 +1,179 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The tickets of a player, one {@code int} counter per {@link Ticket} indexed
+ * by {@link Ticket#ordinal()}.
+ * <br>
+ * A wallet holds the tickets it was created with; tickets it was not created
+ * with count as zero but are left out of {@link #asMap()} until they are
+ * added or removed, like keys missing from the map given to
+ * {@link #TicketWallet(Map)}.
+ */
+public final class TicketWallet {
+
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private final int[] counts;
+	private int held; // bit t is set if the wallet holds the ticket of ordinal t
+	private Map<Ticket, Integer> view;
+
+	/**
+	 * Creates a wallet with the given tickets
+	 *
+	 * @param tickets the count of each ticket; not null and without null
+	 *        keys or values
+	 */
+	public TicketWallet(Map<Ticket, Integer> tickets) {
+		this.counts = new int[TICKETS.length];
+		for (Map.Entry<Ticket, Integer> entry : tickets.entrySet()) {
+			int ordinal = Objects.requireNonNull(entry.getKey()).ordinal();
+			counts[ordinal] = Objects.requireNonNull(entry.getValue(), entry.getKey() + " count");
+			held |= 1 << ordinal;
+		}
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param wallet the wallet to copy from
+	 */
+	public TicketWallet(TicketWallet wallet) {
+		this.counts = wallet.counts.clone();
+		this.held = wallet.held;
+	}
+
+	/**
+	 * @param ticket the ticket; not null
+	 * @return the number of the given ticket in the wallet
+	 */
+	public int count(Ticket ticket) {
+		return counts[ticket.ordinal()];
+	}
+
+	/**
+	 * @param ticket the ticket; not null
+	 * @return true if the count of the given ticket is not zero
+	 */
+	public boolean has(Ticket ticket) {
+		return counts[ticket.ordinal()] != 0;
+	}
+
+	/**
+	 * @param ticket the ticket; not null
+	 * @param quantity the quantity
+	 * @return true if the count of the given ticket is at least the given
+	 *         quantity
+	 */
+	public boolean has(Ticket ticket, int quantity) {
+		return counts[ticket.ordinal()] >= quantity;
+	}
+
+	/**
+	 * Adds one of the given ticket
+	 *
+	 * @param ticket the ticket; not null
+	 */
+	public void add(Ticket ticket) {
+		adjust(ticket, 1);
+	}
+
+	/**
+	 * Removes one of the given ticket, counts are not checked
+	 *
+	 * @param ticket the ticket; not null
+	 */
+	public void remove(Ticket ticket) {
+		adjust(ticket, -1);
+	}
+
+	private void adjust(Ticket ticket, int by) {
+		counts[ticket.ordinal()] += by;
+		held |= 1 << ticket.ordinal();
+	}
+
+	/**
+	 * @return an unmodifiable view of the tickets held and their counts that
+	 *         follows changes to this wallet
+	 */
+	public Map<Ticket, Integer> asMap() {
+		if (view == null) view = new Counts();
+		return view;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof TicketWallet)) return false;
+		TicketWallet that = (TicketWallet) o;
+		return held == that.held && Arrays.equals(counts, that.counts);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * held + Arrays.hashCode(counts);
+	}
+
+	@Override
+	public String toString() {
+		return asMap().toString();
+	}
+
+	// live view of the held tickets in ordinal order
+	private final class Counts extends AbstractMap<Ticket, Integer> {
+
+		@Override
+		public Integer get(Object key) {
+			return containsKey(key) ? counts[((Ticket) key).ordinal()] : null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof Ticket && (held & 1 << ((Ticket) key).ordinal()) != 0;
+		}
+
+		@Override
+		public int size() {
+			return Integer.bitCount(held);
+		}
+
+		@Override
+		public Set<Entry<Ticket, Integer>> entrySet() {
+			return new AbstractSet<Entry<Ticket, Integer>>() {
+				@Override
+				public Iterator<Entry<Ticket, Integer>> iterator() {
+					return new Iterator<Entry<Ticket, Integer>>() {
+						private int remaining = held;
+
+						@Override
+						public boolean hasNext() {
+							return remaining != 0;
+						}
+
+						@Override
+						public Entry<Ticket, Integer> next() {
+							if (remaining == 0) throw new NoSuchElementException();
+							int ordinal = Integer.numberOfTrailingZeros(remaining);
+							remaining &= remaining - 1;
+							return new SimpleImmutableEntry<>(TICKETS[ordinal], counts[ordinal]);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return Counts.this.size();
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.FrozenGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+
+/**
+ * A precomputed, immutable index of a Scotland Yard map: for every node the
+ * sorted list of its neighbours, each with the {@link Transport}s that reach
+ * it. The neighbours of a node are the indices in
+ * {@code [start(node), end(node))}, e.g. the taxi destinations not occupied
+ * by detectives are the {@link #neighbour(int)}s of those indices for which
+ * {@link #connects(int, Transport)} holds and that are not in the occupied
+ * set.
+ * <br>
+ * The index takes space linear in the number of nodes and edges. Sets of
+ * nodes, such as the occupied ones, are bitsets in the format of
+ * {@link NodeBits} with {@link #words()} words; nodes are indexed by value,
+ * so the index is meant for maps with non-negative node values that are
+ * not much larger than the number of nodes.
+ */
+public final class TransportAdjacency {
+
+	private static final Transport[] TRANSPORTS = Transport.values();
+	// indices of frozen maps, which never change, kept as long as their map
+	private static final Map<FrozenGraph<Integer, Transport>, TransportAdjacency> SHARED =
+			Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final int words;
+	private final int[] offsets; // [node], neighbours of node start at offsets[node]
+	private final int[] neighbours; // sorted for each node
+	private final byte[] transports; // bit t if the transport of ordinal t reaches the neighbour
+
+	private TransportAdjacency(int maxValue, int[] offsets, int[] neighbours,
+			byte[] transports) {
+		this.words = NodeBits.words(maxValue);
+		this.offsets = offsets;
+		this.neighbours = neighbours;
+		this.transports = transports;
+	}
+
+	/**
+	 * Builds the index for the given graph
+	 *
+	 * @param graph the graph; not null, all node values must be non-negative
+	 * @return the index; never null
+	 */
+	public static TransportAdjacency of(Graph<Integer, Transport> graph) {
+		Objects.requireNonNull(graph);
+		int maxValue = 0;
+		for (Node<Integer> node : graph.getNodes()) {
+			if (node.value() < 0)
+				throw new IllegalArgumentException(node + " has a negative value");
+			maxValue = Math.max(maxValue, node.value());
+		}
+		// edges of a node as destination << 8 | transport, sorted to merge
+		// the transports of each neighbour
+		int[] offsets = new int[maxValue + 2];
+		forEachEdge(graph, (source, destination, transport) -> offsets[source + 1]++);
+		for (int node = 0; node <= maxValue; node++)
+			offsets[node + 1] += offsets[node];
+		long[] edges = new long[offsets[maxValue + 1]];
+		int[] next = Arrays.copyOf(offsets, maxValue + 1);
+		forEachEdge(graph, (source, destination, transport) ->
+				edges[next[source]++] = (long) destination << 8 | transport.ordinal());
+
+		int[] neighbours = new int[edges.length];
+		byte[] transports = new byte[edges.length];
+		int size = 0;
+		for (int node = 0; node <= maxValue; node++) {
+			int from = offsets[node];
+			int to = offsets[node + 1];
+			offsets[node] = size;
+			Arrays.sort(edges, from, to);
+			for (int i = from; i < to; i++) {
+				int destination = (int) (edges[i] >>> 8);
+				if (size == offsets[node] || neighbours[size - 1] != destination)
+					neighbours[size++] = destination;
+				transports[size - 1] |= 1 << (int) (edges[i] & 0xff);
+			}
+		}
+		offsets[maxValue + 1] = size;
+		return new TransportAdjacency(maxValue, offsets, Arrays.copyOf(neighbours, size),
+				Arrays.copyOf(transports, size));
+	}
+
+	private interface EdgeVisitor {
+		void visit(int source, int destination, Transport transport);
+	}
+
+	private static void forEachEdge(Graph<Integer, Transport> graph, EdgeVisitor visitor) {
+		CsrGraph<Transport> csr = CsrGraph.backing(graph, Transport.class);
+		if (csr != null) {
+			for (int node = 0; node < csr.size(); node++) {
+				int source = csr.valueAt(node);
+				csr.forEachEdgeOf(node, (destination, transport) ->
+						visitor.visit(source, destination, transport));
+			}
+		} else {
+			for (Node<Integer> node : graph.getNodes()) {
+				int source = node.value();
+				graph.forEachEdgeFrom(source, (destination, transport) ->
+						visitor.visit(source, destination, transport));
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link #of(Graph)}, but builds the index of a frozen graph once
+	 * and hands the same index out for every later call with that graph
+	 *
+	 * @param graph the graph; not null, all node values must be non-negative
+	 * @return the index; never null
+	 */
+	public static TransportAdjacency shared(FrozenGraph<Integer, Transport> graph) {
+		Objects.requireNonNull(graph);
+		TransportAdjacency adjacency = SHARED.get(graph);
+		if (adjacency == null) {
+			adjacency = of(graph);
+			SHARED.put(graph, adjacency);
+		}
+		return adjacency;
+	}
+
+	/**
+	 * @param ticket the ticket; not null
+	 * @return bit t for every transport of ordinal t the ticket travels with,
+	 *         all of them for {@link Ticket#SECRET} and none for
+	 *         {@link Ticket#DOUBLE}
+	 */
+	static int transportsOf(Ticket ticket) {
+		if (ticket == Ticket.SECRET) return (1 << TRANSPORTS.length) - 1;
+		int mask = 0;
+		for (Transport transport : TRANSPORTS)
+			if (Ticket.fromTransport(transport) == ticket) mask |= 1 << transport.ordinal();
+		return mask;
+	}
+
+	/**
+	 * @return number of words in every set of nodes of this index
+	 */
+	public int words() {
+		return words;
+	}
+
+	/**
+	 * @param node the node value
+	 * @return the index of the first neighbour of the node; equal to
+	 *         {@link #end(int)} if the node is not in the index
+	 */
+	public int start(int node) {
+		return node < 0 || node >= offsets.length - 1 ? 0 : offsets[node];
+	}
+
+	/**
+	 * @param node the node value
+	 * @return the index after the last neighbour of the node
+	 */
+	public int end(int node) {
+		return node < 0 || node >= offsets.length - 1 ? 0 : offsets[node + 1];
+	}
+
+	/**
+	 * @param index the index, in {@code [start(node), end(node))} of a node
+	 * @return the value of the neighbour at the index
+	 */
+	public int neighbour(int index) {
+		return neighbours[index];
+	}
+
+	/**
+	 * @param index the index, in {@code [start(node), end(node))} of a node
+	 * @return bit t for every transport of ordinal t that reaches the
+	 *         neighbour at the index
+	 */
+	public int transports(int index) {
+		return transports[index];
+	}
+
+	/**
+	 * @param index the index, in {@code [start(node), end(node))} of a node
+	 * @param transport the transport; not null
+	 * @return whether the transport reaches the neighbour at the index
+	 */
+	public boolean connects(int index, Transport transport) {
+		return (transports[index] & 1 << transport.ordinal()) != 0;
+	}
+
+	/**
+	 * @return a new empty set of {@link #words()} words
+	 */
+	public long[] emptySet() {
+		return new long[words];
+	}
+
+	/**
+	 * Checks whether two nodes are connected by any transport
+	 */
+	public boolean isNeighbour(int node, int other) {
+		return Arrays.binarySearch(neighbours, start(node), end(node), other) >= 0;
+	}
+
+}
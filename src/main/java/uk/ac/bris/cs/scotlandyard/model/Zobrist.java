@@ -0,0 +1,148 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys of Scotland Yard positions.
+ * <br>
+ * A position is the set of its features: the node of each player, the count
+ * of each ticket of each player, the round, the colour to move and Mr.X's
+ * last known location. Its hash is the XOR of the keys of its features, so
+ * a move updates the hash by XOR-ing out the keys of the features it changes
+ * and XOR-ing in the new ones. Keys are fixed, hashes are the same across
+ * runs.
+ */
+public final class Zobrist {
+
+	private static final int NODES = PackedMove.MAX_DESTINATION + 1;
+	private static final int ROUNDS = 256;
+	private static final Colour[] COLOURS = Colour.values();
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	// feature kinds of keys without a table
+	private static final long LOCATION = 1;
+	private static final long TICKETS_HELD = 2;
+	private static final long ROUND = 3;
+	private static final long LAST_KNOWN = 4;
+
+	private static final long[] LOCATIONS = new long[COLOURS.length * NODES];
+	private static final long[] TO_MOVE = new long[COLOURS.length];
+	private static final long[] ROUND_KEYS = new long[ROUNDS];
+	private static final long[] LAST_KNOWN_KEYS = new long[NODES];
+
+	static {
+		SplittableRandom random = new SplittableRandom(0x5C07_1A2D_7A2DL);
+		for (int i = 0; i < LOCATIONS.length; i++)
+			LOCATIONS[i] = random.nextLong();
+		for (int i = 0; i < TO_MOVE.length; i++)
+			TO_MOVE[i] = random.nextLong();
+		for (int i = 0; i < ROUND_KEYS.length; i++)
+			ROUND_KEYS[i] = random.nextLong();
+		for (int i = 0; i < LAST_KNOWN_KEYS.length; i++)
+			LAST_KNOWN_KEYS[i] = random.nextLong();
+	}
+
+	private Zobrist() {
+		// nope
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param node the node value
+	 * @return the key of the player being on the node
+	 */
+	public static long location(Colour colour, int node) {
+		if (node >= 0 && node < NODES) return LOCATIONS[colour.ordinal() * NODES + node];
+		return key(LOCATION, colour.ordinal(), node);
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param ticket the ticket; not null
+	 * @param count the count
+	 * @return the key of the player having the count of the ticket
+	 */
+	public static long tickets(Colour colour, Ticket ticket, int count) {
+		return key(TICKETS_HELD, colour.ordinal() * TICKETS.length + ticket.ordinal(), count);
+	}
+
+	/**
+	 * @param round the round, as {@link ScotlandYardView#getCurrentRound()}
+	 * @return the key of the round
+	 */
+	public static long round(int round) {
+		if (round >= 0 && round < ROUNDS) return ROUND_KEYS[round];
+		return key(ROUND, 0, round);
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @return the key of the player being the one to move
+	 */
+	public static long toMove(Colour colour) {
+		return TO_MOVE[colour.ordinal()];
+	}
+
+	/**
+	 * @param node the node value
+	 * @return the key of Mr.X being last seen on the node
+	 */
+	public static long lastKnown(int node) {
+		if (node >= 0 && node < NODES) return LAST_KNOWN_KEYS[node];
+		return key(LAST_KNOWN, 0, node);
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param wallet the tickets of the player; not null
+	 * @return the XOR of the keys of the player's ticket counts
+	 */
+	public static long tickets(Colour colour, TicketWallet wallet) {
+		long hash = 0;
+		for (Ticket ticket : TICKETS)
+			hash ^= tickets(colour, ticket, wallet.count(ticket));
+		return hash;
+	}
+
+	/**
+	 * Same as {@link #hash(ScotlandYardView, int, int)} with Mr.X's last
+	 * known location taken from the view
+	 */
+	public static long hash(ScotlandYardView view, int mrXLocation) {
+		return hash(view, mrXLocation, view.getPlayerLocation(BLACK).orElse(0));
+	}
+
+	/**
+	 * Hashes a position from scratch, Mr.X's location is not asked of the
+	 * view
+	 *
+	 * @param view the game; not null
+	 * @param mrXLocation Mr.X's actual location, e.g the location given to
+	 *        his {@link Player}, or his last known location if that is all
+	 *        that is known
+	 * @param lastKnown Mr.X's last known location
+	 * @return the hash of the position
+	 */
+	public static long hash(ScotlandYardView view, int mrXLocation, int lastKnown) {
+		long hash = round(view.getCurrentRound()) ^ toMove(view.getCurrentPlayer());
+		hash ^= lastKnown(lastKnown);
+		for (Colour colour : view.getPlayers()) {
+			hash ^= location(colour, colour.isMrX() ? mrXLocation
+					: view.getPlayerLocation(colour).orElse(0));
+			for (Ticket ticket : TICKETS)
+				hash ^= tickets(colour, ticket, view.getPlayerTickets(colour, ticket).orElse(0));
+		}
+		return hash;
+	}
+
+	// a key for features without a table, the SplitMix64 finalizer of the feature
+	private static long key(long kind, int index, int value) {
+		long z = kind << 56 ^ (long) index << 32 ^ (value & 0xFFFFFFFFL);
+		z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+		return z ^ z >>> 31;
+	}
+
+}
@@ -0,0 +1,131 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Random;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.matrix.BitSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.SquareMatrix;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+
+/**
+ * Tests for {@link BitSquareMatrix}
+ */
+public class BitSquareMatrixTest {
+
+	// more than one word per row
+	private static BitSquareMatrix random(int size, long seed) {
+		Random random = new Random(seed);
+		BitSquareMatrix matrix = new BitSquareMatrix(size);
+		for (int row = 0; row < size; row++)
+			for (int column = 0; column < size; column++)
+				matrix.putBit(row, column, random.nextInt(20) == 0);
+		return matrix;
+	}
+
+	private static BitSquareMatrix naiveProduct(BitSquareMatrix left, BitSquareMatrix right) {
+		int size = left.size();
+		BitSquareMatrix product = new BitSquareMatrix(size);
+		for (int i = 0; i < size; i++)
+			for (int j = 0; j < size; j++)
+				for (int k = 0; k < size; k++)
+					if (left.getBit(i, k) && right.getBit(k, j)) product.putBit(i, j, true);
+		return product;
+	}
+
+	@Test
+	public void testBitsAcrossWords() {
+		BitSquareMatrix matrix = new BitSquareMatrix(130);
+		matrix.putBit(3, 0, true);
+		matrix.putBit(3, 64, true);
+		matrix.putBit(3, 129, true);
+		assertThat(matrix.getBit(3, 64)).isTrue();
+		assertThat(matrix.getBit(3, 63)).isFalse();
+		assertThat(matrix.get(3, 129)).isEqualTo(true);
+		assertThat(matrix.cardinality(3)).isEqualTo(3);
+		BitSet expected = new BitSet();
+		expected.set(0);
+		expected.set(64);
+		expected.set(129);
+		assertThat(matrix.rowBits(3)).isEqualTo(expected);
+		matrix.putBit(3, 64, false);
+		assertThat(matrix.cardinality(3)).isEqualTo(2);
+		assertThatThrownBy(() -> matrix.getBit(0, 130))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void testMultiplyMatchesNaiveProduct() {
+		BitSquareMatrix left = random(100, 1), right = random(100, 2);
+		assertThat(left.multiply(right)).isEqualTo(naiveProduct(left, right));
+	}
+
+	@Test
+	public void testPowerMatchesRepeatedProduct() {
+		BitSquareMatrix matrix = random(70, 3);
+		BitSquareMatrix expected = BitSquareMatrix.identity(70);
+		for (int exponent = 0; exponent <= 5; exponent++) {
+			assertThat(matrix.power(exponent)).isEqualTo(expected);
+			expected = naiveProduct(expected, matrix);
+		}
+		assertThatThrownBy(() -> matrix.power(-1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testAdjacencyClosureIsReachability() {
+		// 1 - 2 - 3 = 4, taxi(-) and bus(=)
+		Graph<Integer, Transport> graph = fromLines(asList(
+				"4 3", "1", "2", "3", "4", "1 2 Taxi", "2 3 Taxi", "3 4 Bus"));
+		BitSquareMatrix taxi = BitSquareMatrix.adjacency(graph, EnumSet.of(Transport.TAXI));
+		assertThat(taxi.getBit(0, 1)).isTrue();
+		assertThat(taxi.getBit(1, 0)).isTrue();
+		assertThat(taxi.getBit(2, 3)).isFalse();
+		assertThat(taxi.closure(1).rowBits(0)).isEqualTo(BitSet.valueOf(new long[] { 0b11 }));
+		assertThat(taxi.closure(2).rowBits(0)).isEqualTo(BitSet.valueOf(new long[] { 0b111 }));
+		assertThat(taxi.power(2).getBit(0, 0)).isTrue();
+		assertThat(taxi.power(2).getBit(0, 1)).isFalse();
+		BitSquareMatrix any = BitSquareMatrix.adjacency(graph, EnumSet.allOf(Transport.class));
+		assertThat(any.closure(3).cardinality(0)).isEqualTo(4);
+	}
+
+	@Test
+	public void testRowAndMatrixOperations() {
+		BitSquareMatrix matrix = new BitSquareMatrix(3);
+		matrix.putBit(0, 0, true);
+		matrix.putBit(1, 1, true);
+		matrix.putBit(1, 2, true);
+		matrix.orRow(0, 1);
+		assertThat(matrix.row(0)).containsExactly(true, true, true);
+		matrix.andRow(0, 1);
+		assertThat(matrix.row(0)).containsExactly(false, true, true);
+		BitSquareMatrix identity = BitSquareMatrix.identity(3);
+		matrix.or(identity);
+		assertThat(matrix.mainDiagonal()).containsExactly(true, true, true);
+		matrix.and(identity);
+		assertThat(matrix).isEqualTo(identity);
+		assertThatThrownBy(() -> matrix.or(new BitSquareMatrix(4)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testEqualsBoxedSquareMatrix() {
+		BitSquareMatrix matrix = random(10, 4);
+		SquareMatrix<Boolean> boxed = new SquareMatrix<>(10, false);
+		for (int row = 0; row < 10; row++)
+			for (int column = 0; column < 10; column++)
+				boxed.put(row, column, matrix.getBit(row, column));
+		assertThat(matrix).isEqualTo(boxed);
+		assertThat(boxed).isEqualTo(matrix);
+		assertThat(matrix.hashCode()).isEqualTo(boxed.hashCode());
+		assertThat(new BitSquareMatrix(matrix)).isEqualTo(matrix);
+	}
+
+}
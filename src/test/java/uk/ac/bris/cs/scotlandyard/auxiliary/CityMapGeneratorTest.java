@@ -0,0 +1,138 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import uk.ac.bris.cs.gamekit.graph.CityMapGenerator;
+import uk.ac.bris.cs.gamekit.graph.CityMapGenerator.CityMap;
+import uk.ac.bris.cs.gamekit.graph.IntCsrGraph;
+import uk.ac.bris.cs.scotlandyard.model.CompiledMap;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.FERRY;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.TAXI;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.UNDERGROUND;
+
+/**
+ * Tests for {@link CityMapGenerator}
+ */
+public class CityMapGeneratorTest {
+
+	private static final CityMapGenerator<Transport> GENERATOR =
+			new CityMapGenerator<>(TAXI, BUS, UNDERGROUND, FERRY);
+
+	private static String graphText(CityMap<Transport> map) throws IOException {
+		StringWriter out = new StringWriter();
+		map.writeGraph(out);
+		return out.toString();
+	}
+
+	private static String positionText(CityMap<Transport> map) throws IOException {
+		StringWriter out = new StringWriter();
+		map.writePositions(out);
+		return out.toString();
+	}
+
+	// number of nodes reachable from the first node through edges of the
+	// given data alone
+	private static int reachable(IntCsrGraph<Transport> graph, Transport data) {
+		boolean[] seen = new boolean[graph.size()];
+		Deque<Integer> queue = new ArrayDeque<>();
+		seen[0] = true;
+		queue.add(0);
+		int count = 0;
+		while (!queue.isEmpty()) {
+			int node = queue.remove();
+			count++;
+			for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+				int target = graph.target(edge);
+				if (graph.data(edge) == data && !seen[target]) {
+					seen[target] = true;
+					queue.add(target);
+				}
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testSameSeedGivesTheSameMap() throws IOException {
+		CityMap<Transport> map = GENERATOR.generate(1000, 7);
+		CityMap<Transport> same = GENERATOR.generate(1000, 7);
+		assertThat(graphText(same)).isEqualTo(graphText(map));
+		assertThat(positionText(same)).isEqualTo(positionText(map));
+		assertThat(same.toGraph()).isEqualTo(map.toGraph());
+		assertThat(graphText(GENERATOR.generate(1000, 8))).isNotEqualTo(graphText(map));
+	}
+
+	@Test
+	public void testCountsAndTransportMixFollowTheStandardMap() {
+		for (int nodes : new int[] { 199, 2000, 50_000 }) {
+			CityMap<Transport> map = GENERATOR.generate(nodes, nodes);
+			IntCsrGraph<Transport> graph = map.toGraph();
+			assertThat(map.size()).isEqualTo(nodes);
+			assertThat(graph.size()).isEqualTo(nodes);
+			assertThat(graph.edgeCount()).isEqualTo(2 * map.edgeCount());
+			assertThat(map.edgeCount(TAXI) + map.edgeCount(BUS) + map.edgeCount(UNDERGROUND)
+					+ map.edgeCount(FERRY)).isEqualTo(map.edgeCount());
+			// about 1.7 street, 0.5 bus, 0.1 underground and 0.015 ferry
+			// edges per node
+			assertThat((double) map.edgeCount(TAXI) / nodes).isBetween(1.3, 2.1);
+			assertThat((double) map.edgeCount(BUS) / nodes).isBetween(0.3, 0.7);
+			assertThat((double) map.edgeCount(UNDERGROUND) / nodes).isBetween(0.05, 0.2);
+			assertThat(map.edgeCount(FERRY)).isGreaterThan(0);
+			assertThat((double) map.edgeCount(FERRY) / nodes).isLessThan(0.05);
+		}
+	}
+
+	@Test
+	public void testStreetsConnectTheMap() {
+		for (int nodes : new int[] { 2, 3, 199, 10_001 }) {
+			IntCsrGraph<Transport> graph = GENERATOR.generate(nodes, 42).toGraph();
+			assertThat(reachable(graph, TAXI)).isEqualTo(nodes);
+		}
+	}
+
+	@Test
+	public void testWrittenMapReadsBack() throws IOException {
+		CityMap<Transport> map = GENERATOR.generate(500, 3);
+		Path graph = Files.createTempFile("graph", ".txt");
+		Path positions = Files.createTempFile("pos", ".txt");
+		try {
+			map.write(graph, positions);
+			assertThat(ScotlandYardGraphReader.compactFromPath(graph)).isEqualTo(map.toGraph());
+			CompiledMap compiled = CompiledMap.compile(
+					Files.readAllLines(graph, StandardCharsets.UTF_8),
+					Files.readAllLines(positions, StandardCharsets.UTF_8));
+			assertThat(compiled.graph()).isEqualTo(map.toGraph());
+			for (int node = 1; node <= map.size(); node++) {
+				assertThat(compiled.hasPosition(node)).isTrue();
+				assertThat(compiled.x(node)).isEqualTo(map.x(node));
+				assertThat(compiled.y(node)).isEqualTo(map.y(node));
+			}
+		} finally {
+			Files.delete(graph);
+			Files.delete(positions);
+		}
+	}
+
+	@Test
+	public void testBadNodeCountShouldThrow() {
+		assertThatThrownBy(() -> GENERATOR.generate(1, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> GENERATOR.generate(CityMapGenerator.MAX_NODES + 1, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
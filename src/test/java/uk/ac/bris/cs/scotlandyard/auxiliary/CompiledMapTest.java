@@ -0,0 +1,95 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.model.CompiledMap;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+
+/**
+ * Tests for {@link CompiledMap}
+ */
+public class CompiledMapTest {
+
+	@Test
+	public void testCompiledGraphEqualsGraph() {
+		CompiledMap map = CompiledMap.compile(
+				asList("3 2", "1", "2", "3", "1 2 Ferry", "3 2 Taxi"),
+				asList("3", "1 10 20", "3 30 40"));
+		assertThat(map.graph())
+				.isEqualTo(fromLines(asList("3 2", "1", "2", "3", "1 2 Ferry", "3 2 Taxi")));
+		assertThat(map.x(1)).isEqualTo(10);
+		assertThat(map.y(3)).isEqualTo(40);
+		assertThat(map.hasPosition(2)).isFalse();
+	}
+
+	@Test
+	public void testPositionOfMissingNodeShouldThrow() {
+		assertThatThrownBy(() -> CompiledMap.compile(
+				asList("2 1", "1", "2", "1 2 Taxi"), asList("3 10 20")));
+	}
+
+	@Test
+	public void testWrittenMapLoads() throws IOException {
+		CompiledMap map = CompiledMap.compile(
+				asList("2 1", "1", "2", "1 2 Bus"), asList("1 5 6"));
+		Path file = Files.createTempFile("map", ".bin");
+		try {
+			map.write(file);
+			CompiledMap loaded = CompiledMap.load(file);
+			assertThat(loaded.graph()).isEqualTo(map.graph());
+			assertThat(loaded.x(1)).isEqualTo(5);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testStandardMapIsUpToDate() throws IOException, URISyntaxException {
+		Path graph = resource("graph.txt");
+		assertThat(StandardGame.standardGraph()).isEqualTo(fromLines(Files.readAllLines(graph)));
+	}
+
+	@Test
+	public void testStandardMapMatchesFreshCompile() throws IOException, URISyntaxException {
+		// regenerate with: java uk.ac.bris.cs.scotlandyard.model.CompiledMap
+		// src/main/resources/graph.txt src/main/resources/pos.txt src/main/resources/map.bin
+		CompiledMap compiled = CompiledMap.compile(
+				Files.readAllLines(resource("graph.txt"), StandardCharsets.UTF_8),
+				Files.readAllLines(resource("pos.txt"), StandardCharsets.UTF_8));
+		CompiledMap standard = StandardGame.compiledMap();
+		for (Node<Integer> node : compiled.graph().getNodes()) {
+			int value = node.value();
+			assertThat(standard.hasPosition(value)).isEqualTo(compiled.hasPosition(value));
+			if (!compiled.hasPosition(value)) continue;
+			assertThat(standard.x(value)).isEqualTo(compiled.x(value));
+			assertThat(standard.y(value)).isEqualTo(compiled.y(value));
+		}
+		Path file = Files.createTempFile("map", ".bin");
+		try {
+			compiled.write(file);
+			assertThat(Arrays.equals(Files.readAllBytes(file),
+					Files.readAllBytes(resource("map.bin")))).isTrue();
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static Path resource(String name) throws URISyntaxException {
+		return Paths.get(StandardGame.class.getClassLoader().getResource(name).toURI());
+	}
+
+}
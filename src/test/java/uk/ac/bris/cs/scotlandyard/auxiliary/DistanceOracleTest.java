@@ -0,0 +1,117 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.bris.cs.gamekit.graph.DistanceOracle;
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.TAXI;
+
+/**
+ * Tests for {@link DistanceOracle}
+ */
+public class DistanceOracleTest {
+
+	// 6 - 1 - 2 = 3 # 4 ~ 5, taxi(-), bus(=), underground(#) and ferry(~)
+	private final DistanceOracle<Transport> oracle = DistanceOracle.lazy(fromLines(asList(
+			"6 5", "1", "2", "3", "4", "5", "6",
+			"1 2 Taxi", "2 3 Bus", "3 4 Underground", "4 5 Ferry", "1 6 Taxi")),
+			Transport.class);
+
+	// hop counts from a node by breadth-first search over the graph interface
+	private static Map<Integer, Integer> hops(Graph<Integer, Transport> graph, int from,
+			Collection<Transport> using) {
+		Map<Integer, Integer> hops = new HashMap<>();
+		Deque<Integer> queue = new ArrayDeque<>();
+		hops.put(from, 0);
+		queue.add(from);
+		while (!queue.isEmpty()) {
+			int node = queue.remove();
+			for (Edge<Integer, Transport> edge : graph.getEdgesFrom(new Node<>(node))) {
+				if (!using.contains(edge.data())) continue;
+				int next = edge.destination().value();
+				if (hops.containsKey(next)) continue;
+				hops.put(next, hops.get(node) + 1);
+				queue.add(next);
+			}
+		}
+		return hops;
+	}
+
+	@Test
+	public void testDistancesOnSmallMap() {
+		assertThat(oracle.distance(1, 1)).isEqualTo(0);
+		assertThat(oracle.distance(1, 6)).isEqualTo(1);
+		assertThat(oracle.distance(6, 5)).isEqualTo(5);
+		assertThat(oracle.distance(5, 6)).isEqualTo(5);
+		assertThat(oracle.distance(1, 3, EnumSet.of(TAXI))).isEqualTo(DistanceOracle.UNREACHABLE);
+		assertThat(oracle.distance(1, 3, EnumSet.of(TAXI, BUS))).isEqualTo(2);
+		assertThat(oracle.distance(1, 3, DistanceOracle.mask(EnumSet.of(TAXI, BUS))))
+				.isEqualTo(2);
+	}
+
+	@Test
+	public void testUnknownNodeOrMaskShouldThrow() {
+		assertThatThrownBy(() -> oracle.distance(1, 7))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> oracle.distance(1, 2, 1 << Transport.values().length))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> oracle.distance(1, 2, -1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testStandardMapMatchesBreadthFirstSearch() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		DistanceOracle<Transport> built = DistanceOracle.build(graph, Transport.class);
+		DistanceOracle<Transport> lazy = DistanceOracle.lazy(graph, Transport.class);
+		List<Collection<Transport>> subsets = new ArrayList<>();
+		subsets.add(EnumSet.allOf(Transport.class));
+		subsets.add(EnumSet.of(TAXI));
+		subsets.add(EnumSet.of(BUS, Transport.UNDERGROUND));
+		for (Collection<Transport> using : subsets) {
+			for (int from : new int[] { 1, 67, 128, 199 }) {
+				Map<Integer, Integer> expected = hops(graph, from, using);
+				for (Node<Integer> node : graph.getNodes()) {
+					int to = node.value();
+					int distance = expected.getOrDefault(to, DistanceOracle.UNREACHABLE);
+					assertThat(built.distance(from, to, using)).isEqualTo(distance);
+					assertThat(lazy.distance(from, to, using)).isEqualTo(distance);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTooLongPathShouldThrow() {
+		List<String> lines = new ArrayList<>();
+		lines.add("300 299");
+		for (int node = 1; node <= 300; node++)
+			lines.add(String.valueOf(node));
+		for (int node = 1; node < 300; node++)
+			lines.add(node + " " + (node + 1) + " Taxi");
+		DistanceOracle<Transport> path = DistanceOracle.lazy(fromLines(lines), Transport.class);
+		assertThatThrownBy(() -> path.distance(1, 300))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+}
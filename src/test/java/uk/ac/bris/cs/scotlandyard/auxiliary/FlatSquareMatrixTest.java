@@ -0,0 +1,170 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import uk.ac.bris.cs.gamekit.matrix.ByteSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.DoubleSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.SquareMatrix;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link IntSquareMatrix}, {@link ByteSquareMatrix} and
+ * {@link DoubleSquareMatrix}
+ */
+public class FlatSquareMatrixTest {
+
+	// 0 1 2
+	// 3 4 5
+	// 6 7 8
+	private static IntSquareMatrix counting() {
+		IntSquareMatrix matrix = new IntSquareMatrix(3, 0);
+		for (int row = 0; row < 3; row++)
+			for (int column = 0; column < 3; column++)
+				matrix.putInt(row, column, row * 3 + column);
+		return matrix;
+	}
+
+	@Test
+	public void testDefaultValueFillsEveryCell() {
+		IntSquareMatrix matrix = new IntSquareMatrix(4, 7);
+		assertThat(matrix.size()).isEqualTo(4);
+		assertThat(matrix.count()).isEqualTo(16);
+		for (int cell : matrix.toArray())
+			assertThat(cell).isEqualTo(7);
+	}
+
+	@Test
+	public void testBoxedAndUnboxedAccessAgree() {
+		IntSquareMatrix matrix = counting();
+		matrix.put(1, 2, 42);
+		assertThat(matrix.getInt(1, 2)).isEqualTo(42);
+		matrix.putInt(2, 1, -1);
+		assertThat(matrix.get(2, 1)).isEqualTo(-1);
+	}
+
+	@Test
+	public void testLinesFollowRowMajorOrder() {
+		IntSquareMatrix matrix = counting();
+		assertThat(matrix.row(1)).containsExactly(3, 4, 5);
+		assertThat(matrix.column(2)).containsExactly(2, 5, 8);
+		assertThat(matrix.mainDiagonal()).containsExactly(0, 4, 8);
+		assertThat(matrix.antiDiagonal()).containsExactly(2, 4, 6);
+		assertThat(matrix.asList()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8);
+		assertThat(matrix.toArray()).isEqualTo(new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8 });
+	}
+
+	@Test
+	public void testRowAndColumnWrites() {
+		IntSquareMatrix matrix = counting();
+		matrix.row(0, asList(9, 9, 9));
+		matrix.column(2, asList(1, 1, 1));
+		assertThat(matrix.asList()).containsExactly(9, 9, 1, 3, 4, 1, 6, 7, 1);
+		matrix.fillRow(1, 0);
+		assertThat(matrix.row(1)).containsExactly(0, 0, 0);
+	}
+
+	@Test
+	public void testEqualsBoxedSquareMatrix() {
+		SquareMatrix<Integer> boxed = new SquareMatrix<>(3, 0);
+		for (int row = 0; row < 3; row++)
+			for (int column = 0; column < 3; column++)
+				boxed.put(row, column, row * 3 + column);
+		IntSquareMatrix matrix = counting();
+		assertThat(matrix).isEqualTo(boxed);
+		assertThat(boxed).isEqualTo(matrix);
+		assertThat(matrix.hashCode()).isEqualTo(boxed.hashCode());
+		assertThat(IntSquareMatrix.copyOf(boxed)).isEqualTo(matrix);
+	}
+
+	@Test
+	public void testCopiesAreIndependent() {
+		IntSquareMatrix matrix = counting();
+		IntSquareMatrix copy = new IntSquareMatrix(matrix);
+		IntSquareMatrix copyOf = IntSquareMatrix.copyOf(matrix);
+		matrix.putInt(0, 0, 100);
+		assertThat(copy.getInt(0, 0)).isEqualTo(0);
+		assertThat(copyOf.getInt(0, 0)).isEqualTo(0);
+		copy.copyFrom(matrix);
+		assertThat(copy).isEqualTo(matrix);
+	}
+
+	@Test
+	public void testOutOfBoundsShouldThrow() {
+		IntSquareMatrix matrix = counting();
+		assertThat(matrix.inBounds(2, 2)).isTrue();
+		assertThat(matrix.inBounds(3, 0)).isFalse();
+		assertThatThrownBy(() -> matrix.getInt(3, 0))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.get(0, -1))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.row(3)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.row(0).get(3))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void testBadArgumentsShouldThrow() {
+		IntSquareMatrix matrix = counting();
+		assertThatThrownBy(() -> new IntSquareMatrix(0, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new IntSquareMatrix(1 << 16, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.put(0, 0, null)).isInstanceOf(NullPointerException.class);
+		assertThatThrownBy(() -> matrix.copyFrom(new int[8]))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.copyFrom(new IntSquareMatrix(2, 0)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.row(0).set(0, 1))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testByteMatrix() {
+		ByteSquareMatrix matrix = new ByteSquareMatrix(2, (byte) 1);
+		matrix.putByte(0, 1, (byte) -3);
+		matrix.fillRow(1, (byte) 5);
+		assertThat(matrix.toArray()).isEqualTo(new byte[] { 1, -3, 5, 5 });
+		assertThat(matrix.get(0, 1)).isEqualTo((byte) -3);
+		assertThat(ByteSquareMatrix.copyOf(matrix)).isEqualTo(matrix);
+		matrix.fill((byte) 0);
+		assertThat(matrix.asList()).containsExactly((byte) 0, (byte) 0, (byte) 0, (byte) 0);
+	}
+
+	@Test
+	public void testDoubleMatrix() {
+		DoubleSquareMatrix matrix = new DoubleSquareMatrix(2, 0.5);
+		matrix.putDouble(1, 0, 2.25);
+		assertThat(matrix.toArray()).isEqualTo(new double[] { 0.5, 0.5, 2.25, 0.5 });
+		assertThat(matrix.get(1, 0)).isEqualTo(2.25);
+		matrix.copyFrom(new double[] { 1, 2, 3, 4 });
+		assertThat(matrix.mainDiagonal()).containsExactly(1.0, 4.0);
+		assertThat(DoubleSquareMatrix.copyOf(matrix)).isEqualTo(matrix);
+	}
+
+	@Test
+	public void testSerializationRoundTrip() throws IOException, ClassNotFoundException {
+		IntSquareMatrix matrix = counting();
+		matrix.row(0); // views are transient
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(matrix);
+		}
+		try (ObjectInputStream in =
+				new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			IntSquareMatrix copy = (IntSquareMatrix) in.readObject();
+			assertThat(copy).isEqualTo(matrix);
+			assertThat(copy.row(2)).containsExactly(6, 7, 8);
+		}
+	}
+
+}
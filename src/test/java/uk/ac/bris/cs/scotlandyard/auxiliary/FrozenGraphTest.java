@@ -0,0 +1,122 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.FrozenGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.harness.ImmutableScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+
+/**
+ * Tests for {@link FrozenGraph}
+ */
+public class FrozenGraphTest {
+
+	private static UndirectedGraph<Integer, Transport> graph() {
+		return new UndirectedGraph<>(
+				fromLines(asList("3 2", "1", "2", "3", "1 2 Ferry", "3 2 Taxi")));
+	}
+
+	@Test
+	public void testFreezingAFrozenGraphReturnsIt() {
+		FrozenGraph<Integer, Transport> frozen = FrozenGraph.of(graph());
+		assertThat(FrozenGraph.of(frozen)).isSameAs(frozen);
+		assertThat(FrozenGraph.of(new ImmutableGraph<>(frozen))).isSameAs(frozen);
+		assertThat(FrozenGraph.of(new ImmutableGraph<>(new ImmutableGraph<>(frozen))))
+				.isSameAs(frozen);
+	}
+
+	@Test
+	public void testFreezingAnUnchangedGraphAgainSharesTheCopy() {
+		UndirectedGraph<Integer, Transport> graph = graph();
+		FrozenGraph<Integer, Transport> frozen = FrozenGraph.of(graph);
+		assertThat(FrozenGraph.of(graph)).isSameAs(frozen);
+		assertThat(FrozenGraph.of(new ImmutableGraph<>(graph))).isSameAs(frozen);
+
+		graph.addNode(new Node<>(4));
+		graph.addEdge(new Edge<>(graph.getNode(3), graph.getNode(4), Transport.BUS));
+		FrozenGraph<Integer, Transport> changed = FrozenGraph.of(graph);
+		assertThat(changed).isNotSameAs(frozen);
+		assertThat(changed).isEqualTo(graph).isNotEqualTo(frozen);
+		// the earlier copy is unaffected
+		assertThat(frozen.size()).isEqualTo(3);
+		assertThat(frozen).isEqualTo(graph());
+
+		CsrGraph<Transport> csr = CsrGraph.of(graph, Transport.class);
+		assertThat(FrozenGraph.of(csr)).isSameAs(FrozenGraph.of(csr));
+	}
+
+	@Test
+	public void testFrozenGraphEqualsGraphsWithTheSameContent() {
+		UndirectedGraph<Integer, Transport> graph = graph();
+		FrozenGraph<Integer, Transport> frozen = FrozenGraph.of(graph);
+		FrozenGraph<Integer, Transport> csr = FrozenGraph.of(CsrGraph.of(graph, Transport.class));
+		assertThat(frozen).isEqualTo(graph);
+		assertThat(graph).isEqualTo(frozen);
+		assertThat(new ImmutableGraph<>(graph)).isEqualTo(frozen);
+		assertThat(csr).isEqualTo(frozen);
+		assertThat(frozen).isEqualTo(csr);
+
+		UndirectedGraph<Integer, Transport> other = graph();
+		other.addNode(new Node<>(4));
+		assertThat(FrozenGraph.of(other)).isNotEqualTo(frozen);
+		assertThat(frozen).isNotEqualTo(other);
+	}
+
+	@Test
+	public void testCachedHashIsTheHashOfTheContent() {
+		UndirectedGraph<Integer, Transport> graph = graph();
+		FrozenGraph<Integer, Transport> frozen = FrozenGraph.of(graph);
+		assertThat(frozen.hashCode()).isEqualTo(graph.hashCode());
+		assertThat(frozen.hashCode()).isEqualTo(frozen.hashCode());
+		assertThat(FrozenGraph.of(CsrGraph.of(graph, Transport.class)).hashCode())
+				.isEqualTo(frozen.hashCode());
+		assertThat(FrozenGraph.of(new UndirectedGraph<Integer, Transport>()).hashCode())
+				.isEqualTo(new UndirectedGraph<Integer, Transport>().hashCode());
+	}
+
+	@Test
+	public void testFrozenGraphCannotBeChanged() {
+		FrozenGraph<Integer, Transport> frozen = FrozenGraph.of(graph());
+		assertThatThrownBy(() -> frozen.addNode(new Node<>(4)))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> frozen.addEdge(
+				new Edge<>(frozen.getNode(1), frozen.getNode(3), Transport.TAXI)))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testSnapshotsShareTheFrozenMap() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		ScotlandYardModel model = new ScotlandYardModel(asList(false, true, false), graph,
+				new PlayerConfiguration.Builder(BLACK).using((view, location, moves, callback) -> {})
+						.with(StandardGame.generateMrXTickets()).at(45).build(),
+				new PlayerConfiguration.Builder(BLUE).using((view, location, moves, callback) -> {})
+						.with(StandardGame.generateDetectiveTickets()).at(94).build());
+		assertThat(model.getGraph()).isSameAs(FrozenGraph.of(graph));
+		ImmutableScotlandYardView first = ImmutableScotlandYardView.snapshot(model);
+		ImmutableScotlandYardView second = ImmutableScotlandYardView.snapshot(model);
+		assertThat(first.getGraph()).isSameAs(model.getGraph());
+		assertThat(second.getGraph()).isSameAs(first.getGraph());
+		assertThat(ImmutableScotlandYardView.snapshot(first).getGraph()).isSameAs(first.getGraph());
+		assertThat(first.getGraph()).isEqualTo(graph);
+	}
+
+}
@@ -0,0 +1,97 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.MappedCsrGraph;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+
+/**
+ * Tests for {@link MappedCsrGraph}
+ */
+public class MappedCsrGraphTest {
+
+	// 3 nodes and 2 edges each way: values, sorted, offsets, sources, targets,
+	// order and then the data bytes
+	private static final int VALUES = 12, SORTED = VALUES + 12, OFFSETS = SORTED + 12,
+			SOURCES = OFFSETS + 16, TARGETS = SOURCES + 16, ORDER = TARGETS + 16,
+			DATA = ORDER + 16;
+
+	private static ByteBuffer section() {
+		CsrGraph<Transport> graph = CsrGraph.of(
+				fromLines(asList("3 2", "1", "2", "3", "1 2 Ferry", "3 2 Taxi")), Transport.class);
+		ByteBuffer buffer = ByteBuffer.allocate(MappedCsrGraph.sizeOf(graph));
+		MappedCsrGraph.write(graph, buffer);
+		buffer.flip();
+		return buffer;
+	}
+
+	private static void assertMalformed(ByteBuffer buffer) {
+		assertThatThrownBy(() -> MappedCsrGraph.read(buffer, Transport.class))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testWrittenSectionReadsBack() {
+		ByteBuffer buffer = section();
+		MappedCsrGraph<Transport> graph = MappedCsrGraph.read(buffer, Transport.class);
+		assertThat(buffer.remaining()).isEqualTo(0);
+		assertThat(graph)
+				.isEqualTo(fromLines(asList("3 2", "1", "2", "3", "1 2 Ferry", "3 2 Taxi")));
+		assertThat(graph.indexOf(3)).isEqualTo(2);
+		assertThat(graph.indexOf(4)).isEqualTo(-1);
+	}
+
+	@Test
+	public void testNonMonotonicOffsetsShouldThrow() {
+		ByteBuffer buffer = section();
+		buffer.putInt(OFFSETS + 4, 3);
+		assertMalformed(buffer);
+	}
+
+	@Test
+	public void testEdgeFromAnotherNodeShouldThrow() {
+		ByteBuffer buffer = section();
+		buffer.putInt(SOURCES, 1);
+		assertMalformed(buffer);
+	}
+
+	@Test
+	public void testIndicesOutOfRangeShouldThrow() {
+		for (int offset : new int[] { SORTED, TARGETS, ORDER }) {
+			for (int index : new int[] { -1, 4 }) {
+				ByteBuffer buffer = section();
+				buffer.putInt(offset, index);
+				assertMalformed(buffer);
+			}
+		}
+		ByteBuffer unsorted = section();
+		unsorted.putInt(SORTED, 2);
+		assertMalformed(unsorted);
+	}
+
+	@Test
+	public void testDataOrdinalOutOfRangeShouldThrow() {
+		ByteBuffer buffer = section();
+		buffer.put(DATA, (byte) Transport.values().length);
+		assertMalformed(buffer);
+		buffer = section();
+		buffer.put(DATA + 1, (byte) -1);
+		assertMalformed(buffer);
+	}
+
+	@Test
+	public void testTruncatedSectionShouldThrow() {
+		ByteBuffer buffer = section();
+		buffer.limit(DATA);
+		assertMalformed(buffer);
+	}
+
+}
@@ -0,0 +1,138 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.MappedMatrix;
+import uk.ac.bris.cs.gamekit.matrix.MappedMatrix.CellType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link MappedMatrix}
+ */
+public class MappedMatrixTest {
+
+	private Path directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("matrix");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+				Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testCellsOfEveryTypeRoundTrip() throws IOException {
+		for (CellType type : CellType.values()) {
+			Path file = directory.resolve(type + ".bin");
+			MappedMatrix matrix = MappedMatrix.create(file, type, 3, 5);
+			assertThat(matrix.getLong(2, 4)).isEqualTo(0L);
+			matrix.putLong(0, 1, -7);
+			matrix.putLong(2, 4, 100);
+			matrix.force();
+			MappedMatrix opened = MappedMatrix.open(file);
+			assertThat(opened.cellType()).isEqualTo(type);
+			assertThat(opened.isReadOnly()).isTrue();
+			assertThat(opened.rowSize()).isEqualTo(3);
+			assertThat(opened.columnSize()).isEqualTo(5);
+			assertThat(opened.getInt(0, 1)).isEqualTo(-7);
+			assertThat(opened.getDouble(2, 4)).isEqualTo(100.0);
+			assertThat(opened).isEqualTo(matrix);
+		}
+	}
+
+	@Test
+	public void testCellsAreBoxedAsTheirType() throws IOException {
+		MappedMatrix bytes = MappedMatrix.create(directory.resolve("a"), CellType.BYTE, 1, 1);
+		assertThat(bytes.get(0, 0)).isInstanceOf(Byte.class);
+		MappedMatrix doubles = MappedMatrix.create(directory.resolve("b"), CellType.DOUBLE, 1, 2);
+		doubles.put(0, 1, 2.5);
+		assertThat(doubles.get(0, 1)).isEqualTo(2.5);
+		assertThat(doubles.getLong(0, 1)).isEqualTo(2L);
+		assertThat(doubles.row(0)).containsExactly(0.0, 2.5);
+	}
+
+	@Test
+	public void testValuesThatDoNotFitShouldThrow() throws IOException {
+		MappedMatrix matrix = MappedMatrix.create(directory.resolve("m"), CellType.BYTE, 2, 2);
+		assertThatThrownBy(() -> matrix.putLong(0, 0, 128))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.putDouble(0, 0, 1.5))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.getLong(2, 0))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void testReadOnlyAndWritableFiles() throws IOException {
+		Path file = directory.resolve("m");
+		MappedMatrix.create(file, CellType.INT, 2, 2).force();
+		MappedMatrix readOnly = MappedMatrix.open(file);
+		assertThatThrownBy(() -> readOnly.putLong(0, 0, 1))
+				.isInstanceOf(UnsupportedOperationException.class);
+		MappedMatrix writable = MappedMatrix.openWritable(file);
+		writable.putLong(1, 1, 42);
+		// both map the same pages
+		assertThat(readOnly.getInt(1, 1)).isEqualTo(42);
+	}
+
+	@Test
+	public void testCopyOfEqualsSource() throws IOException {
+		IntSquareMatrix source = new IntSquareMatrix(4, 0);
+		for (int i = 0; i < 16; i++)
+			source.putInt(i / 4, i % 4, i * 1000);
+		MappedMatrix copy = MappedMatrix.copyOf(directory.resolve("m"), CellType.INT, source);
+		assertThat(copy).isEqualTo(source);
+		assertThat(source).isEqualTo(copy);
+		assertThat(copy.hashCode()).isEqualTo(source.hashCode());
+	}
+
+	@Test
+	public void testCachedComputesOnce() throws IOException {
+		Path file = directory.resolve("cached.bin");
+		AtomicInteger computed = new AtomicInteger();
+		MappedMatrix first = MappedMatrix.cached(file, CellType.SHORT, 2, 3, matrix -> {
+			computed.incrementAndGet();
+			matrix.putLong(1, 2, 12);
+		});
+		MappedMatrix second = MappedMatrix.cached(file, CellType.SHORT, 2, 3,
+				matrix -> computed.incrementAndGet());
+		assertThat(computed.get()).isEqualTo(1);
+		assertThat(first.isReadOnly()).isTrue();
+		assertThat(second.getInt(1, 2)).isEqualTo(12);
+		// another size is computed again
+		MappedMatrix.cached(file, CellType.SHORT, 3, 3, matrix -> computed.incrementAndGet());
+		assertThat(computed.get()).isEqualTo(2);
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files.count()).isEqualTo(1L);
+		}
+	}
+
+	@Test
+	public void testOtherFilesShouldThrowOrBeReplaced() throws IOException {
+		Path file = directory.resolve("text.bin");
+		Files.write(file, "not a matrix".getBytes("UTF-8"));
+		assertThatThrownBy(() -> MappedMatrix.open(file)).isInstanceOf(IOException.class);
+		MappedMatrix matrix = MappedMatrix.cached(file, CellType.LONG, 1, 1,
+				computed -> computed.putLong(0, 0, Long.MAX_VALUE));
+		assertThat(matrix.getLong(0, 0)).isEqualTo(Long.MAX_VALUE);
+	}
+
+}
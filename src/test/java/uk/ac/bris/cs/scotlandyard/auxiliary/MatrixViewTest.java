@@ -0,0 +1,91 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.matrix.ByteSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.DoubleSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.SquareMatrix;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the row, column and diagonal views of {@link SquareMatrix} and
+ * the flat square matrices
+ */
+public class MatrixViewTest {
+
+	@Test
+	public void testSquareMatrixViewsAreCached() {
+		SquareMatrix<String> matrix = new SquareMatrix<>(3, "");
+		assertThat(matrix.row(1)).isSameAs(matrix.row(1));
+		assertThat(matrix.column(2)).isSameAs(matrix.column(2));
+		assertThat(matrix.mainDiagonal()).isSameAs(matrix.mainDiagonal());
+		assertThat(matrix.antiDiagonal()).isSameAs(matrix.antiDiagonal());
+		assertThat(matrix.asList()).isSameAs(matrix.asList());
+	}
+
+	@Test
+	public void testSquareMatrixViewsSeeLaterWrites() {
+		SquareMatrix<String> matrix = new SquareMatrix<>(3, "");
+		List<String> row = matrix.row(0);
+		List<String> column = matrix.column(2);
+		List<String> anti = matrix.antiDiagonal();
+		List<String> all = matrix.asList();
+		matrix.put(0, 2, "a");
+		matrix.row(1, asList("b", "c", "d"));
+		matrix.column(0, asList("e", "f", "g"));
+		assertThat(row).containsExactly("e", "", "a");
+		assertThat(column).containsExactly("a", "d", "");
+		assertThat(anti).containsExactly("a", "c", "g");
+		assertThat(all).containsExactly("e", "", "a", "f", "c", "d", "g", "", "");
+		assertThatThrownBy(() -> row.set(0, "x"))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testSquareMatrixCopyHasOwnViews() {
+		SquareMatrix<String> matrix = new SquareMatrix<>(2, "");
+		List<String> row = matrix.row(0);
+		SquareMatrix<String> copy = new SquareMatrix<>(matrix);
+		copy.put(0, 0, "copy");
+		assertThat(row).containsExactly("", "");
+		assertThat(copy.row(0)).containsExactly("copy", "");
+	}
+
+	@Test
+	public void testFlatViewsAreCachedAndLive() {
+		IntSquareMatrix matrix = new IntSquareMatrix(3, 0);
+		IntSquareMatrix.View row = matrix.rowView(2);
+		assertThat(row).isSameAs(matrix.rowView(2));
+		assertThat(matrix.row(2)).isSameAs(row);
+		assertThat(matrix.columnView(0)).isSameAs(matrix.column(0));
+		assertThat(matrix.mainDiagonalView()).isSameAs(matrix.mainDiagonal());
+		assertThat(matrix.antiDiagonalView()).isSameAs(matrix.antiDiagonal());
+		matrix.putInt(2, 1, 5);
+		matrix.fillRow(0, 1);
+		assertThat(row.getInt(1)).isEqualTo(5);
+		assertThat(row.toIntArray()).isEqualTo(new int[] { 0, 5, 0 });
+		assertThat(matrix.columnView(1).toIntArray()).isEqualTo(new int[] { 1, 0, 5 });
+		assertThat(matrix.antiDiagonalView().toIntArray()).isEqualTo(new int[] { 1, 0, 0 });
+		assertThatThrownBy(() -> row.getInt(3)).isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void testByteAndDoubleViews() {
+		ByteSquareMatrix bytes = new ByteSquareMatrix(2, (byte) 0);
+		ByteSquareMatrix.View diagonal = bytes.mainDiagonalView();
+		bytes.fill((byte) 3);
+		assertThat(diagonal.toByteArray()).isEqualTo(new byte[] { 3, 3 });
+		DoubleSquareMatrix doubles = new DoubleSquareMatrix(2, 0);
+		DoubleSquareMatrix.View column = doubles.columnView(1);
+		doubles.putDouble(1, 1, 0.25);
+		assertThat(column.getDouble(1)).isEqualTo(0.25);
+		assertThat(column.toDoubleArray()).isEqualTo(new double[] { 0, 0.25 });
+	}
+
+}
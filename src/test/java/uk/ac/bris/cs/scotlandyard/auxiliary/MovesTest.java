@@ -0,0 +1,127 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Moves;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+import static uk.ac.bris.cs.scotlandyard.model.PackedMove.MAX_DESTINATION;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+
+/**
+ * Tests for {@link Moves}
+ */
+public class MovesTest {
+
+	@Test
+	public void testEqualMovesAreTheSameInstance() {
+		assertThat(Moves.pass(RED)).isSameAs(Moves.pass(RED)).isEqualTo(new PassMove(RED));
+		TicketMove ticket = Moves.ticket(RED, BUS, 46);
+		assertThat(ticket).isSameAs(Moves.ticket(RED, BUS, 46))
+				.isEqualTo(new TicketMove(RED, BUS, 46));
+		assertThat(Moves.ticket(RED, BUS, MAX_DESTINATION))
+				.isSameAs(Moves.ticket(RED, BUS, MAX_DESTINATION));
+		DoubleMove x2 = Moves.doubleMove(BLACK, TAXI, 63, SECRET, 64);
+		assertThat(x2).isSameAs(Moves.doubleMove(BLACK, TAXI, 63, SECRET, 64))
+				.isEqualTo(new DoubleMove(BLACK, TAXI, 63, SECRET, 64));
+		// the moves of a double move are canonical too
+		assertThat(x2.firstMove()).isSameAs(Moves.ticket(BLACK, TAXI, 63));
+		assertThat(x2.secondMove()).isSameAs(Moves.ticket(BLACK, SECRET, 64));
+		assertThat(Moves.doubleMove(BLACK, TAXI, 63, SECRET, 0)).isNotEqualTo(x2);
+	}
+
+	@Test
+	public void testEveryDoubleMoveOfAFirstMoveIsKeptApart() {
+		List<DoubleMove> moves = new ArrayList<>();
+		for (Ticket second : Ticket.values())
+			for (int destination = 0; destination <= MAX_DESTINATION; destination++)
+				moves.add(Moves.doubleMove(BLACK, BUS, 100, second, destination));
+		int i = 0;
+		for (Ticket second : Ticket.values())
+			for (int destination = 0; destination <= MAX_DESTINATION; destination++) {
+				DoubleMove move = moves.get(i++);
+				assertThat(move.secondMove().ticket()).isEqualTo(second);
+				assertThat(move.finalDestination()).isEqualTo(destination);
+				assertThat(Moves.doubleMove(BLACK, BUS, 100, second, destination)).isSameAs(move);
+			}
+	}
+
+	@Test
+	public void testDestinationsOutOfRangeGiveNewMoves() {
+		TicketMove ticket = Moves.ticket(RED, TAXI, MAX_DESTINATION + 1);
+		assertThat(ticket).isEqualTo(Moves.ticket(RED, TAXI, MAX_DESTINATION + 1));
+		assertThat(ticket).isNotSameAs(Moves.ticket(RED, TAXI, MAX_DESTINATION + 1));
+		assertThat(Moves.ticket(RED, TAXI, -1)).isNotSameAs(Moves.ticket(RED, TAXI, -1));
+		DoubleMove x2 = Moves.doubleMove(BLACK, TAXI, 1, BUS, -5);
+		assertThat(x2).isEqualTo(Moves.doubleMove(BLACK, TAXI, 1, BUS, -5));
+		assertThat(x2).isNotSameAs(Moves.doubleMove(BLACK, TAXI, 1, BUS, -5));
+		assertThat(Moves.doubleMove(BLACK, TAXI, 2000, BUS, 5))
+				.isNotSameAs(Moves.doubleMove(BLACK, TAXI, 2000, BUS, 5));
+	}
+
+	@Test
+	public void testCanonical() {
+		List<Move> moves = new ArrayList<>();
+		moves.add(new PassMove(RED));
+		moves.add(new TicketMove(RED, TAXI, 2));
+		moves.add(new DoubleMove(BLACK, SECRET, 3, TAXI, 4));
+		for (Move move : moves) {
+			Move canonical = Moves.canonical(move);
+			assertThat(canonical).isEqualTo(move).isNotSameAs(move);
+			assertThat(Moves.canonical(canonical)).isSameAs(canonical);
+		}
+		assertThat(Moves.canonical(moves.get(2)))
+				.isSameAs(Moves.doubleMove(BLACK, SECRET, 3, TAXI, 4));
+	}
+
+	@Test
+	public void testThreadsAgreeOnTheInstances() throws Exception {
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<List<Move>>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				Callable<List<Move>> intern = () -> {
+					start.await();
+					List<Move> moves = new ArrayList<>();
+					for (int first = 500; first < 520; first++)
+						for (int second = 600; second < 700; second++) {
+							moves.add(Moves.ticket(Colour.GREEN, BUS, second));
+							moves.add(Moves.doubleMove(BLACK, TAXI, first, BUS, second));
+						}
+					return moves;
+				};
+				results.add(executor.submit(intern));
+			}
+			start.countDown();
+			List<Move> expected = results.get(0).get();
+			for (Future<List<Move>> result : results) {
+				List<Move> moves = result.get();
+				for (int i = 0; i < moves.size(); i++)
+					assertThat(moves.get(i)).isSameAs(expected.get(i));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
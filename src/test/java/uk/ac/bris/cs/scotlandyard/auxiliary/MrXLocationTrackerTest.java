@@ -0,0 +1,175 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.LocationPropagator;
+import uk.ac.bris.cs.scotlandyard.model.MrXLocationTracker;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+
+/**
+ * Tests for {@link LocationPropagator} and {@link MrXLocationTracker}
+ */
+public class MrXLocationTrackerTest {
+
+	// 6 - 1 - 2 = 3 # 4 ~ 5, taxi(-), bus(=), underground(#) and ferry(~)
+	private final Graph<Integer, Transport> graph = fromLines(asList(
+			"6 5", "1", "2", "3", "4", "5", "6",
+			"1 2 Taxi", "2 3 Bus", "3 4 Underground", "4 5 Ferry", "1 6 Taxi"));
+	private final LocationPropagator propagator = LocationPropagator.of(graph);
+
+	private double[] at(int node) {
+		double[] distribution = new double[propagator.size()];
+		distribution[node] = 1;
+		return distribution;
+	}
+
+	private long[] occupied(int... nodes) {
+		long[] occupied = NodeBits.create(propagator.size() - 1);
+		for (int node : nodes)
+			NodeBits.add(occupied, node);
+		return occupied;
+	}
+
+	@Test
+	public void testTransitionsSplitEvenlyOverNeighbours() {
+		assertThat(propagator.size()).isEqualTo(7);
+		assertThat(propagator.transitions(TAXI).getDouble(2, 1)).isEqualTo(0.5);
+		assertThat(propagator.transitions(TAXI).getDouble(6, 1)).isEqualTo(0.5);
+		assertThat(propagator.transitions(TAXI).getDouble(1, 2)).isEqualTo(1.0);
+		assertThat(propagator.transitions(BUS).getDouble(3, 2)).isEqualTo(1.0);
+		// only a secret ticket takes the ferry
+		assertThat(propagator.transitions(SECRET).getDouble(5, 4)).isEqualTo(0.5);
+		assertThatThrownBy(() -> propagator.transitions(Ticket.DOUBLE))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testPropagateExcludesOccupiedNodes() {
+		double[] to = new double[propagator.size()];
+		assertThat(propagator.propagate(at(1), TAXI, occupied(), to)).isEqualTo(1.0);
+		assertThat(to).isEqualTo(new double[] { 0, 0, 0.5, 0, 0, 0, 0.5 });
+		assertThat(propagator.propagate(at(1), TAXI, occupied(6), to)).isEqualTo(0.5);
+		assertThat(to).isEqualTo(new double[] { 0, 0, 1, 0, 0, 0, 0 });
+		assertThat(propagator.propagate(at(5), TAXI, occupied(), to)).isEqualTo(0.0);
+		assertThat(to).isEqualTo(new double[7]);
+	}
+
+	@Test
+	public void testUniformOnlyCoversNodes() {
+		double[] uniform = propagator.uniform(occupied(0, 1, 2));
+		assertThat(uniform).isEqualTo(new double[] { 0, 0.5, 0.5, 0, 0, 0, 0 });
+		assertThat(propagator.uniform(propagator.nodes())[6]).isEqualTo(1.0 / 6);
+	}
+
+	@Test
+	public void testTrackerFollowsHiddenAndRevealedMoves() {
+		MrXLocationTracker tracker = new MrXLocationTracker(propagator);
+		assertThat(tracker.probability(3)).isEqualTo(1.0 / 6);
+		tracker.reset(singletonList(1));
+		FixedView view = new FixedView(6, 1);
+		tracker.onMoveMade(view, new TicketMove(BLACK, TAXI, 2));
+		assertThat(tracker.probabilities()).isEqualTo(new double[] { 0, 0, 1, 0, 0, 0, 0 });
+		view.round = 2;
+		tracker.onMoveMade(view, new TicketMove(BLACK, BUS, 3));
+		assertThat(tracker.probability(3)).isEqualTo(1.0);
+		assertThat(tracker.probability(-1)).isEqualTo(0.0);
+	}
+
+	@Test
+	public void testTrackerStartsOverWhenMovesCannotBeExplained() {
+		MrXLocationTracker tracker = new MrXLocationTracker(graph);
+		tracker.reset(singletonList(3));
+		// the detective lands on the only candidate
+		FixedView view = new FixedView(3, 1);
+		tracker.onMoveMade(view, new TicketMove(BLUE, BUS, 3));
+		assertThat(tracker.probability(3)).isEqualTo(0.0);
+		assertThat(tracker.probability(5)).isEqualTo(0.2);
+		// no taxi leaves 5
+		tracker.reset(singletonList(5));
+		tracker.onMoveMade(view, new TicketMove(BLACK, TAXI, 4));
+		assertThat(tracker.probability(3)).isEqualTo(0.0);
+		assertThat(tracker.probability(4)).isEqualTo(0.2);
+	}
+
+	// Mr.X and a blue detective, round 2 of 3 is a reveal round
+	private static final class FixedView implements ScotlandYardView {
+
+		private final Map<Colour, Integer> locations = new EnumMap<>(Colour.class);
+		private int round;
+
+		FixedView(int blue, int round) {
+			locations.put(BLUE, blue);
+			this.round = round;
+		}
+
+		@Override
+		public List<Colour> getPlayers() {
+			return asList(BLACK, BLUE);
+		}
+
+		@Override
+		public Set<Colour> getWinningPlayers() {
+			return emptySet();
+		}
+
+		@Override
+		public Optional<Integer> getPlayerLocation(Colour colour) {
+			return Optional.ofNullable(locations.get(colour));
+		}
+
+		@Override
+		public Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket) {
+			return Optional.of(0);
+		}
+
+		@Override
+		public boolean isGameOver() {
+			return false;
+		}
+
+		@Override
+		public Colour getCurrentPlayer() {
+			return BLACK;
+		}
+
+		@Override
+		public int getCurrentRound() {
+			return round;
+		}
+
+		@Override
+		public List<Boolean> getRounds() {
+			return asList(false, true, false);
+		}
+
+		@Override
+		public Graph<Integer, Transport> getGraph() {
+			return null;
+		}
+	}
+
+}
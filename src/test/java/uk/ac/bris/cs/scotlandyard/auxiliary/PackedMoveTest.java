@@ -0,0 +1,142 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.MoveList;
+import uk.ac.bris.cs.scotlandyard.model.PackedMove;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.PackedMove.MAX_DESTINATION;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+
+/**
+ * Tests for {@link PackedMove} and {@link MoveList}
+ */
+public class PackedMoveTest {
+
+	@Test
+	public void testEveryMoveRoundTrips() {
+		for (Colour colour : Colour.values()) {
+			Move pass = new PassMove(colour);
+			assertThat(PackedMove.decode(PackedMove.encode(pass))).isEqualTo(pass);
+			assertThat(PackedMove.kind(PackedMove.pass(colour))).isEqualTo(PackedMove.PASS);
+			for (Ticket first : Ticket.values()) {
+				for (int destination : new int[] { 0, 1, 199, MAX_DESTINATION }) {
+					TicketMove move = new TicketMove(colour, first, destination);
+					int packed = PackedMove.encode(move);
+					assertThat(packed).isEqualTo(PackedMove.ticket(colour, first, destination));
+					assertThat(PackedMove.decode(packed)).isEqualTo(move);
+					assertThat(PackedMove.kind(packed)).isEqualTo(PackedMove.TICKET);
+					assertThat(PackedMove.colour(packed)).isEqualTo(colour);
+					assertThat(PackedMove.firstTicket(packed)).isEqualTo(first);
+					assertThat(PackedMove.finalDestination(packed)).isEqualTo(destination);
+					for (Ticket second : Ticket.values()) {
+						DoubleMove x2 = new DoubleMove(colour, first, destination, second,
+								MAX_DESTINATION - destination);
+						packed = PackedMove.encode(x2);
+						assertThat(PackedMove.decode(packed)).isEqualTo(x2);
+						assertThat(PackedMove.kind(packed)).isEqualTo(PackedMove.DOUBLE);
+						assertThat(PackedMove.firstDestination(packed)).isEqualTo(destination);
+						assertThat(PackedMove.secondTicket(packed)).isEqualTo(second);
+						assertThat(PackedMove.finalDestination(packed))
+								.isEqualTo(MAX_DESTINATION - destination);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPackedMovesAreDistinct() {
+		List<Integer> packed = new ArrayList<>();
+		for (Colour colour : Colour.values()) {
+			packed.add(PackedMove.pass(colour));
+			for (Ticket first : Ticket.values())
+				for (int destination = 0; destination < 3; destination++) {
+					packed.add(PackedMove.ticket(colour, first, destination));
+					for (Ticket second : Ticket.values())
+						packed.add(PackedMove.doubleMove(colour, first, destination, second,
+								destination));
+				}
+		}
+		assertThat(packed).doesNotHaveDuplicates();
+		assertThat(packed).doesNotContain(0);
+	}
+
+	@Test
+	public void testBadValuesShouldThrow() {
+		assertThatThrownBy(() -> PackedMove.ticket(BLACK, TAXI, MAX_DESTINATION + 1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PackedMove.encode(new TicketMove(BLACK, TAXI, -1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PackedMove.decode(0))
+				.isInstanceOf(IllegalArgumentException.class);
+		// a second ticket on a ticket move
+		int extra = PackedMove.ticket(BLUE, BUS, 5)
+				^ PackedMove.doubleMove(BLUE, TAXI, 0, BUS, 0)
+				^ PackedMove.doubleMove(BLUE, TAXI, 0, TAXI, 0);
+		assertThatThrownBy(() -> PackedMove.decode(extra))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PackedMove.decode(PackedMove.pass(BLUE) | 7))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testMoveListGrowsAndTruncates() {
+		MoveList list = new MoveList(0);
+		assertThat(list.isEmpty()).isTrue();
+		for (int destination = 0; destination < 100; destination++)
+			list.add(PackedMove.ticket(BLACK, TAXI, destination));
+		assertThat(list.size()).isEqualTo(100);
+		assertThat(list.get(99)).isEqualTo(PackedMove.ticket(BLACK, TAXI, 99));
+		assertThat(list.contains(PackedMove.ticket(BLACK, TAXI, 42))).isTrue();
+		list.truncate(42);
+		assertThat(list.size()).isEqualTo(42);
+		assertThat(list.contains(PackedMove.ticket(BLACK, TAXI, 42))).isFalse();
+		assertThatThrownBy(() -> list.get(42)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> list.truncate(43))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+		list.clear();
+		assertThat(list.isEmpty()).isTrue();
+		assertThatThrownBy(() -> new MoveList(-1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testMoveListOfMovesSortsAndDecodes() {
+		List<Move> moves = asList(
+				new TicketMove(BLACK, SECRET, 12),
+				new DoubleMove(BLACK, TAXI, 3, BUS, 4),
+				new TicketMove(BLACK, TAXI, 7));
+		MoveList list = MoveList.of(moves);
+		assertThat(list.toMoves()).containsExactlyElementsOf(moves);
+		assertThat(list.toString()).isEqualTo(moves.toString());
+		MoveList copy = MoveList.of(moves);
+		assertThat(copy).isEqualTo(list);
+		assertThat(copy.hashCode()).isEqualTo(list.hashCode());
+
+		list.add(PackedMove.pass(BLUE));
+		assertThat(list).isNotEqualTo(copy);
+		list.sort(1);
+		int[] sorted = list.toArray();
+		assertThat(sorted[0]).isEqualTo(PackedMove.encode(moves.get(0)));
+		for (int i = 2; i < sorted.length; i++)
+			assertThat(sorted[i]).isGreaterThan(sorted[i - 1]);
+		assertThatThrownBy(() -> list.sort(5)).isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+}
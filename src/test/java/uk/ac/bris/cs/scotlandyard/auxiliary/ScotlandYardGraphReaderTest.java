@@ -2,7 +2,18 @@ package uk.ac.bris.cs.scotlandyard.auxiliary;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.IntCsrGraph;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
 import uk.ac.bris.cs.scotlandyard.model.Transport;
 
@@ -28,6 +39,134 @@ public class ScotlandYardGraphReaderTest {
 				.isEqualByComparingTo(Transport.FERRY);
 	}
 
+	@Test
+	public void testCompactGraphEqualsGraph() {
+		IntCsrGraph<Transport> graph =
+				compactFromLines(asList("3 2", "1", "2", "3", "1 2 Ferry", "3 2 Taxi"));
+		assertThat(graph)
+				.isEqualTo(fromLines(asList("3 2", "1", "2", "3", "1 2 Ferry", "3 2 Taxi")));
+		assertThat(graph.degree(graph.indexOf(2))).isEqualTo(2);
+		assertThat(graph.getEdgesFrom(graph.getNode(1))).hasSize(1);
+	}
+
+	@Test
+	public void testCompactBadEdge() {
+		assertThatThrownBy(() -> compactFromLines(asList("2 1", "1", "2", "1 3 Taxi")));
+	}
+
+	@Test
+	public void testStreamedGraphEqualsCompactGraph() throws IOException {
+		String text = "3 2\r\n1\r\n2\r\n3\r\n1 2 Ferry\r\n3 2 taxi\r\n";
+		IntCsrGraph<Transport> graph = compactFromStream(
+				new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+		assertThat(graph)
+				.isEqualTo(compactFromLines(asList("3 2", "1", "2", "3", "1 2 Ferry", "3 2 taxi")));
+	}
+
+	@Test
+	public void testStreamedBadEdge() {
+		byte[] bytes = "2 1\n1\n2\n1 3 Taxi\n".getBytes(StandardCharsets.UTF_8);
+		assertThatThrownBy(() -> compactFromStream(new ByteArrayInputStream(bytes)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// a map well over the 64KB chunk size of the streaming reader, with mixed
+	// line terminators and a line in each of the forms the tokenizer leaves
+	// to the line parser
+	private static List<String> largeMap(int nodes, int edges) {
+		Random random = new Random(42);
+		List<String> lines = new ArrayList<>();
+		lines.add(nodes + " " + edges);
+		for (int node = 1; node <= nodes; node++)
+			lines.add(node == nodes / 2 ? "+" + node : String.valueOf(node));
+		Transport[] transports = Transport.values();
+		for (int edge = 0; edge < edges; edge++) {
+			String transport = transports[random.nextInt(transports.length)].name();
+			lines.add((1 + random.nextInt(nodes)) + " " + (1 + random.nextInt(nodes)) + " "
+					+ (edge % 3 == 0 ? transport.toLowerCase() : transport));
+		}
+		return lines;
+	}
+
+	private static byte[] text(List<String> lines) {
+		String[] terminators = { "\n", "\r\n", "\r" };
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < lines.size(); i++)
+			text.append(lines.get(i)).append(terminators[i % terminators.length]);
+		return text.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	// hands out at most 1000 bytes per read, cutting lines and CR LF pairs
+	private static InputStream trickle(byte[] bytes) {
+		return new ByteArrayInputStream(bytes) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1000));
+			}
+		};
+	}
+
+	@Test
+	public void testLargeStreamedGraphEqualsCompactGraph() throws IOException {
+		List<String> lines = largeMap(5000, 40000);
+		byte[] bytes = text(lines);
+		assertThat(bytes.length).isGreaterThan(4 << 16);
+		IntCsrGraph<Transport> expected = compactFromLines(lines);
+		assertThat(compactFromStream(trickle(bytes))).isEqualTo(expected);
+		Path file = Files.createTempFile("map", ".txt");
+		try {
+			Files.write(file, bytes);
+			assertThat(compactFromPath(file)).isEqualTo(expected);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testStreamCutAtCarriageReturnKeepsItsNewline() throws IOException {
+		// an 8 byte header and 8 byte node lines, so that the CR LF of node
+		// 8191 are the last two bytes of the first 64KB read from the stream
+		List<String> lines = new ArrayList<>();
+		lines.add("9000 1");
+		for (int value = 100000; value < 109000; value++)
+			lines.add(String.valueOf(value));
+		lines.add("100000 100001 Taxi");
+		byte[] bytes = (String.join("\r\n", lines) + "\r\n").getBytes(StandardCharsets.UTF_8);
+		assertThat(bytes[(1 << 16) - 2]).isEqualTo((byte) '\r');
+		assertThat(bytes[(1 << 16) - 1]).isEqualTo((byte) '\n');
+		assertThat(compactFromStream(new ByteArrayInputStream(bytes)))
+				.isEqualTo(compactFromLines(lines));
+		assertThat(compactFromStream(trickle(bytes))).isEqualTo(compactFromLines(lines));
+	}
+
+	private static void assertStreamedErrorEqualsCompactError(List<String> lines) {
+		String message = null;
+		try {
+			compactFromLines(lines);
+		} catch (IllegalArgumentException e) {
+			message = e.getMessage();
+		}
+		assertThat(message).isNotNull();
+		assertThatThrownBy(() -> compactFromStream(trickle(text(lines))))
+				.isInstanceOf(IllegalArgumentException.class).hasMessage(message);
+	}
+
+	@Test
+	public void testLargeStreamedErrorsEqualCompactErrors() {
+		List<String> lines = largeMap(5000, 40000);
+		lines.set(lines.size() - 5, "1 2 Boat");
+		assertStreamedErrorEqualsCompactError(lines);
+		// the first failing line wins, a missing node or a syntax error
+		lines.set(lines.size() - 10, "1 5001 Taxi");
+		assertStreamedErrorEqualsCompactError(lines);
+		lines.set(4000, "Foo");
+		assertStreamedErrorEqualsCompactError(lines);
+		lines.set(2500, "2499");
+		assertStreamedErrorEqualsCompactError(lines);
+		lines.remove(lines.size() - 1);
+		assertStreamedErrorEqualsCompactError(lines);
+	}
+
 	@Test
 	public void testEmptyInputShouldThrow() {
 		assertThatThrownBy(() -> fromLines(emptyList()));
@@ -0,0 +1,95 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import uk.ac.bris.cs.gamekit.matrix.SparseMatrix;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link SparseMatrix}
+ */
+public class SparseMatrixTest {
+
+	// 1 0 2
+	// 0 0 3
+	private static SparseMatrix small() {
+		return new SparseMatrix.Builder(2, 3)
+				.add(1, 2, 3)
+				.add(0, 2, 1.5)
+				.add(0, 0, 1)
+				.add(0, 2, 0.5)
+				.build();
+	}
+
+	@Test
+	public void testBuilderSortsAndSumsCells() {
+		SparseMatrix matrix = small();
+		assertThat(matrix.storedCount()).isEqualTo(3);
+		assertThat(matrix.rowSize()).isEqualTo(2);
+		assertThat(matrix.columnSize()).isEqualTo(3);
+		assertThat(matrix.getDouble(0, 2)).isEqualTo(2.0);
+		assertThat(matrix.getDouble(1, 0)).isEqualTo(0.0);
+		assertThat(matrix.row(0)).containsExactly(1.0, 0.0, 2.0);
+		assertThat(matrix.column(2)).containsExactly(2.0, 3.0);
+		assertThat(matrix.asList()).containsExactly(1.0, 0.0, 2.0, 0.0, 0.0, 3.0);
+	}
+
+	@Test
+	public void testMultiply() {
+		SparseMatrix matrix = small();
+		assertThat(matrix.multiply(new double[] { 1, 2, 3 }))
+				.isEqualTo(new double[] { 7, 9 });
+		double[] result = { -1, -1 };
+		assertThat(matrix.multiply(new double[] { 0, 1, 0 }, result)).isSameAs(result);
+		assertThat(result).isEqualTo(new double[] { 0, 0 });
+	}
+
+	@Test
+	public void testParallelMultiplyMatchesDenseProduct() {
+		// enough stored cells for the product to be split over the pool
+		int size = 1000;
+		Random random = new Random(7);
+		double[][] dense = new double[size][size];
+		SparseMatrix.Builder builder = new SparseMatrix.Builder(size, size);
+		for (int i = 0; i < 100_000; i++) {
+			int row = random.nextInt(size), column = random.nextInt(size);
+			double value = random.nextDouble();
+			dense[row][column] += value;
+			builder.add(row, column, value);
+		}
+		SparseMatrix matrix = builder.build();
+		double[] vector = random.doubles(size).toArray();
+		double[] result = matrix.multiply(vector);
+		for (int row = 0; row < size; row++) {
+			double expected = 0;
+			for (int column = 0; column < size; column++)
+				expected += dense[row][column] * vector[column];
+			assertThat(result[row]).isCloseTo(expected, within(1e-9));
+		}
+	}
+
+	@Test
+	public void testBadArgumentsShouldThrow() {
+		SparseMatrix matrix = small();
+		assertThatThrownBy(() -> new SparseMatrix.Builder(0, 1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new SparseMatrix.Builder(2, 2).add(2, 0, 1))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.multiply(new double[2]))
+				.isInstanceOf(IllegalArgumentException.class);
+		double[] square = new double[3];
+		SparseMatrix squareMatrix = new SparseMatrix.Builder(3, 3).build();
+		assertThatThrownBy(() -> squareMatrix.multiply(square, square))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.put(0, 0, 1.0))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> matrix.getDouble(0, 3))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+}
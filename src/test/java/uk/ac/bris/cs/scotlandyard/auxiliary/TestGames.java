@@ -2,6 +2,7 @@ package uk.ac.bris.cs.scotlandyard.auxiliary;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -12,6 +13,7 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
+import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.scotlandyard.auxiliary.AnonymousMoves.AnonymousDoubleMove;
 import uk.ac.bris.cs.scotlandyard.auxiliary.AnonymousMoves.AnonymousPassMove;
 import uk.ac.bris.cs.scotlandyard.auxiliary.AnonymousMoves.AnonymousTicketMove;
@@ -22,9 +24,12 @@ import uk.ac.bris.cs.scotlandyard.model.PassMove;
 import uk.ac.bris.cs.scotlandyard.model.Player;
 import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
 import uk.ac.bris.cs.scotlandyard.model.Ticket;
 import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
 
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
@@ -62,6 +67,11 @@ public class TestGames {
 	 */
 	public static final List<Integer> MRX_LOCATIONS = unmodifiableList(
 			asList(35, 45, 51, 71, 78, 104, 106, 127, 132, 166, 170, 172));
+	/**
+	 * The five detectives of a standard game, in the order they play
+	 */
+	public static final List<Colour> DETECTIVES = unmodifiableList(
+			asList(RED, GREEN, BLUE, WHITE, YELLOW));
 	/**
 	 * The default amount of tickets for a detective, which is:
 	 * <p>
@@ -400,5 +410,80 @@ public class TestGames {
 		return doNothingPlayer(WHITE, DETECTIVE_LOCATIONS.get(4));
 	}
 
+	/**
+	 * A standard game, set up by {@link StandardGame} from the given seed, in
+	 * which Mr.X and all {@link #DETECTIVES} are the given player
+	 *
+	 * @param graph the graph to play on
+	 * @param seed the seed for the starting locations
+	 * @param player the player making every move
+	 * @return the created game; never null
+	 */
+	public static ScotlandYardModel standardGame(Graph<Integer, Transport> graph, int seed,
+	                                             Player player) {
+		List<Integer> locations = StandardGame.generateDetectiveLocations(seed,
+				DETECTIVES.size());
+		PlayerConfiguration[] detectives = new PlayerConfiguration[DETECTIVES.size()];
+		for (int i = 0; i < detectives.length; i++)
+			detectives[i] = new PlayerConfiguration.Builder(DETECTIVES.get(i)).using(player)
+					.with(StandardGame.generateDetectiveTickets()).at(locations.get(i)).build();
+		return new ScotlandYardModel(StandardGame.ROUNDS, graph,
+				new PlayerConfiguration.Builder(BLACK).using(player)
+						.with(StandardGame.generateMrXTickets())
+						.at(StandardGame.generateMrXLocation(seed)).build(),
+				detectives[0], Arrays.copyOfRange(detectives, 1, detectives.length));
+	}
+
+	/**
+	 * Plays a {@link #standardGame(Graph, int, Player)} to the end for each
+	 * seed from 0 until the given number of games
+	 *
+	 * @param graph the graph to play on
+	 * @param games the number of games
+	 * @param player the player making every move
+	 * @param hooks called as each game is played
+	 */
+	public static void playStandardGames(Graph<Integer, Transport> graph, int games,
+	                                     Player player, StandardGameHooks hooks) {
+		for (int seed = 0; seed < games; seed++) {
+			ScotlandYardModel model = standardGame(graph, seed, player);
+			hooks.started(model, seed);
+			while (!model.isGameOver()) {
+				model.startRotate();
+				hooks.rotated(model);
+			}
+			hooks.finished(model);
+		}
+	}
+
+	/**
+	 * Called by {@link #playStandardGames(Graph, int, Player, StandardGameHooks)};
+	 * every hook does nothing unless overridden
+	 */
+	public interface StandardGameHooks {
+
+		/**
+		 * Called before the first rotation of a game
+		 *
+		 * @param model the game
+		 * @param seed the seed the game was set up from
+		 */
+		default void started(ScotlandYardModel model, int seed) {}
+
+		/**
+		 * Called after each rotation of a game
+		 *
+		 * @param model the game
+		 */
+		default void rotated(ScotlandYardModel model) {}
+
+		/**
+		 * Called once a game is over
+		 *
+		 * @param model the game
+		 */
+		default void finished(ScotlandYardModel model) {}
+	}
+
 
 }
@@ -0,0 +1,109 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketReachability;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.DOUBLE;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.UNDERGROUND;
+
+/**
+ * Tests for {@link TicketReachability}
+ */
+public class TicketReachabilityTest {
+
+	// 6 - 1 - 2 = 3 # 4 ~ 5, taxi(-), bus(=), underground(#) and ferry(~)
+	private final TicketReachability reachability = new TicketReachability(fromLines(asList(
+			"6 5", "1", "2", "3", "4", "5", "6",
+			"1 2 Taxi", "2 3 Bus", "3 4 Underground", "4 5 Ferry", "1 6 Taxi")));
+
+	private static Map<Ticket, Integer> tickets(Object... ticketsAndCounts) {
+		Map<Ticket, Integer> tickets = new EnumMap<>(Ticket.class);
+		for (int i = 0; i < ticketsAndCounts.length; i += 2)
+			tickets.put((Ticket) ticketsAndCounts[i], (Integer) ticketsAndCounts[i + 1]);
+		return tickets;
+	}
+
+	private static List<Integer> nodes(long[] bits) {
+		List<Integer> nodes = new ArrayList<>();
+		for (int node = NodeBits.next(bits, 0); node != -1; node = NodeBits.next(bits, node + 1))
+			nodes.add(node);
+		return nodes;
+	}
+
+	@Test
+	public void testZeroMovesReachesOnlyStart() {
+		assertThat(nodes(reachability.reachable(2, tickets(TAXI, 5), 0))).containsExactly(2);
+	}
+
+	@Test
+	public void testTicketsLimitTransport() {
+		assertThat(nodes(reachability.reachable(1, tickets(TAXI, 1), 3)))
+				.containsExactly(1, 2, 6);
+		assertThat(nodes(reachability.reachable(1, tickets(TAXI, 1, BUS, 1), 3)))
+				.containsExactly(1, 2, 3, 6);
+		assertThat(nodes(reachability.reachable(1, tickets(TAXI, 1, BUS, 1, UNDERGROUND, 1), 3)))
+				.containsExactly(1, 2, 3, 4, 6);
+	}
+
+	@Test
+	public void testMovesLimitDepth() {
+		assertThat(nodes(reachability.reachable(1, tickets(TAXI, 1, BUS, 1, UNDERGROUND, 1), 2)))
+				.containsExactly(1, 2, 3, 6);
+	}
+
+	@Test
+	public void testSecretTicketTakesFerry() {
+		assertThat(nodes(reachability.reachable(4, tickets(UNDERGROUND, 1), 1)))
+				.containsExactly(3, 4);
+		assertThat(nodes(reachability.reachable(4, tickets(SECRET, 1), 1)))
+				.containsExactly(3, 4, 5);
+	}
+
+	@Test
+	public void testDoubleTicketMakesTwoEdgesOneMove() {
+		assertThat(nodes(reachability.reachable(1, tickets(TAXI, 1, BUS, 1), 1)))
+				.containsExactly(1, 2, 6);
+		assertThat(nodes(reachability.reachable(1, tickets(TAXI, 1, BUS, 1, DOUBLE, 1), 1)))
+				.containsExactly(1, 2, 3, 6);
+	}
+
+	@Test
+	public void testOccupiedNodesAreAvoided() {
+		long[] occupied = NodeBits.create(6);
+		NodeBits.add(occupied, 2);
+		assertThat(nodes(reachability.reachable(1, tickets(TAXI, 2, BUS, 2), 3, occupied)))
+				.containsExactly(1, 6);
+		// the memo of a query that avoids nodes is not shared with later ones
+		assertThat(nodes(reachability.reachable(1, tickets(TAXI, 2, BUS, 2), 3)))
+				.containsExactly(1, 2, 3, 6);
+	}
+
+	@Test
+	public void testResultIsACopy() {
+		long[] first = reachability.reachable(1, tickets(TAXI, 1), 1);
+		NodeBits.add(first, 5);
+		assertThat(nodes(reachability.reachable(1, tickets(TAXI, 1), 1))).containsExactly(1, 2, 6);
+	}
+
+	@Test
+	public void testTooManyMovesShouldThrow() {
+		assertThatThrownBy(() -> reachability.reachable(1, tickets(TAXI, 1),
+				TicketReachability.MAX_MOVES + 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -0,0 +1,121 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketWallet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.DOUBLE;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.UNDERGROUND;
+
+/**
+ * Tests for {@link TicketWallet}
+ */
+public class TicketWalletTest {
+
+	private static Map<Ticket, Integer> taxiAndSecret() {
+		Map<Ticket, Integer> tickets = new HashMap<>();
+		tickets.put(SECRET, 2);
+		tickets.put(TAXI, 0);
+		return tickets;
+	}
+
+	@Test
+	public void testMapHoldsTheTicketsTheWalletWasCreatedWith() {
+		TicketWallet wallet = new TicketWallet(taxiAndSecret());
+		Map<Ticket, Integer> map = wallet.asMap();
+		assertThat(map).isEqualTo(taxiAndSecret());
+		assertThat(map.containsKey(TAXI)).isTrue();
+		assertThat(map.containsKey(BUS)).isFalse();
+		assertThat(map.get(BUS)).isNull();
+		assertThat(wallet.count(BUS)).isEqualTo(0);
+		assertThat(wallet.has(TAXI)).isFalse();
+		assertThat(wallet.has(SECRET, 2)).isTrue();
+		assertThat(wallet.has(SECRET, 3)).isFalse();
+	}
+
+	@Test
+	public void testMapFollowsTheWalletOnceATicketIsAddedOrRemoved() {
+		TicketWallet wallet = new TicketWallet(taxiAndSecret());
+		Map<Ticket, Integer> map = wallet.asMap();
+		wallet.add(BUS);
+		wallet.remove(DOUBLE);
+		wallet.remove(SECRET);
+		assertThat(map).hasSize(4);
+		assertThat(map.get(BUS)).isEqualTo(1);
+		assertThat(map.get(DOUBLE)).isEqualTo(-1);
+		assertThat(map.get(SECRET)).isEqualTo(1);
+		assertThat(map.containsKey(UNDERGROUND)).isFalse();
+		assertThat(wallet.asMap()).isSameAs(map);
+		assertThatThrownBy(() -> map.put(UNDERGROUND, 1))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testMapIteratesInTicketOrder() {
+		Map<Ticket, Integer> tickets = new HashMap<>();
+		for (Ticket ticket : Ticket.values())
+			tickets.put(ticket, ticket.ordinal() + 10);
+		tickets.remove(BUS);
+		TicketWallet wallet = new TicketWallet(tickets);
+		assertThat(new ArrayList<>(wallet.asMap().keySet()))
+				.containsExactly(TAXI, UNDERGROUND, DOUBLE, SECRET);
+		assertThat(new ArrayList<>(wallet.asMap().values())).containsExactly(10, 12, 13, 14);
+		wallet.add(BUS);
+		assertThat(new ArrayList<>(wallet.asMap().keySet()))
+				.containsExactly(TAXI, BUS, UNDERGROUND, DOUBLE, SECRET);
+		assertThat(wallet.toString()).isEqualTo(new EnumMap<>(wallet.asMap()).toString());
+	}
+
+	@Test
+	public void testCopyIsIndependent() {
+		TicketWallet wallet = new TicketWallet(taxiAndSecret());
+		TicketWallet copy = new TicketWallet(wallet);
+		assertThat(copy).isEqualTo(wallet);
+		copy.add(TAXI);
+		copy.add(BUS);
+		assertThat(wallet.count(TAXI)).isEqualTo(0);
+		assertThat(wallet.asMap().containsKey(BUS)).isFalse();
+		assertThat(copy.asMap()).hasSize(3);
+		wallet.remove(SECRET);
+		assertThat(copy.count(SECRET)).isEqualTo(2);
+		assertThat(copy).isNotEqualTo(wallet);
+	}
+
+	@Test
+	public void testEqualsAndHashCode() {
+		TicketWallet wallet = new TicketWallet(taxiAndSecret());
+		TicketWallet same = new TicketWallet(new EnumMap<>(taxiAndSecret()));
+		assertThat(same).isEqualTo(wallet);
+		assertThat(same.hashCode()).isEqualTo(wallet.hashCode());
+		// a held ticket with a count of zero differs from one never held
+		Map<Ticket, Integer> withBus = taxiAndSecret();
+		withBus.put(BUS, 0);
+		assertThat(new TicketWallet(withBus)).isNotEqualTo(wallet);
+		// but a ticket added and removed again is held
+		same.add(BUS);
+		same.remove(BUS);
+		assertThat(same).isEqualTo(new TicketWallet(withBus));
+		assertThat(same.hashCode()).isEqualTo(new TicketWallet(withBus).hashCode());
+		assertThat(wallet).isNotEqualTo(taxiAndSecret());
+	}
+
+	@Test
+	public void testNullCountShouldThrow() {
+		Map<Ticket, Integer> tickets = taxiAndSecret();
+		tickets.put(BUS, null);
+		assertThatThrownBy(() -> new TicketWallet(tickets))
+				.isInstanceOf(NullPointerException.class);
+	}
+
+}
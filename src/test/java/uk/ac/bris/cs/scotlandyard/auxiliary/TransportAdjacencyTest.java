@@ -0,0 +1,88 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import uk.ac.bris.cs.gamekit.graph.CityMapGenerator;
+import uk.ac.bris.cs.gamekit.graph.IntCsrGraph;
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.model.TransportAdjacency;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.FERRY;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.TAXI;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.UNDERGROUND;
+
+/**
+ * Tests for {@link TransportAdjacency}
+ */
+public class TransportAdjacencyTest {
+
+	// 4 ~ 1 = 2 # 3, taxi and bus(=), underground(#) and ferry(~)
+	private static TransportAdjacency adjacency() {
+		return TransportAdjacency.of(fromLines(asList(
+				"4 4", "1", "2", "3", "4",
+				"1 2 Taxi", "1 2 Bus", "2 3 Underground", "4 1 Ferry")));
+	}
+
+	@Test
+	public void testNeighboursAreSortedWithTheirTransports() {
+		TransportAdjacency adjacency = adjacency();
+		assertThat(adjacency.end(1) - adjacency.start(1)).isEqualTo(2);
+		int two = adjacency.start(1);
+		assertThat(adjacency.neighbour(two)).isEqualTo(2);
+		assertThat(adjacency.transports(two))
+				.isEqualTo(1 << TAXI.ordinal() | 1 << BUS.ordinal());
+		assertThat(adjacency.connects(two, BUS)).isTrue();
+		assertThat(adjacency.connects(two, UNDERGROUND)).isFalse();
+		assertThat(adjacency.neighbour(two + 1)).isEqualTo(4);
+		assertThat(adjacency.transports(two + 1)).isEqualTo(1 << FERRY.ordinal());
+
+		assertThat(adjacency.isNeighbour(1, 2)).isTrue();
+		assertThat(adjacency.isNeighbour(2, 1)).isTrue();
+		assertThat(adjacency.isNeighbour(3, 2)).isTrue();
+		assertThat(adjacency.isNeighbour(1, 3)).isFalse();
+		assertThat(adjacency.words()).isEqualTo(1);
+	}
+
+	@Test
+	public void testNodesOutsideTheIndexHaveNoNeighbours() {
+		TransportAdjacency adjacency = adjacency();
+		for (int node : new int[] { -1, 0, 5, Integer.MAX_VALUE })
+			assertThat(adjacency.end(node)).isEqualTo(adjacency.start(node));
+		assertThat(adjacency.isNeighbour(5, 1)).isFalse();
+		assertThat(adjacency.isNeighbour(1, -1)).isFalse();
+	}
+
+	@Test
+	public void testLargeMapsAreIndexedByTheirEdges() {
+		IntCsrGraph<Transport> graph = new CityMapGenerator<>(TAXI, BUS, UNDERGROUND, FERRY)
+				.generate(200_000, 3).toGraph();
+		TransportAdjacency adjacency = TransportAdjacency.of(graph);
+		int maxValue = 0;
+		for (int node = 0; node < graph.size(); node++) {
+			int value = graph.valueAt(node);
+			maxValue = Math.max(maxValue, value);
+			Map<Integer, Integer> expected = new TreeMap<>();
+			for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++)
+				expected.merge(graph.valueAt(graph.target(edge)),
+						1 << graph.data(edge).ordinal(), (a, b) -> a | b);
+			Map<Integer, Integer> actual = new TreeMap<>();
+			int previous = -1;
+			for (int i = adjacency.start(value); i < adjacency.end(value); i++) {
+				assertThat(adjacency.neighbour(i)).isGreaterThan(previous);
+				previous = adjacency.neighbour(i);
+				actual.put(adjacency.neighbour(i), adjacency.transports(i));
+			}
+			assertThat(actual).isEqualTo(expected);
+		}
+		assertThat(adjacency.words()).isEqualTo(NodeBits.words(maxValue));
+	}
+
+}
@@ -0,0 +1,187 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.FrozenGraph;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.IntCsrGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.FERRY;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.TAXI;
+
+/**
+ * Tests for {@link UndirectedGraph}
+ */
+public class UndirectedGraphTest {
+
+	private static final Node<Integer> ONE = new Node<>(1), TWO = new Node<>(2),
+			THREE = new Node<>(3);
+	private static final Edge<Integer, Transport> TAXI_1_2 = new Edge<>(ONE, TWO, TAXI);
+	private static final Edge<Integer, Transport> BUS_3_2 = new Edge<>(THREE, TWO, BUS);
+	private static final Edge<Integer, Transport> FERRY_3_3 = new Edge<>(THREE, THREE, FERRY);
+
+	// 1 - 2 = 3 with a ferry from 3 back to itself
+	private static UndirectedGraph<Integer, Transport> graph() {
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		graph.addNode(ONE);
+		graph.addNode(TWO);
+		graph.addNode(THREE);
+		graph.addEdge(TAXI_1_2);
+		graph.addEdge(BUS_3_2);
+		graph.addEdge(FERRY_3_3);
+		return graph;
+	}
+
+	// the edges visited from the source, the same through both visitors
+	private static List<String> visited(Graph<Integer, Transport> graph, int source) {
+		List<String> visited = new ArrayList<>();
+		graph.forEachEdgeFrom(Integer.valueOf(source),
+				(Integer destination, Transport data) -> visited.add(destination + " " + data));
+		List<String> unboxed = new ArrayList<>();
+		graph.forEachEdgeFrom(source,
+				(int destination, Transport data) -> unboxed.add(destination + " " + data));
+		assertThat(unboxed).isEqualTo(visited);
+		return visited;
+	}
+
+	private static void assertSameSequences(Graph<Integer, Transport> actual,
+			Graph<Integer, Transport> expected) {
+		assertThat(actual).isEqualTo(expected);
+		assertThat(actual.getNodes()).containsExactlyElementsOf(expected.getNodes());
+		assertThat(actual.getEdges()).containsExactlyElementsOf(expected.getEdges());
+		for (Node<Integer> node : expected.getNodes()) {
+			assertThat(actual.getEdgesFrom(node))
+					.containsExactlyElementsOf(expected.getEdgesFrom(node));
+			// an undirected graph lists the edges from a node as the edges to it
+			assertThat(actual.getEdgesTo(node)).containsExactlyElementsOf(
+					expected instanceof UndirectedGraph ? expected.getEdgesTo(node)
+							: expected.getEdgesFrom(node));
+			assertThat(visited(actual, node.value())).isEqualTo(visited(expected, node.value()));
+		}
+	}
+
+	@Test
+	public void testEveryEdgeIsListedWithItsSwapInInsertionOrder() {
+		UndirectedGraph<Integer, Transport> graph = graph();
+		assertThat(graph.getEdges()).containsExactly(TAXI_1_2, TAXI_1_2.swap(), BUS_3_2,
+				BUS_3_2.swap(), FERRY_3_3, FERRY_3_3.swap());
+		assertThat(graph.getEdgesFrom(ONE)).containsExactly(TAXI_1_2);
+		assertThat(graph.getEdgesFrom(TWO)).containsExactly(TAXI_1_2.swap(), BUS_3_2.swap());
+		assertThat(graph.getEdgesFrom(THREE)).containsExactly(BUS_3_2, FERRY_3_3,
+				FERRY_3_3.swap());
+		for (Node<Integer> node : graph.getNodes())
+			assertThat(graph.getEdgesTo(node))
+					.containsExactlyElementsOf(graph.getEdgesFrom(node));
+		assertThat(visited(graph, 2)).containsExactly("1 TAXI", "3 BUS");
+		assertThat(visited(graph, 3)).containsExactly("2 BUS", "3 FERRY", "3 FERRY");
+		assertThat(graph.getEdgesFrom(new Node<>(4))).isEmpty();
+		assertThat(visited(graph, 4)).isEmpty();
+	}
+
+	@Test
+	public void testListsAreReadOnlyAndLive() {
+		UndirectedGraph<Integer, Transport> graph = graph();
+		List<Edge<Integer, Transport>> edges = new ArrayList<>(graph.getEdges());
+		// reading hands out the same stored instances every time
+		assertThat(new ArrayList<>(graph.getEdges()).get(1)).isSameAs(edges.get(1));
+		assertThat(graph.getEdgesFrom(TWO).iterator().next()).isSameAs(edges.get(1));
+		Node<Integer> four = new Node<>(4);
+		graph.addNode(four);
+		graph.addEdge(new Edge<>(TWO, four, TAXI));
+		assertThat(graph.getEdges()).hasSize(8);
+		assertThat(graph.getEdgesFrom(TWO)).hasSize(3);
+		assertThat(graph.getEdgesFrom(four)).containsExactly(new Edge<>(four, TWO, TAXI));
+		assertThatThrownBy(() -> graph.getEdges().add(TAXI_1_2))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> graph.getEdgesFrom(ONE).clear())
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void testCopyPairsEachEdgeWithItsSwap() throws IOException {
+		UndirectedGraph<Integer, Transport> graph = graph();
+		assertSameSequences(new UndirectedGraph<>(graph), graph);
+		Graph<Integer, Transport> standard = StandardGame.standardGraph();
+		UndirectedGraph<Integer, Transport> copy = new UndirectedGraph<>(standard);
+		assertSameSequences(copy, standard);
+		assertSameSequences(new UndirectedGraph<>(copy), copy);
+	}
+
+	@Test
+	public void testWrappersVisitTheEdgesOfTheirGraph() throws IOException {
+		UndirectedGraph<Integer, Transport> graph = graph();
+		for (Graph<Integer, Transport> wrapper : asList(new ImmutableGraph<>(graph),
+				FrozenGraph.of(graph), CsrGraph.of(graph, Transport.class)))
+			for (Node<Integer> node : graph.getNodes())
+				assertThat(visited(wrapper, node.value())).isEqualTo(visited(graph, node.value()));
+		Graph<Integer, Transport> standard = StandardGame.standardGraph();
+		assertThat(visited(standard, 1)).hasSize(standard.getEdgesFrom(new Node<>(1)).size());
+		assertThat(visited(standard, 1000)).isEmpty();
+	}
+
+	@Test
+	public void testCopyKeepsOneWayEdgesOneWay() {
+		IntCsrGraph<Transport> directed = new IntCsrGraph.Builder<>(Transport.class)
+				.addNode(1).addNode(2).addNode(3)
+				.addEdge(1, 2, TAXI).addEdge(2, 3, BUS).addEdge(3, 2, TAXI).addEdge(3, 3, FERRY)
+				.build();
+		UndirectedGraph<Integer, Transport> copy = new UndirectedGraph<>(directed);
+		assertThat(copy.getEdges()).containsExactlyElementsOf(directed.getEdges());
+		assertThat(copy.getEdgesFrom(ONE)).containsExactly(new Edge<>(ONE, TWO, TAXI));
+		assertThat(copy.getEdgesFrom(TWO)).containsExactly(new Edge<>(TWO, THREE, BUS));
+		assertThat(visited(copy, 3)).containsExactly("2 TAXI", "3 FERRY");
+	}
+
+	@Test
+	public void testSerialisedGraphKeepsItsSequences() throws IOException, ClassNotFoundException {
+		UndirectedGraph<Integer, Transport> graph = graph();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(graph);
+		}
+		UndirectedGraph<Integer, Transport> read;
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			@SuppressWarnings("unchecked")
+			UndirectedGraph<Integer, Transport> object = (UndirectedGraph<Integer, Transport>) in
+					.readObject();
+			read = object;
+		}
+		assertSameSequences(read, graph);
+		// the views of a read graph follow later changes too
+		Node<Integer> four = new Node<>(4);
+		read.addNode(four);
+		read.addEdge(new Edge<>(four, ONE, BUS));
+		assertThat(read.getEdgesFrom(ONE)).containsExactly(TAXI_1_2, new Edge<>(ONE, four, BUS));
+		assertThat(read.getEdges()).hasSize(8);
+	}
+
+	@Test
+	public void testEdgeOutsideTheGraphShouldThrow() {
+		UndirectedGraph<Integer, Transport> graph = graph();
+		assertThatThrownBy(() -> graph.addEdge(new Edge<>(ONE, new Node<>(4), TAXI)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> graph.addNode(new Node<>(1)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -0,0 +1,179 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.StandardGameHooks;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.playStandardGames;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.standardGame;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.DOUBLE;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.UNDERGROUND;
+
+/**
+ * Tests that {@link GameState} follows the model move by move
+ */
+public class ModelGameStateTest {
+
+	private static Map<Ticket, Integer> tickets(int taxi, int bus, int underground, int x2,
+			int secret) {
+		Map<Ticket, Integer> tickets = new EnumMap<>(Ticket.class);
+		tickets.put(TAXI, taxi);
+		tickets.put(BUS, bus);
+		tickets.put(UNDERGROUND, underground);
+		tickets.put(DOUBLE, x2);
+		tickets.put(SECRET, secret);
+		return tickets;
+	}
+
+	private static void playGames(boolean spectated) throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		TrackingPlayer player = new TrackingPlayer(TransportAdjacency.of(graph), new Random(7));
+		playStandardGames(graph, 20, player, new StandardGameHooks() {
+			@Override
+			public void started(ScotlandYardModel model, int seed) {
+				if (spectated) model.registerSpectator(new Spectator() {});
+				player.start();
+			}
+
+			@Override
+			public void finished(ScotlandYardModel model) {
+				player.check(model);
+			}
+		});
+		assertThat(player.revealedDoubles).isGreaterThan(0);
+	}
+
+	@Test
+	public void testStateFollowsTheModel() throws IOException {
+		playGames(false);
+	}
+
+	@Test
+	public void testStateFollowsTheModelWithASpectator() throws IOException {
+		playGames(true);
+	}
+
+	@Test
+	public void testDoubleMoveRevealsTheLocationOfItsRevealRound() {
+		// 6 - 1 - 2 = 3 # 4 ~ 5, taxi(-), bus(=), underground(#) and ferry(~)
+		Graph<Integer, Transport> graph = fromLines(asList(
+				"6 5", "1", "2", "3", "4", "5", "6",
+				"1 2 Taxi", "2 3 Bus", "3 4 Underground", "4 5 Ferry", "1 6 Taxi"));
+		DoubleMove x2 = Moves.doubleMove(BLACK, TAXI, 2, BUS, 3);
+		for (boolean spectated : new boolean[] { false, true }) {
+			for (List<Boolean> rounds : asList(asList(true, false, false), asList(false, true, false),
+					asList(true, true, false), asList(false, false, false))) {
+				Player mrX = (view, location, moves, callback) -> callback.accept(x2);
+				Player blue = (view, location, moves, callback) ->
+						callback.accept(Moves.ticket(BLUE, TAXI, 1));
+				ScotlandYardModel model = new ScotlandYardModel(rounds, graph,
+						new PlayerConfiguration.Builder(BLACK).using(mrX)
+								.with(tickets(1, 1, 0, 1, 0)).at(1).build(),
+						new PlayerConfiguration.Builder(BLUE).using(blue)
+								.with(tickets(1, 0, 0, 0, 0)).at(6).build());
+				if (spectated) model.registerSpectator(new Spectator() {});
+				GameState state = GameState.of(model, 1);
+				state.makeMove(PackedMove.encode(x2));
+				state.makeMove(PackedMove.ticket(BLUE, TAXI, 1));
+				model.startRotate();
+
+				int lastKnown = rounds.get(1) ? 3 : rounds.get(0) ? 2 : 0;
+				assertThat(model.getPlayerLocation(BLACK)).hasValue(lastKnown);
+				assertThat(state.mrXLastKnownLocation()).isEqualTo(lastKnown);
+				assertThat(GameState.of(model, 3)).isEqualTo(state);
+			}
+		}
+	}
+
+	@Test
+	public void testUnmakeMoveRestoresTheState() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		TransportAdjacency adjacency = TransportAdjacency.of(graph);
+		Player player = (view, location, moves, callback) -> {};
+		GameState state = GameState.of(standardGame(graph, 3, player), 35);
+		GameState start = new GameState(state);
+		Random random = new Random(11);
+		while (!state.isMrXCaptured() && state.currentRound() < state.roundCount()) {
+			MoveList moves = state.moves(adjacency, new MoveList());
+			for (int i = 0; i < moves.size(); i++) {
+				GameState before = new GameState(state);
+				int depth = state.depth();
+				state.makeMove(moves.get(i));
+				assertThat(state.depth()).isEqualTo(depth + 1);
+				state.unmakeMove();
+				assertThat(state).isEqualTo(before);
+				assertThat(state.zobristHash()).isEqualTo(before.zobristHash());
+			}
+			state.makeMove(moves.get(random.nextInt(moves.size())));
+		}
+		while (state.depth() > 0)
+			state.unmakeMove();
+		assertThat(state).isEqualTo(start);
+		assertThat(state.zobristHash()).isEqualTo(start.zobristHash());
+		assertThatThrownBy(state::unmakeMove).isInstanceOf(IllegalStateException.class);
+	}
+
+	// Makes each move it picks on its own state as well, and checks that the
+	// state matches the model whenever a player is asked for a move
+	private static final class TrackingPlayer implements Player {
+
+		private final TransportAdjacency adjacency;
+		private final Random random;
+		private GameState state;
+		private int revealedDoubles;
+
+		TrackingPlayer(TransportAdjacency adjacency, Random random) {
+			this.adjacency = adjacency;
+			this.random = random;
+		}
+
+		// Mr.X's actual location is only known once he is asked to move
+		void start() {
+			state = null;
+		}
+
+		void check(ScotlandYardView view) {
+			assertThat(GameState.of(view, state.location(0))).isEqualTo(state);
+			assertThat(GameState.of(view, state.location(0)).zobristHash())
+					.isEqualTo(state.zobristHash());
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			if (state == null) state = GameState.of(view, location);
+			check(view);
+			MoveList valid = state.moves(adjacency, new MoveList());
+			assertThat(valid.toMoves()).hasSize(moves.size());
+			assertThat(valid.toMoves()).hasSameElementsAs(moves);
+
+			// sorted, so the pick depends on the seed alone
+			int[] sorted = moves.stream().mapToInt(PackedMove::encode).sorted().toArray();
+			int move = sorted[random.nextInt(sorted.length)];
+			int round = view.getCurrentRound();
+			if (PackedMove.kind(move) == PackedMove.DOUBLE && view.getRounds().get(round))
+				revealedDoubles++;
+			state.makeMove(move);
+			callback.accept(PackedMove.decode(move));
+		}
+	}
+
+}
@@ -0,0 +1,158 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.NodeBits;
+import uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.StandardGameHooks;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.playStandardGames;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.DOUBLE;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+
+/**
+ * Tests that {@link MoveGenerator} and the model's move streams produce the
+ * valid moves given to players
+ */
+public class ModelMoveGeneratorTest {
+
+	// Collects the moves of the spliterator, splitting it as far as it goes
+	private static void splitAll(Spliterator<Move> moves, List<Move> into) {
+		Spliterator<Move> split = moves.trySplit();
+		if (split == null) {
+			moves.forEachRemaining(into::add);
+			return;
+		}
+		splitAll(moves, into);
+		splitAll(split, into);
+	}
+
+	private static List<Move> all(Spliterator<Move> moves) {
+		List<Move> all = new ArrayList<>();
+		moves.forEachRemaining(all::add);
+		return all;
+	}
+
+	@Test
+	public void testEveryWayOfGeneratingGivesTheValidMoves() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		CheckingPlayer player = new CheckingPlayer(new Random(42));
+		playStandardGames(graph, 10, player, new StandardGameHooks() {});
+		assertThat(player.turns).isGreaterThan(100);
+		assertThat(player.doubles).isGreaterThan(0);
+	}
+
+	@Test
+	public void testSplitsCoverTheMovesInOrder() throws IOException {
+		TransportAdjacency adjacency = TransportAdjacency.of(StandardGame.standardGraph());
+		long[] occupied = adjacency.emptySet();
+		int[] counts = { 4, 3, 3, 2, 5 };
+		List<Move> moves = all(new MoveGenerator(adjacency, occupied, BLACK, counts, 67, true));
+		assertThat(moves).doesNotHaveDuplicates();
+		assertThat(moves.size()).isGreaterThan(100);
+
+		MoveGenerator generator = new MoveGenerator(adjacency, occupied, BLACK, counts, 67, true);
+		List<Move> split = new ArrayList<>();
+		splitAll(generator, split);
+		assertThat(split).containsExactlyElementsOf(moves);
+		assertThat(generator.characteristics()).isEqualTo(
+				Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+
+		// a split part way through a group leaves the group with the generator
+		generator = new MoveGenerator(adjacency, occupied, BLACK, counts, 67, true);
+		List<Move> resumed = new ArrayList<>();
+		assertThat(generator.tryAdvance(resumed::add)).isTrue();
+		Spliterator<Move> upper = generator.trySplit();
+		resumed.addAll(all(generator));
+		resumed.addAll(all(upper));
+		assertThat(resumed).containsExactlyElementsOf(moves);
+		assertThat(generator.tryAdvance(resumed::add)).isFalse();
+		assertThat(generator.estimateSize()).isEqualTo(0L);
+	}
+
+	@Test
+	public void testPackedMovesFollowMoves() throws IOException {
+		TransportAdjacency adjacency = TransportAdjacency.of(StandardGame.standardGraph());
+		long[] occupied = adjacency.emptySet();
+		for (int detective : asList(66, 84, 86, 115))
+			NodeBits.add(occupied, detective);
+		int[] counts = { 2, 1, 0, 1, 1 };
+		List<Move> moves = all(new MoveGenerator(adjacency, occupied, BLACK, counts, 67, true));
+		MoveGenerator generator = new MoveGenerator(adjacency, occupied, BLACK, counts, 67, true);
+		List<Move> unpacked = new ArrayList<>();
+		for (int move = generator.nextPacked(); move != 0; move = generator.nextPacked())
+			unpacked.add(PackedMove.decode(move));
+		assertThat(unpacked).containsExactlyElementsOf(moves);
+		assertThat(generator.nextPacked()).isEqualTo(0);
+	}
+
+	@Test
+	public void testDoubleMovesMayUseAFirstTicketMrXDoesNotHave() {
+		// 6 - 1 - 2 = 3 # 4 ~ 5, taxi(-), bus(=), underground(#) and ferry(~)
+		TransportAdjacency adjacency = TransportAdjacency.of(fromLines(asList(
+				"6 5", "1", "2", "3", "4", "5", "6",
+				"1 2 Taxi", "2 3 Bus", "3 4 Underground", "4 5 Ferry", "1 6 Taxi")));
+		int[] counts = new int[Ticket.values().length];
+		counts[BUS.ordinal()] = 1;
+		counts[DOUBLE.ordinal()] = 1;
+		assertThat(all(new MoveGenerator(adjacency, adjacency.emptySet(), BLACK, counts, 1, true)))
+				.containsExactly(Moves.doubleMove(BLACK, TAXI, 2, BUS, 3));
+		assertThat(all(new MoveGenerator(adjacency, adjacency.emptySet(), BLACK, counts, 1, false)))
+				.isEmpty();
+	}
+
+	// Checks the moves it is given against the model's other ways of
+	// generating them, then picks one at random
+	private static final class CheckingPlayer implements Player {
+
+		private final Random random;
+		private int turns;
+		private int doubles;
+
+		CheckingPlayer(Random random) {
+			this.random = random;
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			ScotlandYardModel model = (ScotlandYardModel) view;
+			Colour colour = view.getCurrentPlayer();
+			assertThat(model.moveStream(colour, false).collect(toSet())).isEqualTo(moves);
+			List<Move> parallel = model.moveStream(colour, true).collect(toList());
+			assertThat(parallel).hasSize(moves.size());
+			assertThat(parallel).hasSameElementsAs(moves);
+			List<Move> split = new ArrayList<>();
+			splitAll(model.moveSpliterator(colour), split);
+			assertThat(split).hasSize(moves.size());
+			assertThat(split).hasSameElementsAs(moves);
+			List<Move> packed = model.packedMoves(colour, new MoveList()).toMoves();
+			assertThat(packed).hasSize(moves.size());
+			assertThat(packed).hasSameElementsAs(moves);
+
+			turns++;
+			for (Move move : moves)
+				if (move instanceof DoubleMove) doubles++;
+			// sorted, so the pick depends on the seed alone
+			int[] sorted = moves.stream().mapToInt(PackedMove::encode).sorted().toArray();
+			callback.accept(PackedMove.decode(sorted[random.nextInt(sorted.length)]));
+		}
+	}
+
+}
@@ -13,8 +13,10 @@ import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.x2;
 import static uk.ac.bris.cs.scotlandyard.harness.PlayerInteractions.player;
 import static uk.ac.bris.cs.scotlandyard.harness.Requirement.eq;
 import static uk.ac.bris.cs.scotlandyard.harness.Requirement.hasCurrentPlayer;
+import static uk.ac.bris.cs.scotlandyard.harness.Requirement.hasPlayerAt;
 import static uk.ac.bris.cs.scotlandyard.harness.Requirement.isOnRound;
 import static uk.ac.bris.cs.scotlandyard.harness.Requirement.neq;
+import static uk.ac.bris.cs.scotlandyard.harness.Requirement.playerIsAt;
 import static uk.ac.bris.cs.scotlandyard.harness.SpectatorInteractions.spectator;
 import static uk.ac.bris.cs.scotlandyard.harness.TestHarness.SpectatorEvent.ON_MOVE_MADE;
 import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
@@ -147,6 +149,66 @@ public class ModelRoundTest extends ParameterisedModelTestBase {
 				.thenIgnoreAnyFurtherInteractions();
 	}
 
+	@Test
+	public void testDoubleMoveRevealsFirstMoveDuringRevealRoundWithoutSpectators() {
+		PlayerConfiguration mrX = harness.newPlayer(BLACK, 45);
+		PlayerConfiguration blue = harness.newPlayer(BLUE, 94);
+
+		// only the first move is made in a reveal round, detectives see where
+		// it ended even though MrX moved on
+		harness.play(createGame(rounds(true, false, false), mrX, blue))
+				.startRotationAndAssertTheseInteractionsOccurInOrder(
+						player(BLACK).makeMove().willPick(x2(taxi(46), bus(34))),
+						player(BLUE).makeMove()
+								.givenGameState(hasPlayerAt(BLACK, 46)).willPick(taxi(95)))
+				.thenRequire(playerIsAt(BLACK, 46))
+				.thenIgnoreAnyFurtherInteractions();
+	}
+
+	@Test
+	public void testDoubleMoveRevealsSecondMoveDuringRevealRoundWithoutSpectators() {
+		PlayerConfiguration mrX = harness.newPlayer(BLACK, 45);
+		PlayerConfiguration blue = harness.newPlayer(BLUE, 94);
+
+		// only the second move is made in a reveal round
+		harness.play(createGame(rounds(false, true, false), mrX, blue))
+				.startRotationAndAssertTheseInteractionsOccurInOrder(
+						player(BLACK).makeMove().willPick(x2(taxi(46), bus(34))),
+						player(BLUE).makeMove()
+								.givenGameState(hasPlayerAt(BLACK, 34)).willPick(taxi(95)))
+				.thenRequire(playerIsAt(BLACK, 34))
+				.thenIgnoreAnyFurtherInteractions();
+	}
+
+	@Test
+	public void testDoubleMoveRevealsBothMovesDuringRevealRoundsWithoutSpectators() {
+		PlayerConfiguration mrX = harness.newPlayer(BLACK, 45);
+		PlayerConfiguration blue = harness.newPlayer(BLUE, 94);
+
+		// both moves are made in reveal rounds, the last one is seen
+		harness.play(createGame(rounds(true, true, false), mrX, blue))
+				.startRotationAndAssertTheseInteractionsOccurInOrder(
+						player(BLACK).makeMove().willPick(x2(taxi(46), bus(34))),
+						player(BLUE).makeMove()
+								.givenGameState(hasPlayerAt(BLACK, 34)).willPick(taxi(95)))
+				.thenRequire(playerIsAt(BLACK, 34))
+				.thenIgnoreAnyFurtherInteractions();
+	}
+
+	@Test
+	public void testDoubleMoveDuringHiddenRoundsRevealsNothingWithoutSpectators() {
+		PlayerConfiguration mrX = harness.newPlayer(BLACK, 45);
+		PlayerConfiguration blue = harness.newPlayer(BLUE, 94);
+
+		harness.play(createGame(rounds(false, false, false), mrX, blue))
+				.startRotationAndAssertTheseInteractionsOccurInOrder(
+						player(BLACK).makeMove().willPick(x2(taxi(46), bus(34))),
+						player(BLUE).makeMove()
+								.givenGameState(hasPlayerAt(BLACK, 0)).willPick(taxi(95)))
+				.thenRequire(playerIsAt(BLACK, 0))
+				.thenIgnoreAnyFurtherInteractions();
+	}
+
 	@Test
 	public void testMrXIsTheFirstToPlay() {
 		PlayerConfiguration mrX = harness.newPlayer(BLACK);
@@ -22,6 +22,7 @@ import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.taxi;
 import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.x2;
 import static uk.ac.bris.cs.scotlandyard.harness.PlayerInteractions.player;
 import static uk.ac.bris.cs.scotlandyard.harness.Requirement.eq;
+import static uk.ac.bris.cs.scotlandyard.harness.Requirement.hasPlayerAt;
 import static uk.ac.bris.cs.scotlandyard.harness.Requirement.isA;
 import static uk.ac.bris.cs.scotlandyard.harness.Requirement.isOnRound;
 import static uk.ac.bris.cs.scotlandyard.harness.SpectatorInteractions.spectator;
@@ -243,6 +244,45 @@ public class ModelSpectatorTest extends ParameterisedModelTestBase {
 				.thenIgnoreAnyFurtherInteractions();
 	}
 
+	@Test
+	public void testDoubleMoveShouldRevealFirstMoveToSpectatorsAndDetectivesAlike() {
+		PlayerConfiguration mrX = harness.newPlayer(BLACK, 45);
+		PlayerConfiguration blue = harness.newPlayer(BLUE, 94);
+		ScotlandYardGame game = createGame(rounds(true, false, false), mrX, blue);
+		game.registerSpectator(harness.createSpectator(ON_MOVE_MADE));
+
+		// the location revealed by the first move stays visible after the
+		// second, and detectives see the same as spectators
+		harness.play(game).startRotationAndAssertTheseInteractionsOccurInOrder(
+				player(BLACK).makeMove().willPick(x2(taxi(46), bus(34))),
+				spectator().onMoveMade().givenGameState(hasPlayerAt(BLACK, 46)),
+				spectator().onMoveMade().givenGameState(hasPlayerAt(BLACK, 46)),
+				spectator().onMoveMade().givenGameState(hasPlayerAt(BLACK, 46)),
+				player(BLUE).makeMove()
+						.givenGameState(hasPlayerAt(BLACK, 46)).willPick(taxi(95)),
+				spectator().onMoveMade().givenGameState(hasPlayerAt(BLACK, 46)))
+				.thenIgnoreAnyFurtherInteractions();
+	}
+
+	@Test
+	public void testDoubleMoveShouldRevealSecondMoveToSpectatorsAndDetectivesAlike() {
+		PlayerConfiguration mrX = harness.newPlayer(BLACK, 45);
+		PlayerConfiguration blue = harness.newPlayer(BLUE, 94);
+		ScotlandYardGame game = createGame(rounds(false, true, false), mrX, blue);
+		game.registerSpectator(harness.createSpectator(ON_MOVE_MADE));
+
+		// nothing is revealed until the second move is made
+		harness.play(game).startRotationAndAssertTheseInteractionsOccurInOrder(
+				player(BLACK).makeMove().willPick(x2(taxi(46), bus(34))),
+				spectator().onMoveMade().givenGameState(hasPlayerAt(BLACK, 0)),
+				spectator().onMoveMade().givenGameState(hasPlayerAt(BLACK, 0)),
+				spectator().onMoveMade().givenGameState(hasPlayerAt(BLACK, 34)),
+				player(BLUE).makeMove()
+						.givenGameState(hasPlayerAt(BLACK, 34)).willPick(taxi(95)),
+				spectator().onMoveMade().givenGameState(hasPlayerAt(BLACK, 34)))
+				.thenIgnoreAnyFurtherInteractions();
+	}
+
 	@Test
 	public void
 	testDetectiveTicketMoveShouldNotifyWithCorrectTicketAndDestinationDuringHiddenRound() {
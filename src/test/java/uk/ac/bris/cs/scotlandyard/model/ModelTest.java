@@ -16,5 +16,9 @@ import org.junit.runners.Suite;
 		ModelRoundTest.class,
 		ModelPlayerTest.class,
 		ModelValidMoveTest.class,
-		ModelSpectatorTest.class})
+		ModelSpectatorTest.class,
+		ModelTurnMovesTest.class,
+		ModelMoveGeneratorTest.class,
+		ModelGameStateTest.class,
+		ModelZobristTest.class})
 public class ModelTest {}
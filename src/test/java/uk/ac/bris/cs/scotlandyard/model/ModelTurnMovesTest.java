@@ -0,0 +1,140 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromLines;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.DOUBLE;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.UNDERGROUND;
+
+/**
+ * Tests that the moves given to a player are the valid moves of the turn and
+ * the moves accepted from it
+ */
+public class ModelTurnMovesTest {
+
+	private final ScriptedPlayer mrX = new ScriptedPlayer();
+	private final ScriptedPlayer blue = new ScriptedPlayer();
+
+	private static Map<Ticket, Integer> tickets(int taxi, int bus, int underground, int x2,
+			int secret) {
+		Map<Ticket, Integer> tickets = new EnumMap<>(Ticket.class);
+		tickets.put(TAXI, taxi);
+		tickets.put(BUS, bus);
+		tickets.put(UNDERGROUND, underground);
+		tickets.put(DOUBLE, x2);
+		tickets.put(SECRET, secret);
+		return tickets;
+	}
+
+	// 6 - 1 - 2 = 3 # 4 ~ 5, taxi(-), bus(=), underground(#) and ferry(~),
+	// Mr.X on 1 and blue on 3
+	private ScotlandYardModel createGame() {
+		return new ScotlandYardModel(asList(false, true, false, false),
+				fromLines(asList("6 5", "1", "2", "3", "4", "5", "6",
+						"1 2 Taxi", "2 3 Bus", "3 4 Underground", "4 5 Ferry", "1 6 Taxi")),
+				new PlayerConfiguration.Builder(BLACK).using(mrX)
+						.with(tickets(2, 1, 1, 1, 0)).at(1).build(),
+				new PlayerConfiguration.Builder(BLUE).using(blue)
+						.with(tickets(1, 1, 2, 0, 0)).at(3).build());
+	}
+
+	@Test
+	public void testPlayersAreGivenTheValidMovesUnmodifiable() {
+		ScotlandYardModel model = createGame();
+		mrX.picks(Moves.ticket(BLACK, TAXI, 2));
+		blue.picks(Moves.ticket(BLUE, UNDERGROUND, 4));
+		model.startRotate();
+
+		assertThat(mrX.given).hasSize(1);
+		assertThat(mrX.given.get(0)).containsExactlyInAnyOrder(
+				Moves.ticket(BLACK, TAXI, 2),
+				Moves.ticket(BLACK, TAXI, 6),
+				Moves.doubleMove(BLACK, TAXI, 2, TAXI, 1),
+				Moves.doubleMove(BLACK, TAXI, 6, TAXI, 1));
+		assertThat(blue.given.get(0)).containsExactlyInAnyOrder(
+				Moves.ticket(BLUE, BUS, 2),
+				Moves.ticket(BLUE, UNDERGROUND, 4));
+		for (Set<Move> moves : asList(mrX.given.get(0), blue.given.get(0))) {
+			assertThatThrownBy(() -> moves.add(Moves.pass(BLUE)))
+					.isInstanceOf(UnsupportedOperationException.class);
+			assertThatThrownBy(moves::clear)
+					.isInstanceOf(UnsupportedOperationException.class);
+		}
+	}
+
+	@Test
+	public void testMovesNotGivenShouldThrowAndLeaveTheTurn() {
+		ScotlandYardModel model = createGame();
+		// 3 is blue's location
+		mrX.picks(Moves.ticket(BLACK, BUS, 3));
+		assertThatThrownBy(model::startRotate).isInstanceOf(IllegalArgumentException.class);
+		mrX.picks(Moves.doubleMove(BLACK, TAXI, 6, TAXI, 2));
+		assertThatThrownBy(model::startRotate).isInstanceOf(IllegalArgumentException.class);
+		assertThat(model.getCurrentPlayer()).isEqualTo(BLACK);
+		assertThat(model.getCurrentRound()).isEqualTo(0);
+
+		// the same moves are given again and accepted
+		mrX.picks(Moves.doubleMove(BLACK, TAXI, 6, TAXI, 1));
+		blue.picks(Moves.ticket(BLUE, BUS, 2));
+		model.startRotate();
+		assertThat(mrX.given).hasSize(3);
+		assertThat(mrX.given.get(2)).isEqualTo(mrX.given.get(0));
+		assertThat(model.getCurrentRound()).isEqualTo(2);
+		assertThat(model.getPlayerTickets(BLACK, TAXI)).hasValue(0);
+	}
+
+	@Test
+	public void testMovesAreGeneratedAgainAfterEachMove() {
+		ScotlandYardModel model = createGame();
+		mrX.picks(Moves.ticket(BLACK, TAXI, 2));
+		blue.picks(Moves.ticket(BLUE, UNDERGROUND, 4));
+		model.startRotate();
+		mrX.picks(Moves.ticket(BLACK, BUS, 3));
+		blue.picks(Moves.ticket(BLUE, UNDERGROUND, 3));
+		model.startRotate();
+
+		// from 2 with one taxi and one bus ticket left and blue on 4
+		assertThat(mrX.given.get(1)).containsExactlyInAnyOrder(
+				Moves.ticket(BLACK, TAXI, 1),
+				Moves.ticket(BLACK, BUS, 3));
+		// only the underground leaves 4
+		assertThat(blue.given.get(1)).containsExactly(Moves.ticket(BLUE, UNDERGROUND, 3));
+		assertThat(model.isGameOver()).isTrue();
+	}
+
+	// Picks the given moves in order and remembers the moves it was given
+	private static final class ScriptedPlayer implements Player {
+
+		private final Deque<Move> picks = new ArrayDeque<>();
+		private final List<Set<Move>> given = new ArrayList<>();
+
+		void picks(Move... moves) {
+			picks.addAll(asList(moves));
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			given.add(moves);
+			callback.accept(picks.remove());
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.StandardGameHooks;
+
+import static java.util.Collections.emptySet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.playStandardGames;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+
+/**
+ * Tests that the model's {@link ScotlandYardModel#getZobristHash()} is the
+ * hash {@link Zobrist} computes from scratch
+ */
+public class ModelZobristTest {
+
+	private static void playGames(boolean spectated) throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		HashingPlayer player = new HashingPlayer(new Random(3));
+		Set<Long> hashes = new HashSet<>();
+		playStandardGames(graph, 20, player, new StandardGameHooks() {
+			@Override
+			public void started(ScotlandYardModel model, int seed) {
+				player.mrX = StandardGame.generateMrXLocation(seed);
+				player.check(model);
+				if (spectated) model.registerSpectator(new Spectator() {
+					@Override
+					public void onRotationComplete(ScotlandYardView view) {
+						player.check(view);
+					}
+
+					@Override
+					public void onGameOver(ScotlandYardView view, Set<Colour> winningPlayers) {
+						player.check(view);
+					}
+				});
+			}
+
+			@Override
+			public void rotated(ScotlandYardModel model) {
+				hashes.add(model.getZobristHash());
+			}
+
+			@Override
+			public void finished(ScotlandYardModel model) {
+				player.check(model);
+			}
+		});
+		assertThat(player.checked).isGreaterThan(500);
+		// positions at the end of each rotation are hardly ever the same
+		assertThat(hashes.size()).isGreaterThan(player.checked / 10);
+	}
+
+	@Test
+	public void testIncrementalHashEqualsHashFromScratch() throws IOException {
+		playGames(false);
+	}
+
+	@Test
+	public void testIncrementalHashEqualsHashFromScratchWithASpectator() throws IOException {
+		playGames(true);
+	}
+
+	@Test
+	public void testHashDoesNotAskTheViewWhereMrXIs() {
+		ScotlandYardView view = new ScotlandYardView() {
+			@Override
+			public List<Colour> getPlayers() {
+				return Arrays.asList(BLACK, BLUE);
+			}
+
+			@Override
+			public Set<Colour> getWinningPlayers() {
+				return emptySet();
+			}
+
+			@Override
+			public Optional<Integer> getPlayerLocation(Colour colour) {
+				if (colour == BLACK) throw new AssertionError("asked where Mr.X is");
+				return Optional.of(7);
+			}
+
+			@Override
+			public Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket) {
+				return Optional.of(ticket.ordinal());
+			}
+
+			@Override
+			public boolean isGameOver() {
+				return false;
+			}
+
+			@Override
+			public Colour getCurrentPlayer() {
+				return BLUE;
+			}
+
+			@Override
+			public int getCurrentRound() {
+				return 2;
+			}
+
+			@Override
+			public List<Boolean> getRounds() {
+				return Arrays.asList(false, true, false);
+			}
+
+			@Override
+			public Graph<Integer, Transport> getGraph() {
+				return null;
+			}
+		};
+		long expected = Zobrist.round(2) ^ Zobrist.toMove(BLUE) ^ Zobrist.lastKnown(5)
+				^ Zobrist.location(BLACK, 9) ^ Zobrist.location(BLUE, 7);
+		for (Colour colour : view.getPlayers())
+			for (Ticket ticket : Ticket.values())
+				expected ^= Zobrist.tickets(colour, ticket, ticket.ordinal());
+		assertThat(Zobrist.hash(view, 9, 5)).isEqualTo(expected);
+		assertThat(Zobrist.hash(view, 9, 6)).isNotEqualTo(expected);
+	}
+
+	@Test
+	public void testKeysOfDifferentFeaturesDiffer() {
+		Set<Long> keys = new HashSet<>();
+		for (int node : new int[] { -1, 0, 199, PackedMove.MAX_DESTINATION + 1 }) {
+			keys.add(Zobrist.location(BLACK, node));
+			keys.add(Zobrist.location(BLUE, node));
+			keys.add(Zobrist.lastKnown(node));
+			keys.add(Zobrist.round(node));
+			keys.add(Zobrist.tickets(BLUE, TAXI, node));
+		}
+		assertThat(keys).hasSize(20);
+		assertThat(Zobrist.location(BLUE, 2000)).isEqualTo(Zobrist.location(BLUE, 2000));
+	}
+
+	// Picks moves at random, checking the model's hash against hashes from
+	// scratch whenever a player is asked for a move
+	private static final class HashingPlayer implements Player {
+
+		private final Random random;
+		private int mrX; // Mr.X's actual location
+		private int checked;
+
+		HashingPlayer(Random random) {
+			this.random = random;
+		}
+
+		void check(ScotlandYardView view) {
+			ScotlandYardModel model = (ScotlandYardModel) view;
+			int lastKnown = view.getPlayerLocation(BLACK).orElse(0);
+			assertThat(model.getZobristHash()).isEqualTo(Zobrist.hash(view, mrX, lastKnown));
+			assertThat(model.getZobristHash()).isEqualTo(GameState.of(view, mrX).zobristHash());
+			checked++;
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			check(view);
+			// sorted, so the pick depends on the seed alone
+			int[] sorted = moves.stream().mapToInt(PackedMove::encode).sorted().toArray();
+			int move = sorted[random.nextInt(sorted.length)];
+			if (PackedMove.colour(move) == BLACK) mrX = PackedMove.finalDestination(move);
+			callback.accept(PackedMove.decode(move));
+		}
+	}
+
+}